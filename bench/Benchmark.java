@@ -0,0 +1,102 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+
+// A minimal microbenchmark harness (no dependencies, so it runs straight from javac) :
+// the operation is warmed up until the JIT settles, then timed over several rounds.
+// Every result is folded into a sink so that the JIT can't remove the measured work.
+public class Benchmark {
+	public interface Operation {
+		long run();
+	}
+
+	static final long WARMUP_NANOS = 1_000_000_000L;
+	static final long ROUND_NANOS  =   200_000_000L;
+	static final int  NUM_ROUNDS   = 10;
+
+	private static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+	public static long sink;
+
+	public final String name;
+	public final Operation operation;
+
+	// Results
+	public double nanosPerOperation;      // Median of the rounds
+	public double minNanosPerOperation;
+	public double bytesPerOperation = -1; // -1 if the JVM doesn't report allocations
+
+	public Benchmark(String _name, Operation _operation) {
+		this.name = _name;
+		this.operation = _operation;
+	}
+
+	public void measure() {
+		// Warm up, and find how many operations fit in a round
+		long operationsPerRound = 1;
+		long warmupStart = System.nanoTime();
+
+		while (System.nanoTime() - warmupStart < WARMUP_NANOS) {
+			long start = System.nanoTime();
+
+			this.runBatch(operationsPerRound);
+
+			if (System.nanoTime() - start < ROUND_NANOS / 10) operationsPerRound *= 2;
+		}
+
+		double[] rounds = new double[NUM_ROUNDS];
+
+		long allocatedBefore = getAllocatedBytes();
+
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			long start = System.nanoTime();
+
+			this.runBatch(operationsPerRound);
+
+			rounds[i] = (System.nanoTime() - start) / (double) operationsPerRound;
+		}
+
+		long allocatedAfter = getAllocatedBytes();
+
+		java.util.Arrays.sort(rounds);
+
+		this.nanosPerOperation    = rounds[NUM_ROUNDS / 2];
+		this.minNanosPerOperation = rounds[0];
+
+		if (allocatedBefore >= 0) {
+			this.bytesPerOperation = (allocatedAfter - allocatedBefore) / (double) (operationsPerRound * NUM_ROUNDS);
+		}
+	}
+
+	private void runBatch(long _numOperations) {
+		long result = 0;
+
+		for (long i = 0; i < _numOperations; i++) {
+			result += this.operation.run();
+		}
+
+		sink += result;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-40s %14.1f ns/op  (min %12.1f)  %10.1f B/op", this.name, this.nanosPerOperation, this.minNanosPerOperation, this.bytesPerOperation);
+	}
+
+	// Bytes allocated so far by the current thread, -1 if the JVM can't tell
+	private static long getAllocatedBytes() {
+		if (threadBean == null) return -1;
+
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) return bean;
+		}
+
+		return null;
+	}
+}
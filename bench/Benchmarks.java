@@ -0,0 +1,211 @@
+package bench;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import engine.KernelMode;
+import engine.Light;
+import engine.Matrix4;
+import engine.MatrixOperations;
+import engine.RenderTarget;
+import engine.Texture;
+import engine.TextureFilter;
+import engine.TextureMapping;
+import engine.Triangle;
+import engine.Vector;
+
+// Baseline for the rendering hot paths.
+// Usage : javac -d out engine/*.java bench/*.java && java -cp out bench.Benchmarks [name filter]
+// (see the README for the *.vector benchmarks)
+public class Benchmarks {
+	private static final int NUM_BATCH_VERTICES = 1024;
+
+	public static void main(String[] args) {
+		String filter = (args.length > 0) ? args[0] : "";
+
+		if (!KernelMode.VECTOR.isAvailable()) System.out.println("No *.vector benchmarks : compile simd/ and run with --add-modules jdk.incubator.vector");
+
+		ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+		addTriangleBenchmarks(benchmarks);
+		addMatrixBenchmarks(benchmarks);
+		addLightBenchmarks(benchmarks);
+		addTextureBenchmarks(benchmarks);
+
+		for (Benchmark benchmark : benchmarks) {
+			if (!benchmark.name.contains(filter)) continue;
+
+			benchmark.measure();
+
+			System.out.println(benchmark);
+		}
+	}
+
+	// Rasterization : every operation clears a target just large enough for the triangle, then draws it
+	// (the depth test would reject every pixel otherwise). The "clear" benchmarks measure that overhead alone.
+	private static void addTriangleBenchmarks(ArrayList<Benchmark> _benchmarks) {
+		addTriangleBenchmarks(_benchmarks, "small",  16,   16,   new Vector[] { vertex(2, 2),   vertex(12, 3),  vertex(5, 13) });
+		addTriangleBenchmarks(_benchmarks, "large",  512,  512,  new Vector[] { vertex(4, 4),   vertex(508, 40), vertex(60, 508) });
+		addTriangleBenchmarks(_benchmarks, "skinny", 1024, 16,   new Vector[] { vertex(2, 2),   vertex(1020, 9), vertex(4, 12) });
+	}
+
+	private static void addTriangleBenchmarks(ArrayList<Benchmark> _benchmarks, String _size, int _width, int _height, Vector[] _vertices) {
+		RenderTarget target = new RenderTarget(_width, _height);
+
+		Vector[] colors = new Vector[] { new Vector(255, 0, 0), new Vector(0, 255, 0), new Vector(0, 0, 255) };
+
+		float[] brightnesses = new float[] { 1f, 0.5f, 0.25f };
+
+		Texture texture = createTexture(256);
+
+		// Set up once, as the tile rasterizer does per triangle
+		TextureMapping mapping = new TextureMapping();
+		mapping.set(_vertices, 0, 0, 1, 0, 0, 1);
+
+		_benchmarks.add(new Benchmark("clear." + _size, () -> {
+			target.clear(0);
+			return target.colorBuffer[0];
+		}));
+
+		// Scalar span kernels, then every pixel evaluated on its own, then the Vector API kernels (same pixels as scalar)
+		_benchmarks.add(new Benchmark("renderColoredTriangle." + _size, () -> {
+			target.clear(0);
+			return Triangle.renderColoredTriangle(_vertices, target, colors, 0, 0, target.width, target.height, KernelMode.SCALAR);
+		}));
+
+		_benchmarks.add(new Benchmark("renderTexturedTriangle." + _size, () -> {
+			target.clear(0);
+			return Triangle.renderTexturedTriangle(_vertices, mapping, texture, target, brightnesses, 0, 0, target.width, target.height, KernelMode.SCALAR);
+		}));
+
+		_benchmarks.add(new Benchmark("renderColoredTriangle.perPixel." + _size, () -> {
+			target.clear(0);
+			return Triangle.renderColoredTriangle(_vertices, target, colors, 0, 0, target.width, target.height, KernelMode.PER_PIXEL);
+		}));
+
+		_benchmarks.add(new Benchmark("renderTexturedTriangle.perPixel." + _size, () -> {
+			target.clear(0);
+			return Triangle.renderTexturedTriangle(_vertices, mapping, texture, target, brightnesses, 0, 0, target.width, target.height, KernelMode.PER_PIXEL);
+		}));
+
+		// Textured spans are bound by the sampler and have no vector kernel
+		if (KernelMode.VECTOR.isAvailable()) {
+			_benchmarks.add(new Benchmark("renderColoredTriangle.vector." + _size, () -> {
+				target.clear(0);
+				return Triangle.renderColoredTriangle(_vertices, target, colors, 0, 0, target.width, target.height, KernelMode.VECTOR);
+			}));
+		}
+	}
+
+	private static void addMatrixBenchmarks(ArrayList<Benchmark> _benchmarks) {
+		double[][] perspective = MatrixOperations.createPerspectiveMatrix(1920, 1080, 90, 0.01, 1000);
+
+		Matrix4 perspectiveMatrix = new Matrix4(perspective);
+
+		Vector vertex = new Vector(0.5, -0.25, 3);
+
+		double[] result = new double[4];
+
+		_benchmarks.add(new Benchmark("multiplyMatrixByVector", () -> {
+			vertex.x += 1e-9;
+			return (long) MatrixOperations.multiplyMatrixByVector(perspective, vertex).w;
+		}));
+
+		_benchmarks.add(new Benchmark("Matrix4.transform", () -> {
+			vertex.x += 1e-9;
+			perspectiveMatrix.transform(vertex.x, vertex.y, vertex.z, result, 0);
+			return (long) result[3];
+		}));
+
+		// A vertex batch of the geometry stage
+		float[] positions = new float[3 * NUM_BATCH_VERTICES];
+
+		for (int i = 0; i < positions.length; i++) positions[i] = (float) Math.sin(i);
+
+		double[] clip = new double[4 * NUM_BATCH_VERTICES];
+
+		_benchmarks.add(new Benchmark("Matrix4.transformPoints.scalar", () -> {
+			perspectiveMatrix.transformPoints(positions, 0, NUM_BATCH_VERTICES, clip, KernelMode.SCALAR);
+			return (long) clip[3];
+		}));
+
+		if (KernelMode.VECTOR.isAvailable()) {
+			_benchmarks.add(new Benchmark("Matrix4.transformPoints.vector", () -> {
+				perspectiveMatrix.transformPoints(positions, 0, NUM_BATCH_VERTICES, clip, KernelMode.VECTOR);
+				return (long) clip[3];
+			}));
+		}
+	}
+
+	private static void addLightBenchmarks(ArrayList<Benchmark> _benchmarks) {
+		for (int numLights : new int[] { 1, 8, 64 }) {
+			ArrayList<Light> lights = new ArrayList<Light>();
+
+			for (int i = 0; i < numLights; i++) {
+				lights.add(new Light(new Vector(Math.cos(i), Math.sin(i), -2 - i % 4), 3));
+			}
+
+			Vector[] vertices = new Vector[] { new Vector(0, 0, 0), new Vector(1, 0, 0), new Vector(0, 1, 0) };
+
+			Vector normal = new Vector(0, 0, -1);
+
+			_benchmarks.add(new Benchmark("getIllimunation." + numLights + "lights", () -> {
+				vertices[0].x += 1e-9;
+				return (long) (Light.getIllimunation(vertices, normal, lights)[0] * 1000);
+			}));
+
+			_benchmarks.add(new Benchmark("getIllumination." + numLights + "lights", () -> {
+				vertices[0].x += 1e-9;
+				return (long) (Light.getIllumination(vertices[0].x, 0, 0, 0, 0, -1, lights) * 1000);
+			}));
+		}
+	}
+
+	// Pseudo random (u;v) so that larger textures don't stay in the cache
+	private static void addTextureBenchmarks(ArrayList<Benchmark> _benchmarks) {
+		for (int size : new int[] { 16, 256, 1024 }) {
+			Texture texture = createTexture(size);
+
+			int[] seed = new int[] { 1 };
+
+			_benchmarks.add(new Benchmark("Texture.sample." + size, () -> {
+				seed[0] = seed[0] * 1103515245 + 12345;
+				return (long) texture.sample((seed[0] >>> 8) % size, (seed[0] >>> 20) % size).x;
+			}));
+
+			_benchmarks.add(new Benchmark("Texture.sampleRGB." + size, () -> {
+				seed[0] = seed[0] * 1103515245 + 12345;
+				return texture.sampleRGB((seed[0] >>> 8) % size, (seed[0] >>> 20) % size);
+			}));
+
+			// Footprint of about 4 texels : minified by one level
+			for (TextureFilter filter : TextureFilter.values()) {
+				Texture filteredTexture = createTexture(size);
+				filteredTexture.setFilter(filter);
+
+				double footprint = 4.0 / size;
+
+				_benchmarks.add(new Benchmark("Texture.sample." + filter.name().toLowerCase() + "." + size, () -> {
+					seed[0] = seed[0] * 1103515245 + 12345;
+					return filteredTexture.sample(((seed[0] >>> 8) & 0xFFF) / 4096.0, ((seed[0] >>> 20) & 0xFFF) / 4096.0, footprint, 0, 0, footprint);
+				}));
+			}
+		}
+	}
+
+	private static Vector vertex(double _x, double _y) {
+		return new Vector(_x, _y, 0, 1);
+	}
+
+	private static Texture createTexture(int _size) {
+		BufferedImage image = new BufferedImage(_size, _size, BufferedImage.TYPE_INT_RGB);
+
+		for (int y = 0; y < _size; y++) {
+			for (int x = 0; x < _size; x++) {
+				image.setRGB(x, y, (x * 255 / _size) << 16 | (y * 255 / _size) << 8 | ((x ^ y) & 0xFF));
+			}
+		}
+
+		return new Texture(image);
+	}
+}
@@ -0,0 +1,82 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Handle to a texture or mesh of the AssetManager, shared by everything that loaded the same path.
+// get() returns a placeholder until the asset is loaded : loads finish in the background but are only published
+// at the frame boundary, on the render thread, so a frame never sees an asset change halfway through.
+public class Asset<T> {
+	public final String path;
+
+	private final AssetManager manager;
+	final AssetManager.Loader<T> loader;
+
+	private volatile T value;
+	private volatile boolean isLoaded = false, hasFailed = false;
+
+	// Guarded by the manager
+	Future<T> loading; // Until published
+	int references = 0;
+	long memorySize = 0;
+
+	private ArrayList<Consumer<T>> listeners = new ArrayList<Consumer<T>>();
+
+	Asset(AssetManager _manager, AssetManager.Loader<T> _loader, String _path) {
+		this.manager = _manager;
+		this.loader  = _loader;
+		this.path    = _path;
+		this.value   = _loader.createPlaceholder();
+	}
+
+	public T get() { return this.value; }
+
+	public boolean isLoaded()  { return this.isLoaded;  }
+	public boolean hasFailed() { return this.hasFailed; }
+
+	public int getReferences() { synchronized (this.manager) { return this.references; } }
+
+	// Blocks until the asset is loaded (or failed) and publishes it right away : call it from the render thread
+	public T await() {
+		this.manager.publish(this);
+
+		return this.value;
+	}
+
+	// Runs _listener (on the render thread) once the asset is loaded, right away if it already is. Not run if it fails.
+	public void onLoad(Consumer<T> _listener) {
+		synchronized (this.manager) {
+			if (!this.isLoaded) {
+				if (!this.hasFailed) this.listeners.add(_listener); // Never run and never cleared otherwise
+
+				return;
+			}
+		}
+
+		_listener.accept(this.value);
+	}
+
+	// Called by the manager (holding its lock) when the background load is done
+	ArrayList<Consumer<T>> setLoaded(T _loaded) {
+		this.value = this.loader.publish(this.value, _loaded);
+		this.memorySize = this.loader.getMemorySize(this.value);
+		this.isLoaded = true;
+
+		ArrayList<Consumer<T>> listeners = this.listeners;
+		this.listeners = new ArrayList<Consumer<T>>();
+
+		return listeners;
+	}
+
+	void setFailed() {
+		this.hasFailed = true;
+		this.listeners.clear();
+	}
+
+	void unload() {
+		this.value = this.loader.unload(this.value);
+		this.memorySize = 0;
+		this.isLoaded = false;
+	}
+}
@@ -0,0 +1,259 @@
+package engine;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+// Registry of the textures and meshes loaded from files :
+// - a file is loaded once and shared by everything that loads it (reference counted : release every load)
+// - files are read and decoded on background threads, handles return a placeholder meanwhile
+// - once the loaded assets take more memory than the budget, the least recently used unreferenced ones are unloaded
+//   (https://en.wikipedia.org/wiki/Cache_replacement_policies#Least_recently_used_(LRU), loading counts as a use)
+// Loads are published and assets unloaded by update(), which the engine calls on the render thread before every frame.
+public class AssetManager {
+	static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+	// Mostly waiting on the disk (parsing OBJ files already runs on the fork-join pool)
+	private static final int NUM_THREADS = 2;
+
+	private static final int PLACEHOLDER_COLOR = 0x808080;
+
+	// By type and absolute path, least recently used first
+	private final LinkedHashMap<String, Asset<?>> assets = new LinkedHashMap<String, Asset<?>>(16, 0.75f, true);
+
+	private final ArrayList<Asset<?>> pending = new ArrayList<Asset<?>>(); // Loading, or loaded but not published yet
+
+	private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+	private long memoryUsage  = 0;
+
+	private ExecutorService executor;
+
+	// How an asset type is loaded, stood in for and measured
+	abstract static class Loader<T> {
+		final String name;
+
+		Loader(String _name) { this.name = _name; }
+
+		abstract T createPlaceholder();
+
+		abstract T load(String _path) throws IOException; // Background thread
+
+		abstract T publish(T _placeholder, T _loaded);    // Returns the asset's new value
+
+		abstract T unload(T _value);                      // Returns the asset's new value
+
+		abstract long getMemorySize(T _value);
+	}
+
+	// Triangles reference textures by index : the placeholder itself takes the loaded texels, and goes back to being one when unloaded
+	private static final Loader<Texture> TEXTURES = new Loader<Texture>("texture") {
+		Texture createPlaceholder() { return new Texture(PLACEHOLDER_COLOR); }
+
+		Texture load(String _path) throws IOException {
+			BufferedImage image = ImageIO.read(new File(_path));
+
+			if (image == null) throw new IOException(_path + " is not a supported image");
+
+			return new Texture(image);
+		}
+
+		Texture publish(Texture _placeholder, Texture _loaded) {
+			_placeholder.set(_loaded);
+
+			return _placeholder;
+		}
+
+		Texture unload(Texture _texture) {
+			_texture.set(this.createPlaceholder());
+
+			return _texture;
+		}
+
+		long getMemorySize(Texture _texture) { return _texture.getMemorySize(); }
+	};
+
+	// Objects are given the loaded mesh by their load listener (see Engine.loadModelAsync())
+	private static final Loader<Mesh> MESHES = new Loader<Mesh>("mesh") {
+		Mesh createPlaceholder() { return new Mesh(new float[0], new float[0], new int[0]); }
+
+		Mesh load(String _path) throws IOException { return MeshCache.load(_path); }
+
+		Mesh publish(Mesh _placeholder, Mesh _loaded) { return _loaded; }
+
+		Mesh unload(Mesh _mesh) { return this.createPlaceholder(); }
+
+		long getMemorySize(Mesh _mesh) { return _mesh.getMemorySize(); }
+	};
+
+	public synchronized Asset<Texture> loadTexture(String _path) { return this.load(TEXTURES, _path); }
+
+	public synchronized Asset<Mesh> loadMesh(String _path) { return this.load(MESHES, _path); }
+
+	public synchronized void releaseTexture(String _path) { this.release(TEXTURES, _path); }
+
+	public synchronized void releaseMesh(String _path) { this.release(MESHES, _path); }
+
+	// Unreferenced assets stay loaded (and are shared again if loaded again) until the memory budget is exceeded
+	public synchronized void release(Asset<?> _asset) {
+		if (_asset.references <= 0) throw new IllegalStateException(_asset.path + " was released more times than it was loaded");
+
+		_asset.references--;
+
+		// Try again next time
+		if (_asset.references == 0 && _asset.hasFailed()) this.assets.remove(getKey(_asset.loader, _asset.path));
+	}
+
+	public synchronized void setMemoryBudget(long _bytes) { this.memoryBudget = _bytes; }
+
+	public synchronized long getMemoryBudget() { return this.memoryBudget; }
+
+	// Bytes taken by the loaded assets (placeholders excluded) and by the copies made of them (see allocate())
+	public synchronized long getMemoryUsage() { return this.memoryUsage; }
+
+	public synchronized int numAssets()  { return this.assets.size();  }
+	public synchronized int numLoading() { return this.pending.size(); }
+
+	// Counts memory that can't be unloaded but comes from the assets (e.g. per object colors) towards the budget :
+	// more unreferenced assets get unloaded instead
+	synchronized void allocate(long _bytes) { this.memoryUsage += _bytes; }
+	synchronized void free(long _bytes)     { this.memoryUsage -= _bytes; }
+
+	// Publishes the loads finished since the last call, then unloads assets until the budget is met.
+	// Called by the engine before every frame (the scene does not change during a frame).
+	void update() {
+		Asset<?> finished;
+
+		while ((finished = this.getFinishedLoad()) != null) this.publish(finished);
+
+		this.evict();
+	}
+
+	// Waits for the asset's load if needed, then publishes it and runs its listeners on the calling thread
+	<T> void publish(Asset<T> _asset) {
+		Future<T> loading;
+
+		synchronized (this) {
+			loading = _asset.loading;
+		}
+
+		if (loading == null) return; // Published already
+
+		T loaded = null;
+		Throwable error = null;
+
+		try {
+			loaded = loading.get();
+		} catch (ExecutionException e) {
+			error = e.getCause();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		ArrayList<Consumer<T>> listeners;
+
+		synchronized (this) {
+			if (_asset.loading != loading) return;
+
+			_asset.loading = null;
+			this.pending.remove(_asset);
+
+			if (error != null) {
+				System.out.println("Could not load " + _asset.path + " (" + error + ")");
+
+				_asset.setFailed();
+				return;
+			}
+
+			listeners = _asset.setLoaded(loaded);
+
+			this.memoryUsage += _asset.memorySize;
+		}
+
+		for (Consumer<T> listener : listeners) listener.accept(_asset.get());
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Asset<T> load(Loader<T> _loader, String _path) {
+		String path = Paths.get(_path).toAbsolutePath().normalize().toString();
+		String key = getKey(_loader, path);
+
+		Asset<T> asset = (Asset<T>) this.assets.get(key);
+
+		if (asset == null) {
+			asset = new Asset<T>(this, _loader, path);
+
+			asset.loading = this.getExecutor().submit(() -> _loader.load(path));
+
+			this.assets.put(key, asset);
+			this.pending.add(asset);
+		}
+
+		asset.references++;
+
+		return asset;
+	}
+
+	private void release(Loader<?> _loader, String _path) {
+		Asset<?> asset = this.assets.get(getKey(_loader, Paths.get(_path).toAbsolutePath().normalize().toString()));
+
+		if (asset == null) throw new IllegalStateException(_path + " is not loaded");
+
+		this.release(asset);
+	}
+
+	private synchronized Asset<?> getFinishedLoad() {
+		for (int i = 0; i < this.pending.size(); i++) {
+			if (this.pending.get(i).loading.isDone()) return this.pending.get(i);
+		}
+
+		return null;
+	}
+
+	private synchronized void evict() {
+		if (this.memoryUsage <= this.memoryBudget) return;
+
+		Iterator<Asset<?>> iterator = this.assets.values().iterator();
+
+		while (this.memoryUsage > this.memoryBudget && iterator.hasNext()) {
+			Asset<?> asset = iterator.next();
+
+			if (asset.references > 0 || !asset.isLoaded()) continue;
+
+			this.memoryUsage -= asset.memorySize;
+
+			asset.unload();
+			iterator.remove();
+		}
+	}
+
+	private ExecutorService getExecutor() {
+		if (this.executor == null) {
+			// Daemon threads : loads in progress don't keep the application alive
+			this.executor = Executors.newFixedThreadPool(NUM_THREADS, runnable -> {
+				Thread thread = new Thread(runnable, "Asset Loader");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+		}
+
+		return this.executor;
+	}
+
+	private static String getKey(Loader<?> _loader, String _path) {
+		return _loader.name + ":" + _path;
+	}
+}
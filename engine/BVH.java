@@ -0,0 +1,214 @@
+package engine;
+
+import java.util.Arrays;
+
+// Bounding volume hierarchy over items with axis aligned bounding boxes (min x, y, z, max x, y, z).
+// Built top-down, by splitting the items at the median of their centers along the longest axis.
+// Nodes are stored in flat arrays, children next to each other and always after their parent,
+// so a refit (when the items move but stay the same) is a single backwards pass.
+class BVH {
+	// The items of a leaf are order[first[leaf]] ... order[first[leaf] + count[leaf] - 1]
+	final int[] order;
+
+	// Per node : bounds, and either the leaf's item range, or first = left child (the right one follows) and count = -1
+	float[] bounds = new float[6 * 16];
+	int[]   first  = new int[16];
+	int[]   count  = new int[16];
+	int numNodes;
+
+	// Result of the last query : leaves that may be visible (in order), and the frustum planes still cutting them
+	int[] visibleLeaves = new int[16];
+	int[] visiblePlanes = new int[16];
+	int numVisibleLeaves;
+
+	private int[] stackNodes  = new int[64];
+	private int[] stackPlanes = new int[64];
+
+	BVH(float[] _itemBounds, int _numItems, int _leafSize) {
+		this.order = new int[_numItems];
+
+		float[] centers = new float[3 * _numItems];
+
+		for (int i = 0; i < _numItems; i++) {
+			this.order[i] = i;
+
+			for (int c = 0; c < 3; c++) {
+				centers[3 * i + c] = (_itemBounds[6 * i + c] + _itemBounds[6 * i + 3 + c]) / 2;
+			}
+		}
+
+		this.numNodes = 1;
+		this.build(0, 0, _numItems, _itemBounds, centers, Math.max(1, _leafSize));
+	}
+
+	// _centers : the center of the item at each position of order (moved along with it)
+	private void build(int _node, int _start, int _end, float[] _itemBounds, float[] _centers, int _leafSize) {
+		if (_end - _start <= _leafSize) {
+			this.first[_node] = _start;
+			this.count[_node] = _end - _start;
+
+			this.refitLeaf(_node, _itemBounds);
+			return;
+		}
+
+		// Split along the axis where the centers are the most spread out
+		float[] centerBounds = new float[] { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+
+		for (int i = _start; i < _end; i++) {
+			for (int c = 0; c < 3; c++) {
+				centerBounds[c]     = Math.min(centerBounds[c],     _centers[3 * i + c]);
+				centerBounds[c + 3] = Math.max(centerBounds[c + 3], _centers[3 * i + c]);
+			}
+		}
+
+		int axis = 0;
+
+		for (int c = 1; c < 3; c++) {
+			if (centerBounds[c + 3] - centerBounds[c] > centerBounds[axis + 3] - centerBounds[axis]) axis = c;
+		}
+
+		int middle = (_start + _end) >>> 1;
+
+		select(this.order, _centers, axis, _start, _end, middle);
+
+		int left = this.numNodes;
+
+		this.numNodes += 2;
+		this.ensureCapacity(this.numNodes);
+
+		this.first[_node] = left;
+		this.count[_node] = -1;
+
+		this.build(left,     _start, middle, _itemBounds, _centers, _leafSize);
+		this.build(left + 1, middle, _end,   _itemBounds, _centers, _leafSize);
+
+		this.refitInner(_node);
+	}
+
+	// Recomputes every node's bounds from the (moved) items
+	void refit(float[] _itemBounds) {
+		for (int node = this.numNodes - 1; node >= 0; node--) {
+			if (this.count[node] >= 0) {
+				this.refitLeaf(node, _itemBounds);
+			} else {
+				this.refitInner(node);
+			}
+		}
+	}
+
+	private void refitLeaf(int _node, float[] _itemBounds) {
+		int offset = 6 * _node;
+
+		if (this.count[_node] == 0) {
+			Arrays.fill(this.bounds, offset, offset + 6, 0);
+			return;
+		}
+
+		for (int i = this.first[_node]; i < this.first[_node] + this.count[_node]; i++) {
+			int item = 6 * this.order[i];
+
+			for (int c = 0; c < 3; c++) {
+				if (i == this.first[_node] || _itemBounds[item + c]     < this.bounds[offset + c])     this.bounds[offset + c]     = _itemBounds[item + c];
+				if (i == this.first[_node] || _itemBounds[item + c + 3] > this.bounds[offset + c + 3]) this.bounds[offset + c + 3] = _itemBounds[item + c + 3];
+			}
+		}
+	}
+
+	private void refitInner(int _node) {
+		int offset = 6 * _node, left = 6 * this.first[_node], right = left + 6;
+
+		for (int c = 0; c < 3; c++) {
+			this.bounds[offset + c]     = Math.min(this.bounds[left + c],     this.bounds[right + c]);
+			this.bounds[offset + c + 3] = Math.max(this.bounds[left + c + 3], this.bounds[right + c + 3]);
+		}
+	}
+
+	// Collects the leaves that intersect the frustum into visibleLeaves, skipping every subtree that is outside of it.
+	// _planeMask : the planes to test against (planes the caller already knows the whole tree is inside of can be left out)
+	void query(Frustum _frustum, int _planeMask) {
+		this.numVisibleLeaves = 0;
+
+		int stackSize = 0;
+
+		this.stackNodes[0]  = 0;
+		this.stackPlanes[0] = _planeMask;
+		stackSize++;
+
+		while (stackSize > 0) {
+			stackSize--;
+
+			int node = this.stackNodes[stackSize];
+			int planes = _frustum.test(this.bounds, 6 * node, this.stackPlanes[stackSize]);
+
+			if (planes < 0) continue;
+
+			if (this.count[node] >= 0) {
+				if (this.count[node] == 0) continue;
+
+				if (this.numVisibleLeaves == this.visibleLeaves.length) {
+					this.visibleLeaves = Arrays.copyOf(this.visibleLeaves, 2 * this.visibleLeaves.length);
+					this.visiblePlanes = Arrays.copyOf(this.visiblePlanes, 2 * this.visiblePlanes.length);
+				}
+
+				this.visibleLeaves[this.numVisibleLeaves] = node;
+				this.visiblePlanes[this.numVisibleLeaves] = planes;
+				this.numVisibleLeaves++;
+			} else {
+				if (stackSize + 2 > this.stackNodes.length) {
+					this.stackNodes  = Arrays.copyOf(this.stackNodes,  2 * this.stackNodes.length);
+					this.stackPlanes = Arrays.copyOf(this.stackPlanes, 2 * this.stackPlanes.length);
+				}
+
+				// Right child first, so that the left one is visited first and leaves come out in item order
+				this.stackNodes[stackSize] = this.first[node] + 1; this.stackPlanes[stackSize] = planes; stackSize++;
+				this.stackNodes[stackSize] = this.first[node];     this.stackPlanes[stackSize] = planes; stackSize++;
+			}
+		}
+	}
+
+	private void ensureCapacity(int _numNodes) {
+		if (_numNodes <= this.first.length) return;
+
+		int capacity = Math.max(_numNodes, 2 * this.first.length);
+
+		this.bounds = Arrays.copyOf(this.bounds, 6 * capacity);
+		this.first  = Arrays.copyOf(this.first, capacity);
+		this.count  = Arrays.copyOf(this.count, capacity);
+	}
+
+	// Partially sorts _order[_start; _end[ (and _centers along) so that the item at _k has the right center along _axis,
+	// with smaller ones before it and larger ones after it (https://en.wikipedia.org/wiki/Quickselect)
+	private static void select(int[] _order, float[] _centers, int _axis, int _start, int _end, int _k) {
+		int low = _start, high = _end - 1;
+
+		while (high > low) {
+			float pivot = _centers[3 * ((low + high) >>> 1) + _axis];
+
+			int i = low, j = high;
+
+			while (i <= j) {
+				while (_centers[3 * i + _axis] < pivot) i++;
+				while (_centers[3 * j + _axis] > pivot) j--;
+
+				if (i <= j) {
+					int item = _order[i]; _order[i] = _order[j]; _order[j] = item;
+
+					for (int c = 0; c < 3; c++) {
+						float center = _centers[3 * i + c]; _centers[3 * i + c] = _centers[3 * j + c]; _centers[3 * j + c] = center;
+					}
+
+					i++;
+					j--;
+				}
+			}
+
+			if (_k <= j) {
+				high = j;
+			} else if (_k >= i) {
+				low = i;
+			} else {
+				break;
+			}
+		}
+	}
+}
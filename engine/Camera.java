@@ -4,6 +4,11 @@ public class Camera {
 	public static Vector position = new Vector(0, 1, -5);
 	public static Vector rotation = new Vector(0, 0, 0);
 	
+	// World to camera space : translate by -position, then rotate by -rotation
+	public static Matrix4 getViewMatrix() {
+		return Matrix4.translation(-position.x, -position.y, -position.z).mul(Matrix4.rotation(-rotation.x, -rotation.y, -rotation.z));
+	}
+
 	public static boolean isRotatedTriangleFacingCamera(Vector[] _rotatedVertices, Vector _surfaceNormal) {
 		Vector triangleRotatedCenter = Vector.div(Vector.add(Vector.add(_rotatedVertices[0], _rotatedVertices[1]), _rotatedVertices[2]), 3);
 		Vector triangleToCamera = Vector.normalize(Vector.sub(Camera.position, triangleRotatedCenter));
@@ -0,0 +1,241 @@
+package engine;
+
+import java.util.Arrays;
+
+// Finds the screen tiles whose pixels changed since a render target was last drawn, so that a mostly static scene only
+// re-rasterizes those tiles (over the target's persisted colors and depths) and an unchanged frame isn't rasterized at all.
+// The scene is made of plain mutable fields, so changes are found in the geometry stage's output : every projected
+// triangle is hashed (screen vertices and depths, colors or brightnesses, texture coordinates, texture and its version),
+// and the triangles found in only one of two consecutive frames dirty the tiles under their bounds (old and new bounds
+// of whatever moved). Render targets come back out of order from the triple buffer, so every target keeps the number
+// of the frame it shows and gets the tiles dirtied by the frames since then.
+// https://en.wikipedia.org/wiki/Dirty_rectangles
+class DirtyRegionTracker {
+	private static final int HISTORY_SIZE = 8;
+
+	private static final int TILE_SIZE = TileRasterizer.TILE_SIZE;
+
+	private int width, height, tilesX, tilesY;
+
+	// Number of the last frame that changed something (frame 0 : the content of a target is unknown)
+	private long frame = 1;
+	private boolean isInvalid = true; // Everything is dirty next frame
+
+	// Tiles dirtied by a frame, at [frame % HISTORY_SIZE]
+	private final boolean[][] history = new boolean[HISTORY_SIZE][0];
+
+	// Hashes and bounds (minX, minY, maxX, maxY) of the triangles of the current and previous frames, with sets of
+	// their hashes (open addressing, 0 is free)
+	private long[] hashes = new long[0], previousHashes = new long[0];
+	private int[]  bounds = new int[0],  previousBounds = new int[0];
+	private long[] hashSet = new long[0], previousHashSet = new long[0];
+	private int numHashes, numPreviousHashes;
+
+	// Redraw everything next frame (settings that change pixels without changing triangles, like the background color)
+	void invalidate() {
+		this.isInvalid = true;
+	}
+
+	// Compares the frame's triangles to the previous frame's, returns false if nothing changed
+	boolean update(ProjectedTriangle[] _triangles, int _numTriangles, int _width, int _height) {
+		if (_width != this.width || _height != this.height) this.resize(_width, _height);
+
+		this.swap();
+		this.reserve(_numTriangles);
+
+		for (int i = 0; i < _numTriangles; i++) {
+			ProjectedTriangle triangle = _triangles[i];
+
+			this.hashes[i] = hash(triangle);
+
+			this.bounds[4 * i]     = triangle.minX;
+			this.bounds[4 * i + 1] = triangle.minY;
+			this.bounds[4 * i + 2] = triangle.maxX;
+			this.bounds[4 * i + 3] = triangle.maxY;
+
+			add(this.hashSet, this.hashes[i]);
+		}
+
+		this.numHashes = _numTriangles;
+
+		// Written in the next frame's slot, only kept if something changed
+		boolean[] dirtyTiles = this.history[(int) ((this.frame + 1) % HISTORY_SIZE)];
+
+		boolean hasChanged = this.isInvalid;
+
+		if (this.isInvalid) {
+			Arrays.fill(dirtyTiles, true);
+
+			this.isInvalid = false;
+		} else {
+			Arrays.fill(dirtyTiles, false);
+
+			// Triangles that appeared, then triangles that disappeared
+			for (int i = 0; i < this.numHashes; i++) {
+				if (contains(this.previousHashSet, this.hashes[i])) continue;
+
+				this.markTiles(dirtyTiles, this.bounds, i);
+				hasChanged = true;
+			}
+
+			for (int i = 0; i < this.numPreviousHashes; i++) {
+				if (contains(this.hashSet, this.previousHashes[i])) continue;
+
+				this.markTiles(dirtyTiles, this.previousBounds, i);
+				hasChanged = true;
+			}
+		}
+
+		if (hasChanged) this.frame++;
+
+		return hasChanged;
+	}
+
+	// Fills _tiles with the tiles to redraw for _target to show the last frame, returns false if it already does
+	boolean getDirtyTiles(RenderTarget _target, boolean[] _tiles) {
+		long targetFrame = _target.frame;
+
+		if (targetFrame == this.frame) return false;
+
+		if (targetFrame <= 0 || this.frame - targetFrame >= HISTORY_SIZE || _target.width != this.width || _target.height != this.height) {
+			Arrays.fill(_tiles, true);
+			return true;
+		}
+
+		Arrays.fill(_tiles, false);
+
+		for (long frame = targetFrame + 1; frame <= this.frame; frame++) {
+			boolean[] dirtyTiles = this.history[(int) (frame % HISTORY_SIZE)];
+
+			for (int i = 0; i < _tiles.length; i++) _tiles[i] |= dirtyTiles[i];
+		}
+
+		return true;
+	}
+
+	// _target now shows the last frame
+	void setDrawn(RenderTarget _target) {
+		_target.frame = this.frame;
+	}
+
+	int getNumTiles() { return this.tilesX * this.tilesY; }
+
+	private void resize(int _width, int _height) {
+		this.width  = _width;
+		this.height = _height;
+
+		this.tilesX = (_width  + TILE_SIZE - 1) / TILE_SIZE;
+		this.tilesY = (_height + TILE_SIZE - 1) / TILE_SIZE;
+
+		for (int i = 0; i < HISTORY_SIZE; i++) this.history[i] = new boolean[this.tilesX * this.tilesY];
+
+		this.isInvalid = true;
+	}
+
+	// The current frame becomes the previous one, and the current arrays are made large enough for the output
+	private void swap() {
+		long[] hashes = this.previousHashes;
+		this.previousHashes = this.hashes;
+		this.hashes = hashes;
+
+		int[] bounds = this.previousBounds;
+		this.previousBounds = this.bounds;
+		this.bounds = bounds;
+
+		long[] hashSet = this.previousHashSet;
+		this.previousHashSet = this.hashSet;
+		this.hashSet = hashSet;
+
+		this.numPreviousHashes = this.numHashes;
+		this.numHashes = 0;
+	}
+
+	private void reserve(int _numTriangles) {
+		if (this.hashes.length < _numTriangles) {
+			int capacity = Math.max(_numTriangles, 2 * this.hashes.length);
+
+			this.hashes = new long[capacity];
+			this.bounds = new int[4 * capacity];
+		}
+
+		// At most half full
+		int setSize = Integer.highestOneBit(Math.max(2 * _numTriangles, 8) - 1) << 1;
+
+		if (this.hashSet.length < setSize) {
+			this.hashSet = new long[setSize];
+		} else {
+			Arrays.fill(this.hashSet, 0);
+		}
+	}
+
+	private void markTiles(boolean[] _tiles, int[] _bounds, int _triangle) {
+		int minX = _bounds[4 * _triangle],     minY = _bounds[4 * _triangle + 1];
+		int maxX = _bounds[4 * _triangle + 2], maxY = _bounds[4 * _triangle + 3];
+
+		for (int tileY = minY / TILE_SIZE; tileY <= maxY / TILE_SIZE; tileY++) {
+			for (int tileX = minX / TILE_SIZE; tileX <= maxX / TILE_SIZE; tileX++) {
+				_tiles[tileY * this.tilesX + tileX] = true;
+			}
+		}
+	}
+
+	// Everything that decides the triangle's pixels
+	private static long hash(ProjectedTriangle _triangle) {
+		long hash = _triangle.doUseTexture ? 1 : 2;
+
+		for (int i = 0; i < 3; i++) {
+			Vector vertex = _triangle.vertices[i];
+
+			hash = mix(hash, Double.doubleToRawLongBits(vertex.x));
+			hash = mix(hash, Double.doubleToRawLongBits(vertex.y));
+			hash = mix(hash, Double.doubleToRawLongBits(vertex.w));
+
+			if (_triangle.doUseTexture) {
+				hash = mix(hash, Float.floatToRawIntBits(_triangle.brightnesses[i]));
+				hash = mix(hash, ((long) Float.floatToRawIntBits(_triangle.uvs[2 * i]) << 32) | (Float.floatToRawIntBits(_triangle.uvs[2 * i + 1]) & 0xFFFFFFFFL));
+			} else {
+				Vector color = _triangle.colors[i];
+
+				hash = mix(hash, Double.doubleToRawLongBits(color.x));
+				hash = mix(hash, Double.doubleToRawLongBits(color.y));
+				hash = mix(hash, Double.doubleToRawLongBits(color.z));
+			}
+		}
+
+		if (_triangle.doUseTexture) hash = mix(hash, ((long) System.identityHashCode(_triangle.texture) << 32) | (_triangle.texture.version & 0xFFFFFFFFL));
+
+		// 0 marks free entries of the sets
+		return (hash != 0) ? hash : 1;
+	}
+
+	// https://en.wikipedia.org/wiki/Hash_function#Fibonacci_hashing
+	private static long mix(long _hash, long _value) {
+		long hash = (_hash ^ _value) * 0x9E3779B97F4A7C15L;
+
+		return hash ^ (hash >>> 29);
+	}
+
+	private static void add(long[] _set, long _hash) {
+		int mask = _set.length - 1;
+
+		for (int i = (int) _hash & mask; ; i = (i + 1) & mask) {
+			if (_set[i] == _hash) return;
+
+			if (_set[i] == 0) {
+				_set[i] = _hash;
+				return;
+			}
+		}
+	}
+
+	private static boolean contains(long[] _set, long _hash) {
+		if (_set.length == 0) return false;
+
+		int mask = _set.length - 1;
+
+		for (int i = (int) _hash & mask; ; i = (i + 1) & mask) {
+			if (_set[i] == _hash) return true;
+			if (_set[i] == 0) return false;
+		}
+	}
+}
@@ -4,20 +4,18 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Point;
 import java.awt.Graphics;
-import java.awt.image.BufferedImage;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.ConcurrentModificationException;
 
 public abstract class Engine {
 	private int screenWidth, screenHeight;
@@ -28,30 +26,73 @@ public abstract class Engine {
 	private JFrame frame;
 	private Panel  panel;
 
+	// Render thread only (set by the posted input events)
 	private boolean mousePressed = false;
 
 	private Point mousePosition = new Point(0, 0);
 
-	private double[][] perspectiveMatrix;
-	private double[][] depthBuffer;
+	// Changes posted by other threads (input events included), applied by the render thread at the next frame boundary
+	private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
+
+	private Matrix4 perspectiveMatrix;
+	private float zNear = 0.01f, zFar = 1000f;
+
+	// Frames are rendered by the render thread and shown by the EDT
+	private TripleBuffer frameBuffers = new TripleBuffer();
+
+	private GeometryStage  geometryStage  = new GeometryStage();
+	private TileRasterizer tileRasterizer = new TileRasterizer();
+
+	// Only the tiles that changed since a target was drawn are rasterized again into it
+	private DirtyRegionTracker dirtyRegions = new DirtyRegionTracker();
+	private boolean doUseDirtyRegions = true;
+	private boolean[] dirtyTiles = new boolean[0];
+	private long drawnSettings; // Settings that change pixels without changing triangles, when the last frame was drawn
+
+	private RenderTarget lastFrame; // Latest frame drawn by renderFrame()
+
+	// Dynamic resolution : below full scale, frames are rendered into scaledTarget, then upscaled into the presented target
+	private RenderScaleController renderScaleController = new RenderScaleController();
+	private Upscaler upscaler = new Upscaler();
+	private RenderTarget scaledTarget;
 	
-	private ArrayList<Triangle> triangles = new ArrayList<Triangle>();
-	private ArrayList<Light>    lights    = new ArrayList<Light>();
-	private ArrayList<Texture>  textures  = new ArrayList<Texture>();
+	private SlotMap<Triangle>    triangles = new SlotMap<Triangle>();
+	private SlotMap<SceneObject> objects   = new SlotMap<SceneObject>();
+	private SlotMap<Light>       lights    = new SlotMap<Light>();
+	private SlotMap<Texture>     textures  = new SlotMap<Texture>();
+
+	private AssetManager assets = new AssetManager();
+
+	// Handles of the textures added by loadTexture(), by the asset's (absolute) path
+	private HashMap<String, Long> textureHandles = new HashMap<String, Long>();
 
 	private Color backgroundColor = Color.BLACK;
+
+	private RasterizerMode rasterizerMode = RasterizerMode.SCANLINE;
+	private KernelMode kernelMode = KernelMode.VECTOR;
+	private boolean doUseOcclusionCulling = false;
+	private double lodPixelsPerTriangle = 2;
+
+	private FrameProfiler profiler = new FrameProfiler();
+	private boolean doShowProfilerOverlay = false;
 	
-	private BufferedImage pixelBuffer;
-	
-	public Engine(int _screenWidth, int _screenHeight, String _screenTitle, int _fov, int _fps) {
+	// Headless : no window is created, frames are only produced by renderFrame()
+	public Engine(int _screenWidth, int _screenHeight, int _fov) {
 		this.screenWidth  = _screenWidth;
 		this.screenHeight = _screenHeight;
-		this.screenTitle  = _screenTitle;
+		this.screenTitle  = "";
 		this.fov = _fov;
+		this.fps = 0;
+
+		this.perspectiveMatrix = Matrix4.perspective(this.screenWidth, this.screenHeight, this.fov, this.zNear, this.zFar);
+	}
+
+	public Engine(int _screenWidth, int _screenHeight, String _screenTitle, int _fov, int _fps) {
+		this(_screenWidth, _screenHeight, _fov);
+
+		this.screenTitle = _screenTitle;
 		this.fps = _fps;
 
-		this.perspectiveMatrix = MatrixOperations.createPerspectiveMatrix(this.screenWidth, this.screenHeight, this.fov, 0.01f, 1000f);
-		
 		this.panel = new Panel();
 		this.frame = new JFrame(this.screenTitle);
 
@@ -67,16 +108,28 @@ public abstract class Engine {
 		this.panel.setSize(this.screenWidth, this.screenHeight);
 	}
 
+	// The thread calling run() becomes the render thread : it updates the scene and renders every frame,
+	// while the EDT only posts input events (see post()) and blits the latest completed frame
 	protected final void run() {
-		this.frame.setVisible(true);
+		if (this.isHeadless()) {
+			if (this.fps <= 0) this.fps = 30;
+		} else {
+			this.frame.setVisible(true);
+		}
 		
 		long defaultWaitTimeMs = (long) (1 / (double) this.fps * 1000);
 		
 		while (true) {
 			long beforeMs = System.currentTimeMillis();
 			
-			// Render
-			this.frame.repaint();
+			// Render (skipped if nothing changed)
+			boolean hasNewFrame = this.renderNextFrame();
+
+			// Present (asynchronous, the EDT picks up the frame when it gets to it). Skipped frames are still profiled,
+			// so the overlay is repainted (over the same frame) to keep its numbers current.
+			if ((hasNewFrame || this.doShowProfilerOverlay) && !this.isHeadless()) {
+				this.panel.repaint();
+			}
 
 			long waitTimeMs = defaultWaitTimeMs - (System.currentTimeMillis() - beforeMs);
 
@@ -109,25 +162,29 @@ public abstract class Engine {
 	protected final void setScreenWidth(int _screenWidth) {
 		this.screenWidth = _screenWidth;
 
-		this.frame.setSize(this.screenWidth, this.screenHeight);
-		this.panel.setSize(this.screenWidth, this.screenHeight);
+		if (!this.isHeadless()) {
+			this.frame.setSize(this.screenWidth, this.screenHeight);
+			this.panel.setSize(this.screenWidth, this.screenHeight);
+		}
 		
-		this.perspectiveMatrix = MatrixOperations.createPerspectiveMatrix(this.screenWidth, this.screenHeight, this.fov, 0.01f, 1000f);
+		this.perspectiveMatrix = Matrix4.perspective(this.screenWidth, this.screenHeight, this.fov, this.zNear, this.zFar);
 	}
 
 	protected final void setScreenHeight(int _screenHeight) {
 		this.screenHeight = _screenHeight;
 
-		this.frame.setSize(this.screenWidth, this.screenHeight);
-		this.panel.setSize(this.screenWidth, this.screenHeight);
+		if (!this.isHeadless()) {
+			this.frame.setSize(this.screenWidth, this.screenHeight);
+			this.panel.setSize(this.screenWidth, this.screenHeight);
+		}
 		
-		this.perspectiveMatrix = MatrixOperations.createPerspectiveMatrix(this.screenWidth, this.screenHeight, this.fov, 0.01f, 1000f);
+		this.perspectiveMatrix = Matrix4.perspective(this.screenWidth, this.screenHeight, this.fov, this.zNear, this.zFar);
 	}
 
 	protected final void setScreenTitle(String _screenTitle) {
 		this.screenTitle = _screenTitle;
 
-		this.frame.setTitle(this.screenTitle);
+		if (!this.isHeadless()) this.frame.setTitle(this.screenTitle);
 	}
 
 	// Getters
@@ -136,105 +193,176 @@ public abstract class Engine {
 	protected final int getScreenHeight()   { return this.screenHeight; }
 	protected final String getScreenTitle() { return this.screenTitle;  }
 
+	protected final boolean isHeadless() { return this.frame == null; }
+
 	protected final boolean isMousePressed() { return this.mousePressed; }
 
 	protected final Point getMousePosition() { return this.mousePosition; }
+
+	// The scene (triangles, objects, lights, textures and the camera) belongs to the render thread : update(), the input
+	// callbacks and the commands posted here are the only places where it changes. Other threads post their changes,
+	// which are applied in order before the next frame, so a frame never sees half of a change and nothing waits on a lock.
+	// https://gameprogrammingpatterns.com/event-queue.html
+	protected final void post(Runnable _command) {
+		this.commands.add(_command);
+	}
 	
-	protected final int addTriangle(Triangle _triangle) {
-		triangles.add(_triangle);
-		
-		return triangles.size() - 1;
+	// Scene content is kept in slot maps : add() returns a handle, which stays valid until the item is removed
+	// (removing is O(1), handles of removed items are stale : get() returns null and set() / remove() return false).
+	// Until anything is removed, a handle is the item's insertion index. Setting an item to null removes it.
+	// getXAt(i) for i in [0; numX()[ enumerates the live items (in no particular order).
+
+	protected final long addTriangle(Triangle _triangle) {
+		return this.triangles.add(_triangle);
 	}
 	
-	protected final int[] addTriangles(Triangle[] _triangles) {
-		int[] indices = new int[_triangles.length];
+	protected final long[] addTriangles(Triangle[] _triangles) {
+		long[] handles = new long[_triangles.length];
 		
 		for (int i = 0; i < _triangles.length; i++) {			
-			indices[i] = addTriangle(_triangles[i]);
+			handles[i] = addTriangle(_triangles[i]);
 		}
 				
-		return indices;
+		return handles;
 	}
 	
-	protected final void removeTriangle(int _index) {
-		triangles.set(_index, null);
+	protected final boolean removeTriangle(long _handle) {
+		return this.triangles.remove(_handle);
 	}
 	
-	protected final void setTriangle(int _index, Triangle _triangle) {
-		triangles.set(_index, _triangle);
+	protected final boolean setTriangle(long _handle, Triangle _triangle) {
+		return (_triangle != null) ? this.triangles.set(_handle, _triangle) : this.triangles.remove(_handle);
 	}
 	
-	protected final Triangle getTriangle(int _index) {
-		return triangles.get(_index);
+	protected final Triangle getTriangle(long _handle) {
+		return this.triangles.get(_handle);
+	}
+
+	protected final Triangle getTriangleAt(int _index) {
+		return this.triangles.getAt(_index);
 	}
 
 	protected final int numTriangles() { 
 		return this.triangles.size();
 	}
 	
-	protected final int addLight(Light _light) {
-		lights.add(_light);
-		
-		return lights.size() - 1;
+	protected final long addObject(SceneObject _object) {
+		return this.objects.add(_object);
+	}
+	
+	protected final boolean removeObject(long _handle) {
+		this.releaseObject(this.objects.get(_handle));
+
+		return this.objects.remove(_handle);
+	}
+	
+	protected final boolean setObject(long _handle, SceneObject _object) {
+		if (this.objects.get(_handle) != _object) this.releaseObject(this.objects.get(_handle));
+
+		return (_object != null) ? this.objects.set(_handle, _object) : this.objects.remove(_handle);
+	}
+	
+	protected final SceneObject getObject(long _handle) {
+		return this.objects.get(_handle);
+	}
+
+	protected final SceneObject getObjectAt(int _index) {
+		return this.objects.getAt(_index);
+	}
+
+	protected final int numObjects() { 
+		return this.objects.size();
 	}
 	
-	protected final int[] addLights(Light[] _lights) {
-		int[] indices = new int[_lights.length];
+	protected final long addLight(Light _light) {
+		return this.lights.add(_light);
+	}
+	
+	protected final long[] addLights(Light[] _lights) {
+		long[] handles = new long[_lights.length];
 		
 		for (int i = 0; i < _lights.length; i++) {			
-			indices[i] = addLight(_lights[i]);
+			handles[i] = addLight(_lights[i]);
 		}
 				
-		return indices;
+		return handles;
 	}
 	
-	protected final void removeLight(int _index) {
-		lights.set(_index, null);
+	protected final boolean removeLight(long _handle) {
+		return this.lights.remove(_handle);
 	}
 	
-	protected final void setLight(int _index, Light _light) {
-		lights.set(_index, _light);
+	protected final boolean setLight(long _handle, Light _light) {
+		return (_light != null) ? this.lights.set(_handle, _light) : this.lights.remove(_handle);
 	}
 	
-	protected final Light getLight(int _index) {
-		return lights.get(_index);
+	protected final Light getLight(long _handle) {
+		return this.lights.get(_handle);
+	}
+
+	protected final Light getLightAt(int _index) {
+		return this.lights.getAt(_index);
 	}
 	
 	protected final int numLights() { 
-		return this.triangles.size();
+		return this.lights.size();
 	}
 	
-	protected final int addTexture(Texture _texture) {
-		textures.add(_texture);
-		
-		return textures.size() - 1;
+	// Triangles refer to a texture by its handle (Triangle.textureID) : once the texture is removed, they are drawn
+	// with their vertex colors, even if another texture is added in its place
+	protected final long addTexture(Texture _texture) {
+		return this.textures.add(_texture);
 	}
 	
-	protected final int[] addTextures(Texture[] _texture) {
-		int[] indices = new int[_texture.length];
+	protected final long[] addTextures(Texture[] _textures) {
+		long[] handles = new long[_textures.length];
 		
-		for (int i = 0; i < _texture.length; i++) {			
-			indices[i] = addTexture(_texture[i]);
+		for (int i = 0; i < _textures.length; i++) {			
+			handles[i] = addTexture(_textures[i]);
 		}
 				
-		return indices;
+		return handles;
 	}
 	
-	protected final void removeTexture(int _index) {
-		textures.set(_index, null);
+	protected final boolean removeTexture(long _handle) {
+		return this.textures.remove(_handle);
 	}
 	
-	protected final void setTexture(int _index, Texture _texture) {
-		textures.set(_index, _texture);
+	protected final boolean setTexture(long _handle, Texture _texture) {
+		return (_texture != null) ? this.textures.set(_handle, _texture) : this.textures.remove(_handle);
 	}
 	
-	protected final Texture getTexture(int _index) {
-		return textures.get(_index);
+	protected final Texture getTexture(long _handle) {
+		return this.textures.get(_handle);
+	}
+
+	protected final Texture getTextureAt(int _index) {
+		return this.textures.getAt(_index);
 	}
 	
 	protected final int numTextures() { 
 		return this.textures.size();
 	}
+
+	// Loads the image in the background (see getAssets()) and returns its texture handle, a placeholder is drawn until then.
+	// Loading the same file again returns the same handle : release it with getAssets().releaseTexture(_path) as many times.
+	// If the texture was unloaded in the meantime, the reloaded one takes its slot (triangles keep pointing at it).
+	protected final long loadTexture(String _path) {
+		Asset<Texture> asset = this.assets.loadTexture(_path);
+
+		Long handle = this.textureHandles.get(asset.path);
+
+		if (handle != null && this.textures.set(handle, asset.get())) return handle;
+
+		long newHandle = this.addTexture(asset.get());
+
+		this.textureHandles.put(asset.path, newHandle);
+
+		return newHandle;
+	}
+
+	// Textures and meshes loaded from files : shared by path, loaded in the background, unloaded past a memory budget
+	protected final AssetManager getAssets() { return this.assets; }
 	
 	protected final void setBackgroundColor(Color _color) {
 		this.backgroundColor = _color;
@@ -243,54 +371,271 @@ public abstract class Engine {
 	protected final void setBackgroundColor(Vector _color) {
 		this.backgroundColor = Vector.getColor(_color);
 	}
+
+	protected final void setRasterizerMode(RasterizerMode _mode) {
+		this.rasterizerMode = _mode;
+	}
+
+	protected final RasterizerMode getRasterizerMode() { return this.rasterizerMode; }
+
+	// Scanline spans and vertex transforms : SIMD when the Vector API is available (default), scalar, or every pixel on its own
+	protected final void setKernelMode(KernelMode _mode) {
+		this.kernelMode = _mode;
+	}
+
+	protected final KernelMode getKernelMode() { return this.kernelMode; }
+
+	// Draws objects and clusters front to back, and skips triangles hidden behind what was already drawn
+	protected final void setOcclusionCulling(boolean _doUseOcclusionCulling) {
+		this.doUseOcclusionCulling = _doUseOcclusionCulling;
+	}
+
+	protected final boolean getOcclusionCulling() { return this.doUseOcclusionCulling; }
+
+	// Dirty regions : renderFrame() only rasterizes the screen tiles whose triangles changed (moved, appeared, disappeared,
+	// got lit or colored differently), over the previous frame's pixels and depths, and skips unchanged frames entirely
+	protected final void setDirtyRegions(boolean _doUseDirtyRegions) {
+		this.doUseDirtyRegions = _doUseDirtyRegions;
+	}
+
+	protected final boolean getDirtyRegions() { return this.doUseDirtyRegions; }
+
+	// Dynamic resolution : renderFrame() renders at a fraction of the screen size along each axis and upscales the result
+	// bilinearly. The fraction is picked within [_minScale; _maxScale] (0 < min <= max <= 1, (0.5; 1) by default) from the
+	// measured frame times, to hold the fps target (the scale stays put without one).
+	protected final void setRenderScaleBounds(double _minScale, double _maxScale) {
+		this.renderScaleController.setBounds(_minScale, _maxScale);
+	}
+
+	// Pins the render scale (1 : always full resolution)
+	protected final void setRenderScale(double _scale) {
+		this.renderScaleController.setBounds(_scale, _scale);
+	}
+
+	protected final double getRenderScale()    { return this.renderScaleController.getScale();    }
+	protected final double getMinRenderScale() { return this.renderScaleController.getMinScale(); }
+	protected final double getMaxRenderScale() { return this.renderScaleController.getMaxScale(); }
+
+	// Loaded models switch to coarser levels of detail when their triangles get smaller than this on screen (0 : always full detail)
+	protected final void setLodThreshold(double _pixelsPerTriangle) {
+		this.lodPixelsPerTriangle = _pixelsPerTriangle;
+	}
+
+	protected final double getLodThreshold() { return this.lodPixelsPerTriangle; }
+
+	// Draws the frame statistics over the rendered image
+	protected final void setProfilerOverlay(boolean _doShowProfilerOverlay) {
+		this.doShowProfilerOverlay = _doShowProfilerOverlay;
+	}
+
+	// Timings and counts over the last frames, can be called from any thread
+	protected final FrameStats getFrameStats() { return this.profiler.getFrameStats(); }
 	
-	protected final void loadModel(String fileLocation, boolean randomColors) {
-		try (BufferedReader br = new BufferedReader(new FileReader(fileLocation))) {
-			String line;
-			ArrayList<Vector> vertices = new ArrayList<Vector>();
-			
-			while ((line = br.readLine()) != null) {
-				String[] elements = line.split(" ");
-
-				switch (elements[0]) {
-					case "v":						
-						int startIndex = elements.length == 4 ? 1 : 2;
-						
-						Vector vertex = new Vector((double) Double.parseDouble(elements[startIndex]),
-												   (double) Double.parseDouble(elements[startIndex+1]),
-									               (double) Double.parseDouble(elements[startIndex+2]));
-
-						vertices.add(vertex);
-						break;
+	// Loads an OBJ file as an indexed mesh (through the asset manager and the binary mesh cache) and adds it to the scene as an object.
+	// Objects loading the same file share its mesh, each holding a reference to it until it is removed (or replaced) from the scene.
+	// Random colors go into a copy of the colors owned by the object, which counts towards the assets' memory usage.
+	protected final SceneObject loadModel(String fileLocation, boolean randomColors) {
+		return this.loadModel(fileLocation, randomColors, true);
+	}
 
-					case "f":
-						Vector[] colors = new Vector[3];
-						
-						Vector v1 = vertices.get((Integer.parseInt(elements[1].split("/")[0]) - 1));
-						Vector v2 = vertices.get((Integer.parseInt(elements[2].split("/")[0]) - 1));
-						Vector v3 = vertices.get((Integer.parseInt(elements[3].split("/")[0]) - 1));
-
-						Vector[] positions = new Vector[] {v1, v2, v3};
-						
-						for (int i = 0; i < 3; i++) {
-							if (randomColors) {
-								colors[i] = new Vector(ThreadLocalRandom.current().nextInt(0, 256), ThreadLocalRandom.current().nextInt(0, 256), ThreadLocalRandom.current().nextInt(0, 256));
-							} else {
-								colors[i] = new Vector(255, 255, 255);
-							}
-						}
-
-						triangles.add(new Triangle(positions, colors, -1, false));
-						break;
+	// Same as loadModel(), without waiting : the object stays empty until the mesh is loaded (published before a frame)
+	protected final SceneObject loadModelAsync(String fileLocation, boolean randomColors) {
+		return this.loadModel(fileLocation, randomColors, false);
+	}
+
+	private SceneObject loadModel(String _fileLocation, boolean _randomColors, boolean _doWait) {
+		Asset<Mesh> asset = this.assets.loadMesh(_fileLocation);
+
+		SceneObject object = new SceneObject(asset.get());
+
+		object.asset = asset;
+
+		asset.onLoad(loaded -> {
+			if (object.asset != asset) return; // Removed before its mesh was loaded
+
+			// The loaded mesh is shared by every object of that file : random colors go into a copy of the object's own
+			Mesh mesh = _randomColors ? loaded.copyWithOwnColors() : loaded;
+
+			if (_randomColors) {
+				for (int level = 0; level <= mesh.lods.length; level++) {
+					float[] colors = mesh.getLod(level).colors;
+
+					for (int i = 0; i < colors.length; i++) {
+						colors[i] = ThreadLocalRandom.current().nextInt(0, 256);
+					}
+
+					object.copyMemorySize += 4L * colors.length;
 				}
+
+				this.assets.allocate(object.copyMemorySize);
+			}
+
+			object.setMesh(mesh);
+
+			System.out.println("Loaded " + mesh.numTriangles() + " triangles (" + mesh.numVertices() + " vertices, " + mesh.lods.length + " levels of detail)");
+		});
+
+		if (_doWait) asset.await();
+
+		this.addObject(object);
+
+		return object;
+	}
+
+	// Gives back the mesh reference and the memory that loadModel() took for the object
+	private void releaseObject(SceneObject _object) {
+		if (_object == null || _object.asset == null) return;
+
+		this.assets.release(_object.asset);
+		this.assets.free(_object.copyMemorySize);
+
+		_object.asset = null;
+		_object.copyMemorySize = 0;
+	}
+
+	// Rendering
+
+	// Renders the scene into the engine's own offscreen targets (does not need a window) and hands it over for presentation.
+	// With dirty regions, an unchanged frame isn't rendered nor presented again : the previous one is returned.
+	// The returned target is only valid until the next call.
+	protected final RenderTarget renderFrame() {
+		this.renderNextFrame();
+
+		return this.lastFrame;
+	}
+
+	// Always renders the whole frame at the target's resolution (the target's previous content is unknown)
+	protected final void renderFrame(RenderTarget _target) {
+		this.renderFrame(_target, false, null);
+	}
+
+	// Returns false if the frame was skipped (nothing new to present)
+	private boolean renderNextFrame() {
+		long startTime = System.nanoTime();
+
+		double scale = this.renderScaleController.getScale();
+
+		int width  = Math.max(1, (int) Math.round(this.screenWidth  * scale));
+		int height = Math.max(1, (int) Math.round(this.screenHeight * scale));
+
+		RenderTarget target = this.frameBuffers.getBackTarget(this.screenWidth, this.screenHeight);
+
+		boolean hasRendered;
+
+		if (width == this.screenWidth && height == this.screenHeight) {
+			hasRendered = this.renderFrame(target, this.doUseDirtyRegions, null);
+		} else {
+			if (this.scaledTarget == null || this.scaledTarget.width != width || this.scaledTarget.height != height) {
+				this.scaledTarget = new RenderTarget(width, height);
 			}
-		} catch (java.io.FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (java.io.IOException e) {
-			e.printStackTrace();
+
+			hasRendered = this.renderFrame(this.scaledTarget, this.doUseDirtyRegions, target);
 		}
 
-		System.out.println("Loaded " + triangles.size() + " triangles (" + triangles.size() * 3 + " vertices)");
+		if (!hasRendered) return false;
+
+		this.frameBuffers.publish();
+		this.lastFrame = target;
+
+		// Skipped frames say nothing about what rendering costs
+		if (this.fps > 0) this.renderScaleController.update(System.nanoTime() - startTime, 1_000_000_000L / this.fps);
+
+		return true;
+	}
+
+	// _isIncremental : only redraws the dirty tiles of _target (one of the engine's targets), returns false if nothing changed
+	// _presentedTarget : where _target is upscaled to (null if _target is presented itself)
+	private boolean renderFrame(RenderTarget _target, boolean _isIncremental, RenderTarget _presentedTarget) {
+		// Frame boundary : apply the posted changes, then swap in the assets loaded since the last frame
+		this.runCommands();
+
+		this.assets.update();
+
+		this.profiler.beginFrame();
+
+		// Transform, cull and light every triangle in parallel
+		this.geometryStage.process(this.triangles, this.objects, this.lights, this.textures, this.perspectiveMatrix, this.zNear, this.zFar, _target.width, _target.height, this.doUseOcclusionCulling, this.lodPixelsPerTriangle, this.kernelMode);
+
+		boolean doRender = !_isIncremental || this.findDirtyTiles(_target);
+
+		if (doRender) {
+			if (_isIncremental) {
+				this.clearTiles(_target, this.dirtyTiles);
+			} else {
+				_target.clear(this.backgroundColor.getRGB());
+			}
+		}
+
+		// Rasterize every (dirty) tile in parallel
+		long rasterizationStartTime = System.nanoTime();
+
+		if (doRender) {
+			this.tileRasterizer.render(this.geometryStage.getOutput(), this.geometryStage.getOutputSize(), _target, this.rasterizerMode, this.kernelMode, this.doUseOcclusionCulling, _isIncremental ? this.dirtyTiles : null);
+
+			if (_isIncremental) {
+				this.dirtyRegions.setDrawn(_target);
+			} else {
+				_target.frame = 0;
+			}
+		}
+
+		this.profiler.set(FrameProfiler.RASTERIZATION_TIME, System.nanoTime() - rasterizationStartTime);
+
+		if (doRender && _presentedTarget != null) {
+			this.upscaler.upscale(_target, _presentedTarget);
+
+			_presentedTarget.frame = 0; // Not drawn by the rasterizer
+		}
+
+		this.profiler.set(FrameProfiler.RENDER_SCALE, (_presentedTarget != null) ? Math.round(100.0 * _target.width / _presentedTarget.width) : 100);
+
+		this.profiler.set(FrameProfiler.TRANSFORM_TIME,       this.geometryStage.transformTime);
+		this.profiler.set(FrameProfiler.CULLING_TIME,         this.geometryStage.cullingTime);
+		this.profiler.set(FrameProfiler.LIGHTING_TIME,        this.geometryStage.lightingTime);
+		this.profiler.set(FrameProfiler.TRIANGLES_SUBMITTED,  this.geometryStage.numSubmittedTriangles);
+		this.profiler.set(FrameProfiler.TRIANGLES_CULLED,     this.geometryStage.numCulledTriangles);
+		this.profiler.set(FrameProfiler.TRIANGLES_RASTERIZED, this.geometryStage.getOutputSize());
+		this.profiler.set(FrameProfiler.TRIANGLES_OCCLUDED,   doRender ? this.tileRasterizer.getNumOccludedTriangles() : 0);
+		this.profiler.set(FrameProfiler.PIXELS_SHADED,        doRender ? this.tileRasterizer.getNumPixelsShaded() : 0);
+
+		this.profiler.endFrame();
+
+		return doRender;
+	}
+
+	// Compares the geometry stage's output to the last frame's and fills dirtyTiles for _target, returns false if nothing changed
+	private boolean findDirtyTiles(RenderTarget _target) {
+		long settings = ((long) this.backgroundColor.getRGB() << 32) | (this.rasterizerMode.ordinal() << 2) | this.kernelMode.ordinal();
+
+		if (settings != this.drawnSettings) {
+			this.dirtyRegions.invalidate();
+			this.drawnSettings = settings;
+		}
+
+		if (!this.dirtyRegions.update(this.geometryStage.getOutput(), this.geometryStage.getOutputSize(), _target.width, _target.height)) return false;
+
+		if (this.dirtyTiles.length != this.dirtyRegions.getNumTiles()) this.dirtyTiles = new boolean[this.dirtyRegions.getNumTiles()];
+
+		return this.dirtyRegions.getDirtyTiles(_target, this.dirtyTiles);
+	}
+
+	private void clearTiles(RenderTarget _target, boolean[] _tiles) {
+		int tilesX = (_target.width + TileRasterizer.TILE_SIZE - 1) / TileRasterizer.TILE_SIZE;
+
+		for (int tile = 0; tile < _tiles.length; tile++) {
+			if (!_tiles[tile]) continue;
+
+			int minX = (tile % tilesX) * TileRasterizer.TILE_SIZE;
+			int minY = (tile / tilesX) * TileRasterizer.TILE_SIZE;
+
+			_target.clear(this.backgroundColor.getRGB(), minX, minY, Math.min(minX + TileRasterizer.TILE_SIZE, _target.width), Math.min(minY + TileRasterizer.TILE_SIZE, _target.height));
+		}
+	}
+
+	private void runCommands() {
+		Runnable command;
+
+		while ((command = this.commands.poll()) != null) command.run();
 	}
 
 	// To Be Overridden
@@ -307,10 +652,13 @@ public abstract class Engine {
 
 	// Classes
 
+	// Input events are handled on the render thread (the EDT only posts them)
 	private class KeyBoardListener implements KeyListener {
 		public void keyTyped(KeyEvent e) {}
 
-		public void keyPressed(KeyEvent e) {
+		public void keyPressed(KeyEvent e) { post(() -> this.handleKeyPressed(e)); }
+
+		private void handleKeyPressed(KeyEvent e) {
 			// Give the input to the user
 
 			// If the user did not use the input, then perform the default operation for that key
@@ -360,115 +708,69 @@ public abstract class Engine {
 		public void mouseDragged(MouseEvent me) {}
 
 		public void mouseMoved(MouseEvent me) {			
-			mousePosition.x = me.getLocationOnScreen().x - frame.getX();
-			mousePosition.y = me.getLocationOnScreen().y - frame.getY();		
+			int x = me.getLocationOnScreen().x - frame.getX();
+			int y = me.getLocationOnScreen().y - frame.getY();
+
+			post(() -> mousePosition.setLocation(x, y));
 		}
 	}
 
 	private class MouseListenerHandler implements MouseListener {
-		public void mouseClicked(MouseEvent e)  { onMouseClick(); }
-		public void mousePressed(MouseEvent e)  { onMousePress(); mousePressed = true; }
+		public void mouseClicked(MouseEvent e)  { post(() -> onMouseClick()); }
+		public void mousePressed(MouseEvent e)  { post(() -> { onMousePress(); mousePressed = true; }); }
 		public void mouseEntered(MouseEvent e)  {}
 		public void mouseExited(MouseEvent e)   {}
-		public void mouseReleased(MouseEvent e) { onMouseRelease(); mousePressed = false; }
+		public void mouseReleased(MouseEvent e) { post(() -> { onMouseRelease(); mousePressed = false; }); }
 	}
 	
 	private class Panel extends JPanel {
 		private static final long serialVersionUID = 1L;
 		
 		public void paintComponent(Graphics g) {
-			pixelBuffer = new BufferedImage(screenWidth, screenHeight, BufferedImage.TYPE_INT_RGB);
-			
-			Graphics gc = pixelBuffer.getGraphics(); 
-			
-			gc.setColor(backgroundColor);
-			gc.fillRect(0, 0, screenWidth, screenHeight);
-			
-			depthBuffer = new double[screenWidth][screenHeight];
-			
-			try {
-				double[][] cameraRotationXMatrix = MatrixOperations.getRotationXMatrix((double) Math.cos(-Camera.rotation.x), (double) Math.sin(-Camera.rotation.x));
-				double[][] cameraRotationYMatrix = MatrixOperations.getRotationYMatrix((double) Math.cos(-Camera.rotation.y), (double) Math.sin(-Camera.rotation.y));
-				double[][] cameraRotationZMatrix = MatrixOperations.getRotationZMatrix((double) Math.cos(-Camera.rotation.z), (double) Math.sin(-Camera.rotation.z));
-
-				for (Triangle triangle : triangles) {
-					// If the triangle doesn't exist anymore, render the next one
-					if (triangle == null) continue;
-
-					Vector[] rotatedVertices = new Vector[3];
-
-					// Rotation Matrices : https://www.siggraph.org/education/materials/HyperGraph/modeling/mod_tran/3drota.htm#Z
-
-					double[][] triangleRotationXMatrix = MatrixOperations.getRotationXMatrix((double) Math.cos(triangle.rotation.x), (double) Math.sin(triangle.rotation.x));
-					double[][] triangleRotationYMatrix = MatrixOperations.getRotationYMatrix((double) Math.cos(triangle.rotation.y), (double) Math.sin(triangle.rotation.y));
-					double[][] triangleRotationZMatrix = MatrixOperations.getRotationZMatrix((double) Math.cos(triangle.rotation.z), (double) Math.sin(triangle.rotation.z));
-
-					// Rotate each Vertex
-					for (int i = 0; i < 3; i++) {
-						rotatedVertices[i] = triangle.vertices[i].copy();
-
-						// Object Rotation
-						rotatedVertices[i].sub(triangle.rotationMidPoint);
-						rotatedVertices[i] = MatrixOperations.multiplyMatrixByVector(triangleRotationXMatrix, rotatedVertices[i]);
-						rotatedVertices[i] = MatrixOperations.multiplyMatrixByVector(triangleRotationYMatrix, rotatedVertices[i]);
-						rotatedVertices[i] = MatrixOperations.multiplyMatrixByVector(triangleRotationZMatrix, rotatedVertices[i]);
-						rotatedVertices[i].add(triangle.rotationMidPoint);
-
-						// Camera Rotation
-						rotatedVertices[i].sub(Camera.position);
-						rotatedVertices[i] = MatrixOperations.multiplyMatrixByVector(cameraRotationXMatrix, rotatedVertices[i]);
-						rotatedVertices[i] = MatrixOperations.multiplyMatrixByVector(cameraRotationYMatrix, rotatedVertices[i]);
-						rotatedVertices[i] = MatrixOperations.multiplyMatrixByVector(cameraRotationZMatrix, rotatedVertices[i]);
-						rotatedVertices[i].add(Camera.position);
-					}
+			// Only a blit : the frame was rendered by the render thread
+			RenderTarget target = frameBuffers.acquireFrontTarget();
 
-					Vector surfaceNormal = Triangle.getSurfaceNormal(rotatedVertices);
-
-					// Attempt to render it if it is facing the camera
-					if (Camera.isRotatedTriangleFacingCamera(rotatedVertices, surfaceNormal)) {
-						Vector[] manipulatedVertices = new Vector[3];
-						boolean triangleBehindCamera = false;
-
-						// For Every Vertex
-						for (int i = 0; i < 3; i++) {
-							// Translate by the camera's position
-							manipulatedVertices[i] = Vector.sub(rotatedVertices[i].copy(), Camera.position);
-
-							// Apply Perspective part 1
-							manipulatedVertices[i] = MatrixOperations.multiplyMatrixByVector(perspectiveMatrix, manipulatedVertices[i]);
-
-							// Apply Perspective part 2 : divide (x, y, z) components by w
-							if (manipulatedVertices[i].w > 0) {
-								manipulatedVertices[i].div(manipulatedVertices[i].w);
-							} else {
-								// Don't bother to render the triangle if it is behind the camera
-								triangleBehindCamera = true;
-								break;
-							}
-
-							// World To Screen (between -1 and 1 to between 0 and 255)
-							manipulatedVertices[i].x = ((manipulatedVertices[i].x - 1f) / -2f) * screenWidth;
-							manipulatedVertices[i].y = ((manipulatedVertices[i].y + 1f) /  2f) * screenHeight;
-						}
-
-						// If The Triangle Is In Front Of The Camera
-						if (!triangleBehindCamera) {
-							// If the triangle should be rendered with a texture and that texture exists
-							if (triangle.doUseTexture && triangle.textureID < textures.size()) {
-								float[] brightnesses = Light.getIllimunation(rotatedVertices, surfaceNormal, lights);
-								Triangle.renderTexturedTriangle(manipulatedVertices, triangle.textureID, pixelBuffer, screenWidth, screenHeight, brightnesses, depthBuffer, textures);
-							} else { // Render the triangle with the vertices' color
-								Vector[] brightenedColors = Light.getColorsWIllumination(rotatedVertices, surfaceNormal, triangle.colors, lights);
-								Triangle.renderColoredTriangle(manipulatedVertices, pixelBuffer, screenWidth, screenHeight, brightenedColors, depthBuffer);
-							}
-						}
-					}
-				}
-			} catch (ConcurrentModificationException e) {
-				e.printStackTrace();
+			if (target != null) {
+				long startTime = System.nanoTime();
+
+				g.drawImage(target.getImage(), 0, 0, screenWidth, screenHeight, null);
+
+				profiler.setPresentationTime(System.nanoTime() - startTime);
+			}
+
+			if (doShowProfilerOverlay) {
+				drawProfilerOverlay(g);
+			}
+		}
+
+		private void drawProfilerOverlay(Graphics g) {
+			FrameStats stats = profiler.getFrameStats();
+
+			String[] lines = new String[] {
+				String.format("Frame         %6.2f ms  (p90 %6.2f, p99 %6.2f)", stats.frameTime.p50 / 1e6, stats.frameTime.p90 / 1e6, stats.frameTime.p99 / 1e6),
+				String.format("Transform     %6.2f ms  (p99 %6.2f)", stats.transformTime.p50 / 1e6, stats.transformTime.p99 / 1e6),
+				String.format("Culling       %6.2f ms  (p99 %6.2f)", stats.cullingTime.p50 / 1e6, stats.cullingTime.p99 / 1e6),
+				String.format("Lighting      %6.2f ms  (p99 %6.2f)", stats.lightingTime.p50 / 1e6, stats.lightingTime.p99 / 1e6),
+				String.format("Rasterization %6.2f ms  (p99 %6.2f)", stats.rasterizationTime.p50 / 1e6, stats.rasterizationTime.p99 / 1e6),
+				String.format("Presentation  %6.2f ms  (p99 %6.2f)", stats.presentationTime.p50 / 1e6, stats.presentationTime.p99 / 1e6),
+				String.format("Triangles     %d submitted, %d culled, %d rasterized, %d occluded", stats.trianglesSubmitted.last, stats.trianglesCulled.last, stats.trianglesRasterized.last, stats.trianglesOccluded.last),
+				String.format("Pixels        %d shaded", stats.pixelsShaded.last),
+				String.format("Allocated     %d KB", stats.bytesAllocated.last / 1024),
+				String.format("Render scale  %d %%", stats.renderScale.last),
+			};
+
+			g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+			int lineHeight = g.getFontMetrics().getHeight();
+
+			g.setColor(new Color(0, 0, 0, 160));
+			g.fillRect(5, 5, 420, lines.length * lineHeight + 10);
+
+			g.setColor(Color.WHITE);
+
+			for (int i = 0; i < lines.length; i++) {
+				g.drawString(lines[i], 10, 10 + (i + 1) * lineHeight - g.getFontMetrics().getDescent());
 			}
-			
-			g.drawImage(pixelBuffer, 0, 0, screenWidth, screenHeight, null);
 		}
 	}
 }
\ No newline at end of file
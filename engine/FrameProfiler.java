@@ -0,0 +1,115 @@
+package engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Records the statistics of every frame into a ring of the last CAPACITY frames.
+// The render thread is the only writer : it fills a frame's slot, then publishes it by bumping the frame count.
+// Readers copy the ring without locking and drop the frames that were overwritten while they were copying.
+class FrameProfiler {
+	static final int CAPACITY = 256;
+
+	// Per frame values (times in nanoseconds)
+	static final int FRAME_TIME           = 0;
+	static final int TRANSFORM_TIME       = 1;
+	static final int CULLING_TIME         = 2;
+	static final int LIGHTING_TIME        = 3;
+	static final int RASTERIZATION_TIME   = 4;
+	static final int PRESENTATION_TIME    = 5;
+	static final int TRIANGLES_SUBMITTED  = 6;
+	static final int TRIANGLES_CULLED     = 7;
+	static final int TRIANGLES_RASTERIZED = 8;
+	static final int TRIANGLES_OCCLUDED   = 9;
+	static final int PIXELS_SHADED        = 10;
+	static final int BYTES_ALLOCATED      = 11;
+	static final int RENDER_SCALE         = 12; // Percent of the screen size
+	static final int NUM_VALUES           = 13;
+
+	private final long[] ring = new long[CAPACITY * NUM_VALUES];
+
+	private final AtomicLong numFrames = new AtomicLong();
+
+	// Render thread only
+	private final long[] frame = new long[NUM_VALUES];
+	private long frameStartTime, frameStartAllocatedBytes;
+
+	// Written by the EDT : how long the last blit took
+	private volatile long presentationTime;
+
+	private static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+	void beginFrame() {
+		this.frameStartAllocatedBytes = getAllocatedBytes();
+		this.frameStartTime = System.nanoTime();
+	}
+
+	void set(int _value, long _amount) {
+		this.frame[_value] = _amount;
+	}
+
+	void endFrame() {
+		this.frame[FRAME_TIME] = System.nanoTime() - this.frameStartTime;
+		this.frame[PRESENTATION_TIME] = this.presentationTime;
+
+		long allocatedBytes = getAllocatedBytes();
+
+		this.frame[BYTES_ALLOCATED] = (allocatedBytes < 0) ? -1 : allocatedBytes - this.frameStartAllocatedBytes;
+
+		long index = this.numFrames.get();
+
+		System.arraycopy(this.frame, 0, this.ring, (int) (index % CAPACITY) * NUM_VALUES, NUM_VALUES);
+
+		this.numFrames.set(index + 1);
+	}
+
+	void setPresentationTime(long _presentationTime) {
+		this.presentationTime = _presentationTime;
+	}
+
+	// Any thread
+	FrameStats getFrameStats() {
+		long lastFrame = this.numFrames.get();
+
+		long[] copy = this.ring.clone();
+
+		// Frames the writer may have overwritten (or be writing) during the copy are not reliable
+		long firstFrame = Math.max(0, this.numFrames.get() + 1 - CAPACITY);
+
+		int numFrames = (int) Math.max(0, lastFrame - firstFrame);
+
+		long[][] values = new long[NUM_VALUES][numFrames];
+
+		for (int i = 0; i < numFrames; i++) {
+			int offset = (int) ((firstFrame + i) % CAPACITY) * NUM_VALUES;
+
+			for (int v = 0; v < NUM_VALUES; v++) {
+				values[v][i] = copy[offset + v];
+			}
+		}
+
+		return new FrameStats(lastFrame, values);
+	}
+
+	// Bytes allocated so far by every live thread (the worker pool included), -1 if the JVM can't tell
+	private static long getAllocatedBytes() {
+		if (threadBean == null) return -1;
+
+		long allocatedBytes = 0;
+
+		for (long threadBytes : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+			if (threadBytes > 0) allocatedBytes += threadBytes;
+		}
+
+		return allocatedBytes;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) return bean;
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,88 @@
+package engine;
+
+import java.util.Arrays;
+
+// Statistics over the last frames (at most FrameProfiler.CAPACITY), returned by Engine.getFrameStats().
+// Times are in nanoseconds. Transform, culling and lighting times are summed over the worker threads,
+// so they can add up to more than the frame time.
+public class FrameStats {
+	public final long totalFrames; // Frames rendered since the engine started
+	public final int  numFrames;   // Frames these statistics are computed over
+
+	public final Metric frameTime;
+	public final Metric transformTime;
+	public final Metric cullingTime;
+	public final Metric lightingTime;
+	public final Metric rasterizationTime;
+	public final Metric presentationTime;
+
+	public final Metric trianglesSubmitted;
+	public final Metric trianglesCulled;
+	public final Metric trianglesRasterized;
+	public final Metric trianglesOccluded; // Per tile : a triangle rejected in several tiles counts several times
+	public final Metric pixelsShaded;
+	public final Metric bytesAllocated; // -1 if the JVM doesn't report allocations
+	public final Metric renderScale;    // Percent of the screen size along each axis (dynamic resolution)
+
+	FrameStats(long _totalFrames, long[][] _values) {
+		this.totalFrames = _totalFrames;
+		this.numFrames = _values[0].length;
+
+		this.frameTime         = new Metric(_values[FrameProfiler.FRAME_TIME]);
+		this.transformTime     = new Metric(_values[FrameProfiler.TRANSFORM_TIME]);
+		this.cullingTime       = new Metric(_values[FrameProfiler.CULLING_TIME]);
+		this.lightingTime      = new Metric(_values[FrameProfiler.LIGHTING_TIME]);
+		this.rasterizationTime = new Metric(_values[FrameProfiler.RASTERIZATION_TIME]);
+		this.presentationTime  = new Metric(_values[FrameProfiler.PRESENTATION_TIME]);
+
+		this.trianglesSubmitted  = new Metric(_values[FrameProfiler.TRIANGLES_SUBMITTED]);
+		this.trianglesCulled     = new Metric(_values[FrameProfiler.TRIANGLES_CULLED]);
+		this.trianglesRasterized = new Metric(_values[FrameProfiler.TRIANGLES_RASTERIZED]);
+		this.trianglesOccluded   = new Metric(_values[FrameProfiler.TRIANGLES_OCCLUDED]);
+		this.pixelsShaded        = new Metric(_values[FrameProfiler.PIXELS_SHADED]);
+		this.bytesAllocated      = new Metric(_values[FrameProfiler.BYTES_ALLOCATED]);
+		this.renderScale         = new Metric(_values[FrameProfiler.RENDER_SCALE]);
+	}
+
+	// Distribution of one value over the frames (all 0 when there are no frames yet)
+	public static class Metric {
+		public final long   last; // Most recent frame
+		public final double mean;
+		public final long   min, p50, p90, p99, max;
+
+		Metric(long[] _values) {
+			this.last = (_values.length > 0) ? _values[_values.length - 1] : 0;
+
+			long[] sorted = _values.clone();
+
+			Arrays.sort(sorted);
+
+			double sum = 0;
+
+			for (long value : sorted) sum += value;
+
+			this.mean = (sorted.length > 0) ? sum / sorted.length : 0;
+
+			this.min = percentile(sorted, 0);
+			this.p50 = percentile(sorted, 0.50);
+			this.p90 = percentile(sorted, 0.90);
+			this.p99 = percentile(sorted, 0.99);
+			this.max = percentile(sorted, 1);
+		}
+
+		// Nearest rank
+		private static long percentile(long[] _sorted, double _fraction) {
+			if (_sorted.length == 0) return 0;
+
+			return _sorted[(int) Math.min(_sorted.length - 1, Math.max(0, Math.ceil(_fraction * _sorted.length) - 1))];
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%.1f ms/frame (p99 %.1f) | transform %.2f ms, culling %.2f ms, lighting %.2f ms, raster %.2f ms, present %.2f ms | %d tris, %d culled, %d rasterized, %d occluded, %d pixels, %d KB allocated",
+				this.frameTime.p50 / 1e6, this.frameTime.p99 / 1e6,
+				this.transformTime.p50 / 1e6, this.cullingTime.p50 / 1e6, this.lightingTime.p50 / 1e6, this.rasterizationTime.p50 / 1e6, this.presentationTime.p50 / 1e6,
+				this.trianglesSubmitted.last, this.trianglesCulled.last, this.trianglesRasterized.last, this.trianglesOccluded.last, this.pixelsShaded.last, this.bytesAllocated.last / 1024);
+	}
+}
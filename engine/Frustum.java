@@ -0,0 +1,57 @@
+package engine;
+
+// The six planes of the view frustum, extracted from a matrix taking points to clip space
+// (so with a model view projection matrix, the planes are in the model's space).
+// A point is inside a plane (a, b, c, d) when a * x + b * y + c * z + d >= 0.
+// https://www.gamedevs.org/uploads/fast-extraction-viewing-frustum-planes-from-world-view-projection-matrix.pdf
+class Frustum {
+	static final int ALL_PLANES = (1 << 6) - 1;
+
+	final double[] planes = new double[4 * 6];
+
+	void set(Matrix4 _clipMatrix, double _zNear, double _zFar) {
+		double[] m = _clipMatrix.m;
+
+		// Points are row vectors : clip component j is the dot product with column j
+		for (int i = 0; i < 4; i++) {
+			double x = m[4 * i], y = m[4 * i + 1], w = m[4 * i + 3];
+
+			this.planes[i]      = w + x; // Left   (x >= -w)
+			this.planes[4 + i]  = w - x; // Right  (x <= w)
+			this.planes[8 + i]  = w + y; // Bottom (y >= -w)
+			this.planes[12 + i] = w - y; // Top    (y <= w)
+			this.planes[16 + i] = w;     // Near   (w >= zNear)
+			this.planes[20 + i] = -w;    // Far    (w <= zFar)
+		}
+
+		this.planes[16 + 3] -= _zNear;
+		this.planes[20 + 3] += _zFar;
+	}
+
+	// Tests the box (min x, y, z, max x, y, z) at _bounds[_offset] against the planes in _planeMask.
+	// Returns -1 if the box is entirely outside, otherwise the planes that still cut through it (0 : entirely inside).
+	int test(float[] _bounds, int _offset, int _planeMask) {
+		float minX = _bounds[_offset],     minY = _bounds[_offset + 1], minZ = _bounds[_offset + 2];
+		float maxX = _bounds[_offset + 3], maxY = _bounds[_offset + 4], maxZ = _bounds[_offset + 5];
+
+		int planesCutting = 0;
+
+		for (int p = 0; p < 6; p++) {
+			if ((_planeMask & (1 << p)) == 0) continue;
+
+			double a = this.planes[4 * p], b = this.planes[4 * p + 1], c = this.planes[4 * p + 2], d = this.planes[4 * p + 3];
+
+			// The corner furthest along the plane's normal : if it is outside, the whole box is
+			double farthest = a * ((a >= 0) ? maxX : minX) + b * ((b >= 0) ? maxY : minY) + c * ((c >= 0) ? maxZ : minZ) + d;
+
+			if (farthest < 0) return -1;
+
+			// The opposite corner : if it is inside, the whole box is
+			double nearest = a * ((a >= 0) ? minX : maxX) + b * ((b >= 0) ? minY : maxY) + c * ((c >= 0) ? minZ : maxZ) + d;
+
+			if (nearest < 0) planesCutting |= 1 << p;
+		}
+
+		return planesCutting;
+	}
+}
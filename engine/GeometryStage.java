@@ -0,0 +1,841 @@
+package engine;
+
+import java.util.Arrays;
+
+// Transforms, culls and lights the scene in parallel. The work is split into fixed size batches
+// that a fork-join pool processes : first the vertices of every object (into their vertex caches),
+// then the triangles. Every triangle batch writes into its own preallocated pool of
+// ProjectedTriangles, which are then gathered (in submission order) for the rasterizer.
+//
+// Triangles entirely outside of the view frustum are rejected with outcodes. Triangles crossing the near plane
+// or the guard band are clipped in homogeneous clip space, so the rasterizer only ever gets vertices in front of
+// the camera and within GUARD_BAND times the viewport.
+// https://fabiensanglard.net/polygon_codec/
+//
+// Before that, the scene's BVH is tested against the view frustum : objects and clusters of loose triangles
+// outside of it are skipped, and so are the parts of each object's mesh (its own BVH) outside of it,
+// before any of their vertices is transformed.
+//
+// Lights are sorted into clusters of the view frustum once per frame (LightClusters), so each vertex only
+// evaluates the lights that can reach it.
+//
+// Objects made of a whole mesh with levels of detail are drawn with the coarsest level whose triangles still cover
+// about lodPixelsPerTriangle pixels each on screen. Moving to another level needs a margin (LOD_HYSTERESIS) past
+// the threshold, so an object around it doesn't keep popping between two levels.
+class GeometryStage {
+	static final int BATCH_SIZE = 1024;
+
+	static final double LOD_HYSTERESIS = 1.5;
+
+	// Outcodes : the clip planes a vertex is outside of
+	static final int OUTSIDE_LEFT   = 1;
+	static final int OUTSIDE_RIGHT  = 2;
+	static final int OUTSIDE_BOTTOM = 4;
+	static final int OUTSIDE_TOP    = 8;
+	static final int OUTSIDE_NEAR   = 16;
+	static final int OUTSIDE_FAR    = 32;
+	static final int OUTSIDE_GUARD_BAND = 64; // Too far on the side for the rasterizer : the triangle has to be clipped
+
+	static final int OUTSIDE_FRUSTUM = OUTSIDE_LEFT | OUTSIDE_RIGHT | OUTSIDE_BOTTOM | OUTSIDE_TOP | OUTSIDE_NEAR | OUTSIDE_FAR;
+	static final int NEEDS_CLIPPING  = OUTSIDE_NEAR | OUTSIDE_GUARD_BAND;
+
+	// Half size of the guard band, in viewports (x and y between -GUARD_BAND * w and GUARD_BAND * w)
+	static final double GUARD_BAND = 4;
+
+	// Clipped polygons : (x, y, z, w) and 3 attributes (lit color, or brightness) per vertex,
+	// at most one vertex more per clip plane (near + 4 guard band planes)
+	static final int CLIP_STRIDE = 7;
+	static final int MAX_POLYGON_SIZE = 3 + 5;
+
+	private Triangle[] triangles = new Triangle[0];
+	private int numTriangles;
+
+	private SceneObject[] objects = new SceneObject[0];
+	private int numObjects;
+
+	private Batch[] vertexBatches   = new Batch[0];
+	private Batch[] triangleBatches = new Batch[0];
+	private int numVertexBatches, numTriangleBatches;
+
+	private final SceneBVH sceneBVH = new SceneBVH();
+	private final Frustum frustum       = new Frustum(); // World space
+	private final Frustum objectFrustum = new Frustum(); // Object space, of the object being set up
+	private long[] vertexRanges = new long[16];
+	private long[] batchOrder   = new long[16];
+	private int frame;
+
+	private ProjectedTriangle[] output = new ProjectedTriangle[0];
+	private int outputSize;
+
+	// Statistics of the last frame. Times are in nanoseconds, summed over the worker threads.
+	// Loose triangles are transformed, culled and lit in one go, so all of their time counts as culling.
+	long transformTime, cullingTime, lightingTime;
+	int numSubmittedTriangles, numCulledTriangles;
+
+	// Frame state, shared (read only) by every batch
+	private final LightClusters lightClusters = new LightClusters();
+	private SlotMap<Texture> textures;
+	private Matrix4 viewProjectionMatrix = new Matrix4(); // World to clip space, composed once per frame
+	private double cameraX, cameraY, cameraZ;
+	private double zNear, zFar;
+	private int targetWidth, targetHeight;
+	private boolean doSortFrontToBack;
+	private double projectionScale; // Screen space size (in pixels) of a unit at depth 1
+	private double lodPixelsPerTriangle;
+	private KernelMode kernelMode;
+
+	// Clipping planes (a, b, c, d, e) : a vertex is inside when a * x + b * y + c * z + d * w + e >= 0
+	private final double[][] clipPlanes = new double[][] {
+		{ 0,  0, 0, 1,          0 }, // Near (e is set every frame)
+		{ 1,  0, 0, GUARD_BAND, 0 },
+		{ -1, 0, 0, GUARD_BAND, 0 },
+		{ 0,  1, 0, GUARD_BAND, 0 },
+		{ 0, -1, 0, GUARD_BAND, 0 },
+	};
+
+	void process(SlotMap<Triangle> _triangles, SlotMap<SceneObject> _objects, SlotMap<Light> _lights, SlotMap<Texture> _textures, Matrix4 _perspectiveMatrix, double _zNear, double _zFar, int _targetWidth, int _targetHeight, boolean _doSortFrontToBack, double _lodPixelsPerTriangle, KernelMode _kernelMode) {
+		// Work on a snapshot of the scene lists so that the batches all agree on their content
+		this.triangles = _triangles.toArray(this.triangles);
+		this.numTriangles = _triangles.size();
+
+		this.objects = _objects.toArray(this.objects);
+		this.numObjects = _objects.size();
+
+		this.textures = _textures;
+		this.targetWidth  = _targetWidth;
+		this.targetHeight = _targetHeight;
+		this.doSortFrontToBack = _doSortFrontToBack;
+		this.projectionScale = Math.abs(_perspectiveMatrix.m[5]) * _targetHeight / 2;
+		this.lodPixelsPerTriangle = _lodPixelsPerTriangle;
+		this.kernelMode = _kernelMode;
+
+		this.zNear = _zNear;
+		this.zFar  = _zFar;
+		this.clipPlanes[0][4] = -_zNear;
+
+		Matrix4 viewMatrix = Camera.getViewMatrix();
+
+		this.viewProjectionMatrix.set(viewMatrix).mul(_perspectiveMatrix);
+
+		this.cameraX = Camera.position.x;
+		this.cameraY = Camera.position.y;
+		this.cameraZ = Camera.position.z;
+
+		long startTime = System.nanoTime();
+
+		this.frame++;
+		this.frustum.set(this.viewProjectionMatrix, _zNear, _zFar);
+
+		for (int i = 0; i < this.numObjects; i++) {
+			SceneObject object = this.objects[i];
+
+			// Trigonometry and matrix setup once per object
+			object.computeModelMatrix(object.modelMatrix);
+			Matrix4.multiply(object.modelMatrix, this.viewProjectionMatrix, object.modelViewProjectionMatrix);
+
+			object.lod = this.selectLod(object);
+			object.bvh = object.getBVH(object.lod);
+		}
+
+		// Scene level culling : objects and clusters of loose triangles entirely outside of the view are skipped
+		this.sceneBVH.update(this.triangles, this.numTriangles, this.objects, this.numObjects);
+		this.sceneBVH.query(this.frustum);
+
+		// Vertex stage : every vertex of the visible parts of the objects is transformed, projected and lit exactly once
+		this.numVertexBatches = 0;
+
+		for (int i = 0; i < this.numObjects; i++) {
+			SceneObject object = this.objects[i];
+
+			int planes = this.sceneBVH.getObjectPlanes(i);
+
+			if (planes < 0) continue;
+
+			if (object.vertexCache == null) object.vertexCache = new VertexCache();
+
+			object.vertexCache.ensureCapacity(object.bvh.mesh.numVertices());
+
+			if (planes == 0) {
+				this.addVertexBatches(object, object.bvh.firstVertex[0], object.bvh.lastVertex[0]);
+				continue;
+			}
+
+			// The object crosses the frustum : only keep the leaves of its BVH that are in the view, testing
+			// (in object space) against the planes that cut the object only
+			this.objectFrustum.set(object.modelViewProjectionMatrix, _zNear, _zFar);
+			object.bvh.query(this.objectFrustum, planes);
+
+			this.addVertexBatches(object, object.bvh);
+		}
+
+		long cullingTime = System.nanoTime() - startTime;
+
+		startTime = System.nanoTime();
+
+		this.lightClusters.build(_lights, viewMatrix, _perspectiveMatrix, _zNear, _zFar);
+
+		long lightingTime = System.nanoTime() - startTime;
+
+		Parallel.forRange(this.numVertexBatches, this::processVertexBatch);
+
+		this.transformTime = 0;
+		this.lightingTime  = lightingTime;
+
+		for (int i = 0; i < this.numVertexBatches; i++) {
+			this.transformTime += this.vertexBatches[i].transformTime;
+			this.lightingTime  += this.vertexBatches[i].lightingTime;
+		}
+
+		startTime = System.nanoTime();
+
+		// Triangle stage : loose triangles first, then the objects' triangles
+		this.numTriangleBatches = 0;
+		this.numSubmittedTriangles = this.numTriangles;
+
+		int numProcessedTriangles = 0;
+
+		int numClusters = this.sceneBVH.getNumClusters();
+
+		for (int cluster = 0; cluster < numClusters; cluster++) {
+			if (this.sceneBVH.getClusterPlanes(cluster) < 0) continue;
+
+			int first = cluster * SceneBVH.CLUSTER_SIZE;
+
+			// Merge runs of visible clusters
+			while (cluster + 1 < numClusters && this.sceneBVH.getClusterPlanes(cluster + 1) >= 0) cluster++;
+
+			int last = Math.min((cluster + 1) * SceneBVH.CLUSTER_SIZE, this.numTriangles);
+
+			this.addTriangleBatches(null, null, first, last);
+			numProcessedTriangles += last - first;
+		}
+
+		for (int i = 0; i < this.numObjects; i++) {
+			SceneObject object = this.objects[i];
+
+			MeshBVH bvh = object.bvh;
+
+			this.numSubmittedTriangles += bvh.numTriangles;
+
+			int planes = this.sceneBVH.getObjectPlanes(i);
+
+			if (planes < 0) continue;
+
+			if (planes == 0) {
+				this.addTriangleBatches(object, null, bvh.firstTriangle, bvh.firstTriangle + bvh.numTriangles);
+				numProcessedTriangles += bvh.numTriangles;
+				continue;
+			}
+
+			// Visible leaves come in order : merge the ones that are next to each other in the BVH's triangle order
+
+			for (int j = 0; j < bvh.numVisibleLeaves; j++) {
+				int first = bvh.first[bvh.visibleLeaves[j]];
+				int last  = first + bvh.count[bvh.visibleLeaves[j]];
+
+				while (j + 1 < bvh.numVisibleLeaves && bvh.first[bvh.visibleLeaves[j + 1]] == last) {
+					j++;
+					last += bvh.count[bvh.visibleLeaves[j]];
+				}
+
+				this.addTriangleBatches(object, bvh, first, last);
+				numProcessedTriangles += last - first;
+			}
+		}
+
+		cullingTime += System.nanoTime() - startTime;
+
+		Parallel.forRange(this.numTriangleBatches, this::processTriangleBatch);
+
+		this.cullingTime = cullingTime;
+		this.numCulledTriangles = this.numSubmittedTriangles - numProcessedTriangles;
+
+		for (int i = 0; i < this.numTriangleBatches; i++) {
+			this.cullingTime += this.triangleBatches[i].cullingTime;
+			this.numCulledTriangles += this.triangleBatches[i].numCulled;
+		}
+
+		this.gather(this.numTriangleBatches);
+
+		// Don't keep the frame's data alive
+		Arrays.fill(this.triangles, 0, this.numTriangles, null);
+		Arrays.fill(this.objects, 0, this.numObjects, null);
+		for (int i = 0; i < this.numVertexBatches; i++) this.vertexBatches[i].set(null, null, 0, 0);
+		for (int i = 0; i < this.numTriangleBatches; i++) this.triangleBatches[i].set(null, null, 0, 0);
+	}
+
+	// The level of detail to draw the object with : the current one, unless the next finer level's triangles
+	// would be large enough by a margin, or the current level's are too small by a margin
+	private int selectLod(SceneObject _object) {
+		if (this.lodPixelsPerTriangle <= 0 || !_object.hasLods()) return 0;
+
+		float[] bounds = _object.mesh.bounds;
+
+		double centerX = (bounds[0] + bounds[3]) / 2, centerY = (bounds[1] + bounds[4]) / 2, centerZ = (bounds[2] + bounds[5]) / 2;
+
+		double radius = Math.abs(_object.scale) * Math.sqrt((bounds[3] - bounds[0]) * (bounds[3] - bounds[0]) + (bounds[4] - bounds[1]) * (bounds[4] - bounds[1]) + (bounds[5] - bounds[2]) * (bounds[5] - bounds[2])) / 2;
+
+		double[] m = _object.modelViewProjectionMatrix.m;
+
+		// View space depth of the center
+		double w = centerX * m[3] + centerY * m[7] + centerZ * m[11] + m[15];
+
+		if (w <= radius) return 0;
+
+		// Screen area of the bounding sphere, about half of the triangles face it
+		double radiusInPixels = radius / w * this.projectionScale;
+		double area = Math.PI * radiusInPixels * radiusInPixels;
+
+		Mesh mesh = _object.mesh;
+		int lod = Math.min(_object.lod, mesh.lods.length);
+
+		while (lod > 0 && 2 * area / mesh.getLod(lod - 1).numTriangles() >= this.lodPixelsPerTriangle * LOD_HYSTERESIS) lod--;
+
+		while (lod < mesh.lods.length && 2 * area / mesh.getLod(lod).numTriangles() < this.lodPixelsPerTriangle / LOD_HYSTERESIS) lod++;
+
+		return lod;
+	}
+
+	private void addVertexBatches(SceneObject _object, int _first, int _last) {
+		for (int first = _first; first < _last; first += BATCH_SIZE) {
+			this.vertexBatches = Batch.ensureCapacity(this.vertexBatches, this.numVertexBatches + 1);
+			this.vertexBatches[this.numVertexBatches++].set(_object, null, first, Math.min(first + BATCH_SIZE, _last));
+		}
+	}
+
+	// Batches over the union of the vertex ranges of the BVH's visible leaves (which may overlap).
+	// Vertices in those ranges that no visible triangle uses are marked so that they are skipped.
+	private void addVertexBatches(SceneObject _object, MeshBVH _bvh) {
+		int[] indices = _bvh.mesh.indices, frames = _object.vertexCache.frames;
+
+		for (int i = 0; i < _bvh.numVisibleLeaves; i++) {
+			int leaf = _bvh.visibleLeaves[i];
+
+			for (int j = _bvh.first[leaf]; j < _bvh.first[leaf] + _bvh.count[leaf]; j++) {
+				int triangle = 3 * _bvh.getTriangle(j);
+
+				frames[indices[triangle]] = this.frame;
+				frames[indices[triangle + 1]] = this.frame;
+				frames[indices[triangle + 2]] = this.frame;
+			}
+		}
+
+		if (this.vertexRanges.length < _bvh.numVisibleLeaves) {
+			this.vertexRanges = new long[Math.max(_bvh.numVisibleLeaves, 2 * this.vertexRanges.length)];
+		}
+
+		for (int i = 0; i < _bvh.numVisibleLeaves; i++) {
+			int leaf = _bvh.visibleLeaves[i];
+
+			this.vertexRanges[i] = ((long) _bvh.firstVertex[leaf] << 32) | _bvh.lastVertex[leaf];
+		}
+
+		Arrays.sort(this.vertexRanges, 0, _bvh.numVisibleLeaves);
+
+		for (int i = 0; i < _bvh.numVisibleLeaves; i++) {
+			int first = (int) (this.vertexRanges[i] >>> 32), last = (int) this.vertexRanges[i];
+
+			while (i + 1 < _bvh.numVisibleLeaves && (int) (this.vertexRanges[i + 1] >>> 32) <= last) {
+				i++;
+				last = Math.max(last, (int) this.vertexRanges[i]);
+			}
+
+			for (int batchFirst = first; batchFirst < last; batchFirst += BATCH_SIZE) {
+				this.vertexBatches = Batch.ensureCapacity(this.vertexBatches, this.numVertexBatches + 1);
+				this.vertexBatches[this.numVertexBatches++].set(_object, _bvh, batchFirst, Math.min(batchFirst + BATCH_SIZE, last));
+			}
+		}
+	}
+
+	// Triangles [_first; _last[ of the object (or of the loose triangles), or positions [_first; _last[ of _bvh's order
+	private void addTriangleBatches(SceneObject _object, MeshBVH _bvh, int _first, int _last) {
+		for (int first = _first; first < _last; first += BATCH_SIZE) {
+			this.triangleBatches = Batch.ensureCapacity(this.triangleBatches, this.numTriangleBatches + 1);
+			this.triangleBatches[this.numTriangleBatches++].set(_object, _bvh, first, Math.min(first + BATCH_SIZE, _last));
+		}
+	}
+
+	ProjectedTriangle[] getOutput() { return this.output; }
+
+	int getOutputSize() { return this.outputSize; }
+
+	// Batches are gathered in submission order, or front to back (by their closest depth) for occlusion culling
+	private void gather(int _numBatches) {
+		this.outputSize = 0;
+
+		for (int i = 0; i < _numBatches; i++) {
+			this.outputSize += this.triangleBatches[i].size;
+		}
+
+		if (this.output.length < this.outputSize) {
+			this.output = new ProjectedTriangle[this.outputSize];
+		}
+
+		if (this.doSortFrontToBack) {
+			if (this.batchOrder.length < _numBatches) {
+				this.batchOrder = new long[Math.max(_numBatches, 2 * this.batchOrder.length)];
+			}
+
+			// Positive floats' bits sort like them
+			for (int i = 0; i < _numBatches; i++) {
+				this.batchOrder[i] = ((long) Float.floatToIntBits(Math.max(0, this.triangleBatches[i].minDepth)) << 32) | i;
+			}
+
+			Arrays.sort(this.batchOrder, 0, _numBatches);
+		}
+
+		int offset = 0;
+
+		for (int i = 0; i < _numBatches; i++) {
+			Batch batch = this.triangleBatches[this.doSortFrontToBack ? (int) this.batchOrder[i] : i];
+
+			System.arraycopy(batch.pool, 0, this.output, offset, batch.size);
+			offset += batch.size;
+		}
+	}
+
+	private void processVertexBatch(int _batch) {
+		Batch batch = this.vertexBatches[_batch];
+		SceneObject object = batch.object;
+		Mesh mesh = object.bvh.mesh;
+		VertexCache cache = object.vertexCache;
+
+		float[] positions = mesh.positions;
+		float[] normals   = mesh.normals;
+		double[] world  = cache.world;
+		double[] normal = cache.normals;
+		double[] clip   = cache.clip;
+
+		long startTime = System.nanoTime();
+
+		int[] frames = (batch.bvh != null) ? cache.frames : null;
+
+		// Object + Camera + Perspective in a single multiplication, over runs of consecutive vertices
+		if (frames == null) {
+			object.modelViewProjectionMatrix.transformPoints(positions, batch.first, batch.last, clip, this.kernelMode);
+		} else {
+			for (int i = batch.first; i < batch.last; i++) {
+				if (frames[i] != this.frame) continue;
+
+				int end = i + 1;
+
+				while (end < batch.last && frames[end] == this.frame) end++;
+
+				object.modelViewProjectionMatrix.transformPoints(positions, i, end, clip, this.kernelMode);
+
+				i = end;
+			}
+		}
+
+		for (int i = batch.first; i < batch.last; i++) {
+			if (frames != null && frames[i] != this.frame) continue;
+
+			int offset = 3 * i;
+
+			// Object space to world space (the scale is uniform, so normals only need to be renormalized)
+			object.modelMatrix.transformPoint(positions[offset], positions[offset + 1], positions[offset + 2], world, offset);
+			object.modelMatrix.transformDirection(normals[offset], normals[offset + 1], normals[offset + 2], normal, offset);
+
+			double normalLength = Math.sqrt(normal[offset] * normal[offset] + normal[offset + 1] * normal[offset + 1] + normal[offset + 2] * normal[offset + 2]);
+
+			if (normalLength > 0) {
+				normal[offset] /= normalLength; normal[offset + 1] /= normalLength; normal[offset + 2] /= normalLength;
+			}
+
+			cache.outcodes[i] = this.computeOutcode(clip, 4 * i);
+
+			this.project(clip, 4 * i, cache.screen, offset);
+		}
+
+		long transformedTime = System.nanoTime();
+
+		for (int i = batch.first; i < batch.last; i++) {
+			if (frames != null && frames[i] != this.frame) continue;
+
+			int offset = 3 * i;
+
+			// Lighting (world space)
+			float brightness = this.lightClusters.getIllumination(clip[4 * i], clip[4 * i + 1], clip[4 * i + 3], world[offset], world[offset + 1], world[offset + 2], normal[offset], normal[offset + 1], normal[offset + 2]);
+
+			for (int c = 0; c < 3; c++) {
+				double color = mesh.colors[offset + c] * brightness;
+
+				// Limit color range (0-255)
+				cache.colors[offset + c] = (float) ((color < 0) ? 0 : ((color > 255) ? 255 : color));
+			}
+		}
+
+		batch.transformTime = transformedTime - startTime;
+		batch.lightingTime  = System.nanoTime() - transformedTime;
+	}
+
+	// Clip (x, y, z, w) to screen (x, y) and depth (w). Only meaningful for w > 0.
+	private void project(double[] _clip, int _clipOffset, double[] _screen, int _offset) {
+		double w = _clip[_clipOffset + 3];
+
+		if (w > 0) {
+			// Divide by w, then World To Screen (between -1 and 1 to between 0 and the target's size)
+			_screen[_offset]     = ((_clip[_clipOffset]     / w - 1f) / -2f) * this.targetWidth;
+			_screen[_offset + 1] = ((_clip[_clipOffset + 1] / w + 1f) /  2f) * this.targetHeight;
+		}
+
+		_screen[_offset + 2] = w;
+	}
+
+	private int computeOutcode(double[] _clip, int _offset) {
+		double x = _clip[_offset], y = _clip[_offset + 1], w = _clip[_offset + 3];
+
+		int outcode = 0;
+
+		if (x < -w) outcode |= OUTSIDE_LEFT;
+		if (x >  w) outcode |= OUTSIDE_RIGHT;
+		if (y < -w) outcode |= OUTSIDE_BOTTOM;
+		if (y >  w) outcode |= OUTSIDE_TOP;
+
+		if (w < this.zNear) outcode |= OUTSIDE_NEAR;
+		if (w > this.zFar)  outcode |= OUTSIDE_FAR;
+
+		double guardBand = GUARD_BAND * w;
+
+		if (x < -guardBand || x > guardBand || y < -guardBand || y > guardBand) outcode |= OUTSIDE_GUARD_BAND;
+
+		return outcode;
+	}
+
+	private void processTriangleBatch(int _batch) {
+		Batch batch = this.triangleBatches[_batch];
+		batch.size = 0;
+		batch.numCulled = 0;
+
+		long startTime = System.nanoTime();
+
+		if (batch.object == null) {
+			for (int i = batch.first; i < batch.last; i++) {
+				if (!this.processTriangle(this.triangles[i], batch)) batch.numCulled++;
+			}
+		} else {
+			for (int i = batch.first; i < batch.last; i++) {
+				int triangle = (batch.bvh != null) ? batch.bvh.getTriangle(i) : i;
+
+				if (!this.processObjectTriangle(batch.object, triangle, batch)) batch.numCulled++;
+			}
+		}
+
+		batch.minDepth = Float.POSITIVE_INFINITY;
+
+		if (this.doSortFrontToBack) {
+			for (int i = 0; i < batch.size; i++) {
+				batch.minDepth = (float) Math.min(batch.minDepth, batch.pool[i].minDepth);
+			}
+		}
+
+		batch.cullingTime = System.nanoTime() - startTime;
+	}
+
+	// Returns false if nothing of the triangle is left to rasterize
+	private boolean processObjectTriangle(SceneObject object, int triangle, Batch batch) {
+		Mesh mesh = object.bvh.mesh;
+		VertexCache cache = object.vertexCache;
+
+		int a = mesh.indices[3 * triangle];
+		int b = mesh.indices[3 * triangle + 1];
+		int c = mesh.indices[3 * triangle + 2];
+
+		int outcodeA = cache.outcodes[a], outcodeB = cache.outcodes[b], outcodeC = cache.outcodes[c];
+
+		// Don't bother to render the triangle if all of it is on the wrong side of one of the frustum planes
+		if ((outcodeA & outcodeB & outcodeC & OUTSIDE_FRUSTUM) != 0) return false;
+
+		// Only render it if it is facing the camera
+		if (!this.isFacingCamera(cache.world, 3 * a, 3 * b, 3 * c, null)) return false;
+
+		if (((outcodeA | outcodeB | outcodeC) & NEEDS_CLIPPING) != 0) {
+			double[] polygon = batch.polygon;
+
+			for (int i = 0; i < 3; i++) {
+				int vertex = (i == 0) ? a : (i == 1) ? b : c;
+
+				System.arraycopy(cache.clip, 4 * vertex, polygon, i * CLIP_STRIDE, 4);
+
+				polygon[i * CLIP_STRIDE + 4] = cache.colors[3 * vertex];
+				polygon[i * CLIP_STRIDE + 5] = cache.colors[3 * vertex + 1];
+				polygon[i * CLIP_STRIDE + 6] = cache.colors[3 * vertex + 2];
+			}
+
+			return this.emitPolygon(batch, true, null);
+		}
+
+		ProjectedTriangle projectedTriangle = batch.next();
+
+		projectedTriangle.doUseTexture = false;
+		projectedTriangle.texture = null;
+
+		for (int i = 0; i < 3; i++) {
+			int corner = 3 * ((i == 0) ? a : (i == 1) ? b : c);
+
+			projectedTriangle.setVertex(i, cache.screen[corner], cache.screen[corner + 1], cache.screen[corner + 2]);
+			projectedTriangle.setColor(i, cache.colors[corner], cache.colors[corner + 1], cache.colors[corner + 2]);
+		}
+
+		// Drop triangles that are entirely off-screen
+		if (!projectedTriangle.computeBounds(this.targetWidth, this.targetHeight)) {
+			batch.size--;
+			return false;
+		}
+
+		return true;
+	}
+
+	// Returns false if nothing of the triangle is left to rasterize
+	private boolean processTriangle(Triangle triangle, Batch batch) {
+		double[] world   = batch.world;
+		double[] polygon = batch.polygon;
+		double[] normal  = batch.normal;
+
+		// Object Rotation : trigonometry and matrix setup once per triangle, then one multiplication per vertex
+		boolean isRotated = triangle.rotation.x != 0 || triangle.rotation.y != 0 || triangle.rotation.z != 0;
+
+		if (isRotated) batch.model.setRotation(triangle.rotation, triangle.rotationMidPoint);
+
+		for (int i = 0; i < 3; i++) {
+			Vector vertex = triangle.vertices[i];
+
+			if (isRotated) {
+				batch.model.transformPoint(vertex.x, vertex.y, vertex.z, world, 3 * i);
+			} else {
+				world[3 * i] = vertex.x; world[3 * i + 1] = vertex.y; world[3 * i + 2] = vertex.z;
+			}
+		}
+
+		// Camera + Perspective in a single multiplication
+		int outcodeAnd = ~0, outcodeOr = 0;
+
+		for (int i = 0; i < 3; i++) {
+			this.viewProjectionMatrix.transform(world[3 * i], world[3 * i + 1], world[3 * i + 2], polygon, i * CLIP_STRIDE);
+
+			int outcode = this.computeOutcode(polygon, i * CLIP_STRIDE);
+
+			outcodeAnd &= outcode;
+			outcodeOr  |= outcode;
+		}
+
+		// Don't bother to render the triangle if all of it is on the wrong side of one of the frustum planes
+		if ((outcodeAnd & OUTSIDE_FRUSTUM) != 0) return false;
+
+		// Only render it if it is facing the camera
+		if (!this.isFacingCamera(world, 0, 3, 6, normal)) return false;
+
+		// If the triangle should be rendered with a texture and that texture still exists (null if the handle is stale)
+		Texture texture = triangle.doUseTexture ? this.textures.get(triangle.textureID) : null;
+
+		boolean doUseTexture = texture != null;
+
+		Vector[] uvs = (triangle.uvs != null) ? triangle.uvs : Triangle.DEFAULT_UVS;
+
+		for (int i = 0; i < 3; i++) {
+			// Lighting (world space, flat normal)
+			int offset = i * CLIP_STRIDE;
+
+			float brightness = this.lightClusters.getIllumination(polygon[offset], polygon[offset + 1], polygon[offset + 3], world[3 * i], world[3 * i + 1], world[3 * i + 2], normal[0], normal[1], normal[2]);
+
+			if (doUseTexture) {
+				// Texture coordinates are clipped along with the brightness
+				polygon[offset + 4] = brightness;
+				polygon[offset + 5] = uvs[i].x;
+				polygon[offset + 6] = uvs[i].y;
+			} else { // Render the triangle with the vertices' color
+				Vector color = triangle.colors[i];
+
+				// Limit color range (0-255)
+				polygon[offset + 4] = constrain(color.x * brightness);
+				polygon[offset + 5] = constrain(color.y * brightness);
+				polygon[offset + 6] = constrain(color.z * brightness);
+			}
+		}
+
+		return this.emitPolygon(batch, (outcodeOr & NEEDS_CLIPPING) != 0, texture);
+	}
+
+	// Clips the triangle in batch.polygon if needed, then projects it and adds it (fanned) to the batch's output.
+	// Returns false if nothing of it is left. Textured if texture isn't null.
+	private boolean emitPolygon(Batch batch, boolean doClip, Texture texture) {
+		int numVertices = doClip ? this.clip(batch) : 3;
+
+		double[] polygon = batch.polygon;
+		double[] screen  = batch.screen;
+
+		for (int i = 0; i < numVertices; i++) {
+			this.project(polygon, i * CLIP_STRIDE, screen, 3 * i);
+		}
+
+		int size = batch.size;
+
+		for (int i = 1; i < numVertices - 1; i++) {
+			ProjectedTriangle projectedTriangle = batch.next();
+
+			projectedTriangle.doUseTexture = texture != null;
+			projectedTriangle.texture = texture;
+
+			for (int corner = 0; corner < 3; corner++) {
+				int vertex = (corner == 0) ? 0 : i + corner - 1;
+				int offset = vertex * CLIP_STRIDE;
+
+				projectedTriangle.setVertex(corner, screen[3 * vertex], screen[3 * vertex + 1], screen[3 * vertex + 2]);
+
+				if (texture != null) {
+					projectedTriangle.brightnesses[corner] = (float) polygon[offset + 4];
+					projectedTriangle.setUV(corner, polygon[offset + 5], polygon[offset + 6]);
+				} else {
+					projectedTriangle.setColor(corner, polygon[offset + 4], polygon[offset + 5], polygon[offset + 6]);
+				}
+			}
+
+			// Drop triangles that are entirely off-screen
+			if (!projectedTriangle.computeBounds(this.targetWidth, this.targetHeight)) batch.size--;
+		}
+
+		return batch.size > size;
+	}
+
+	// Sutherland-Hodgman clipping of batch.polygon (a triangle) against the near plane and the guard band,
+	// in homogeneous clip space. Returns the number of vertices left (0 if nothing is left).
+	// https://en.wikipedia.org/wiki/Sutherland%E2%80%93Hodgman_algorithm
+	private int clip(Batch batch) {
+		int numVertices = 3;
+
+		for (double[] plane : this.clipPlanes) {
+			double[] input = batch.polygon, output = batch.clipped;
+
+			int numOutput = 0;
+
+			for (int i = 0; i < numVertices; i++) {
+				int j = (i + 1 == numVertices) ? 0 : i + 1;
+
+				double distanceI = distance(plane, input, i * CLIP_STRIDE);
+				double distanceJ = distance(plane, input, j * CLIP_STRIDE);
+
+				if (distanceI >= 0) {
+					System.arraycopy(input, i * CLIP_STRIDE, output, numOutput++ * CLIP_STRIDE, CLIP_STRIDE);
+				}
+
+				if ((distanceI >= 0) != (distanceJ >= 0)) {
+					// Always interpolate from the inside vertex, so that both triangles sharing this edge get the exact same point
+					if (distanceI >= 0) {
+						lerp(input, i * CLIP_STRIDE, j * CLIP_STRIDE, distanceI / (distanceI - distanceJ), output, numOutput++ * CLIP_STRIDE);
+					} else {
+						lerp(input, j * CLIP_STRIDE, i * CLIP_STRIDE, distanceJ / (distanceJ - distanceI), output, numOutput++ * CLIP_STRIDE);
+					}
+				}
+			}
+
+			batch.polygon = output;
+			batch.clipped = input;
+
+			numVertices = numOutput;
+
+			if (numVertices < 3) return 0;
+		}
+
+		return numVertices;
+	}
+
+	private static double distance(double[] _plane, double[] _polygon, int _offset) {
+		return _plane[0] * _polygon[_offset] + _plane[1] * _polygon[_offset + 1] + _plane[2] * _polygon[_offset + 2] + _plane[3] * _polygon[_offset + 3] + _plane[4];
+	}
+
+	private static void lerp(double[] _polygon, int _from, int _to, double _t, double[] _output, int _offset) {
+		for (int i = 0; i < CLIP_STRIDE; i++) {
+			_output[_offset + i] = _polygon[_from + i] + (_polygon[_to + i] - _polygon[_from + i]) * _t;
+		}
+	}
+
+	// Back-face test on world space positions (_positions[_a], _positions[_b], _positions[_c]).
+	// If _normal isn't null, the normalized surface normal is written into it.
+	private boolean isFacingCamera(double[] _positions, int _a, int _b, int _c, double[] _normal) {
+		// https://www.khronos.org/opengl/wiki/Calculating_a_Surface_Normal
+		double uX = _positions[_b] - _positions[_a], uY = _positions[_b + 1] - _positions[_a + 1], uZ = _positions[_b + 2] - _positions[_a + 2];
+		double vX = _positions[_c] - _positions[_a], vY = _positions[_c + 1] - _positions[_a + 1], vZ = _positions[_c + 2] - _positions[_a + 2];
+
+		double nX = uY * vZ - uZ * vY;
+		double nY = uZ * vX - uX * vZ;
+		double nZ = uX * vY - uY * vX;
+
+		double toCameraX = this.cameraX - (_positions[_a]     + _positions[_b]     + _positions[_c])     / 3;
+		double toCameraY = this.cameraY - (_positions[_a + 1] + _positions[_b + 1] + _positions[_c + 1]) / 3;
+		double toCameraZ = this.cameraZ - (_positions[_a + 2] + _positions[_b + 2] + _positions[_c + 2]) / 3;
+
+		if (nX * toCameraX + nY * toCameraY + nZ * toCameraZ <= 0) return false;
+
+		if (_normal != null) {
+			double length = Math.sqrt(nX * nX + nY * nY + nZ * nZ);
+
+			_normal[0] = nX / length;
+			_normal[1] = nY / length;
+			_normal[2] = nZ / length;
+		}
+
+		return true;
+	}
+
+	private static double constrain(double _value) { return (_value < 0) ? 0 : ((_value > 255) ? 255 : _value); }
+
+	// A range of vertices / triangles (of an object's mesh, or of the loose triangles when object is null).
+	// When bvh isn't null, a triangle range is in the BVH's triangle order instead, and a vertex range
+	// only covers the vertices marked as used this frame.
+	// Triangle batches also own an output pool, grown on demand and reused from frame to frame.
+	private static class Batch {
+		SceneObject object;
+		MeshBVH bvh;
+		int first, last; // [first; last[
+
+		ProjectedTriangle[] pool = new ProjectedTriangle[0];
+		int size;
+		float minDepth; // Closest depth of the output, when sorting front to back
+
+		long transformTime, lightingTime, cullingTime;
+		int numCulled;
+
+		// Scratch space, so that no batch allocates per vertex
+		final Matrix4  model  = new Matrix4();
+		final double[] world  = new double[9];
+		final double[] screen = new double[3 * MAX_POLYGON_SIZE];
+		final double[] normal = new double[3];
+
+		// Polygon being clipped, and the clipper's output (swapped after every plane)
+		double[] polygon = new double[CLIP_STRIDE * MAX_POLYGON_SIZE];
+		double[] clipped = new double[CLIP_STRIDE * MAX_POLYGON_SIZE];
+
+		void set(SceneObject _object, MeshBVH _bvh, int _first, int _last) {
+			this.object = _object;
+			this.bvh = _bvh;
+			this.first = _first;
+			this.last  = _last;
+		}
+
+		ProjectedTriangle next() {
+			if (this.size == this.pool.length) {
+				ProjectedTriangle[] pool = Arrays.copyOf(this.pool, Math.max(this.pool.length * 2, 64));
+
+				for (int i = this.pool.length; i < pool.length; i++) {
+					pool[i] = new ProjectedTriangle();
+				}
+
+				this.pool = pool;
+			}
+
+			return this.pool[this.size++];
+		}
+
+		static Batch[] ensureCapacity(Batch[] _batches, int _capacity) {
+			if (_batches.length >= _capacity) return _batches;
+
+			Batch[] batches = Arrays.copyOf(_batches, Math.max(_capacity, _batches.length * 2));
+
+			for (int i = _batches.length; i < batches.length; i++) {
+				batches[i] = new Batch();
+			}
+
+			return batches;
+		}
+	}
+}
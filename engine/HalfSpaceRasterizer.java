@@ -0,0 +1,191 @@
+package engine;
+
+// Half-space rasterizer : a pixel is drawn when its center is on the inner side of the three edges.
+// Vertices are snapped to a fixed-point grid, so the edge functions are exact integers that are stepped
+// incrementally, and the top-left rule makes triangles sharing an edge draw each of its pixels once.
+// https://fgiesen.wordpress.com/2013/02/08/triangle-rasterization-in-practice/
+// https://fgiesen.wordpress.com/2013/02/10/optimizing-the-basic-rasterizer/
+class HalfSpaceRasterizer {
+	static final int SUBPIXEL_BITS  = 4;
+	static final int SUBPIXEL_STEPS = 1 << SUBPIXEL_BITS;
+
+	// Pixels are visited by blocks of BLOCK_SIZE x BLOCK_SIZE, which are rejected or accepted as a whole when possible
+	static final int BLOCK_SIZE = 8;
+
+	// Beyond this (in pixels) the fixed-point setup could overflow
+	static final double MAX_COORDINATE = 1 << 20;
+
+	static boolean canRender(Vector[] _vertices) {
+		for (int i = 0; i < 3; i++) {
+			if (!(Math.abs(_vertices[i].x) < MAX_COORDINATE && Math.abs(_vertices[i].y) < MAX_COORDINATE)) return false;
+		}
+
+		return true;
+	}
+
+	// Only the pixels inside [clipMinX; clipMaxX[ x [clipMinY; clipMaxY[ are touched (used by the tile rasterizer)
+	// Returns the number of pixels written
+	static int render(ProjectedTriangle _triangle, RenderTarget _target, int _clipMinX, int _clipMinY, int _clipMaxX, int _clipMaxY) {
+		Vector[] vertices = _triangle.vertices;
+
+		// Snap to the sub-pixel grid
+		long x0 = Math.round(vertices[0].x * SUBPIXEL_STEPS), y0 = Math.round(vertices[0].y * SUBPIXEL_STEPS);
+		long x1 = Math.round(vertices[1].x * SUBPIXEL_STEPS), y1 = Math.round(vertices[1].y * SUBPIXEL_STEPS);
+		long x2 = Math.round(vertices[2].x * SUBPIXEL_STEPS), y2 = Math.round(vertices[2].y * SUBPIXEL_STEPS);
+
+		// Twice the signed area, in sub-pixels
+		long area = (x1 - x0) * (y2 - y0) - (y1 - y0) * (x2 - x0);
+
+		if (area == 0) return 0;
+
+		// Back faces were already culled in world space, so both windings are drawn : make the area positive
+		int i1 = 1, i2 = 2;
+
+		if (area < 0) {
+			long tx = x1, ty = y1; x1 = x2; y1 = y2; x2 = tx; y2 = ty;
+
+			i1 = 2; i2 = 1;
+			area = -area;
+		}
+
+		// Edge functions E(x, y) = a * x + b * y + c, positive inside.
+		// The edge facing vertex n gives the (unnormalized) barycentric weight of vertex n.
+		long a12 = y1 - y2, b12 = x2 - x1, c12 = x1 * y2 - y1 * x2;
+		long a20 = y2 - y0, b20 = x0 - x2, c20 = x2 * y0 - y2 * x0;
+		long a01 = y0 - y1, b01 = x1 - x0, c01 = x0 * y1 - y0 * x1;
+
+		// Top-left rule : pixels exactly on an edge only belong to the triangle if it is a top or a left edge
+		long bias12 = isTopLeft(a12, b12) ? 0 : -1;
+		long bias20 = isTopLeft(a20, b20) ? 0 : -1;
+		long bias01 = isTopLeft(a01, b01) ? 0 : -1;
+
+		// Pixel area to walk
+		int minX = Math.max(_clipMinX, _triangle.minX), maxX = Math.min(_clipMaxX - 1, _triangle.maxX);
+		int minY = Math.max(_clipMinY, _triangle.minY), maxY = Math.min(_clipMaxY - 1, _triangle.maxY);
+
+		if (minX > maxX || minY > maxY) return 0;
+
+		int screenWidth = _target.width;
+		int[]   colorBuffer = _target.colorBuffer;
+		float[] depthBuffer = _target.depthBuffer;
+
+		double inverseArea = 1.0 / area;
+
+		// Vertex attributes, in the (possibly swapped) vertex order
+		double w0 = vertices[0].w, w1 = vertices[i1].w, w2 = vertices[i2].w;
+
+		boolean doUseTexture = _triangle.doUseTexture;
+
+		Vector[] colors = _triangle.colors;
+
+		double r0 = colors[0].x, g0 = colors[0].y, b0 = colors[0].z;
+		double r1 = colors[i1].x, g1 = colors[i1].y, b1 = colors[i1].z;
+		double r2 = colors[i2].x, g2 = colors[i2].y, b2 = colors[i2].z;
+
+		float[] brightnesses = _triangle.brightnesses;
+
+		double brightness0 = brightnesses[0], brightness1 = brightnesses[i1], brightness2 = brightnesses[i2];
+
+		Texture texture = _triangle.texture;
+		TextureMapping mapping = _triangle.textureMapping;
+
+		int numPixels = 0;
+
+		// Edge function steps for one pixel
+		long stepX12 = a12 * SUBPIXEL_STEPS, stepY12 = b12 * SUBPIXEL_STEPS;
+		long stepX20 = a20 * SUBPIXEL_STEPS, stepY20 = b20 * SUBPIXEL_STEPS;
+		long stepX01 = a01 * SUBPIXEL_STEPS, stepY01 = b01 * SUBPIXEL_STEPS;
+
+		for (int blockY = minY; blockY <= maxY; blockY += BLOCK_SIZE) {
+			int lastY = Math.min(blockY + BLOCK_SIZE - 1, maxY);
+
+			for (int blockX = minX; blockX <= maxX; blockX += BLOCK_SIZE) {
+				int lastX = Math.min(blockX + BLOCK_SIZE - 1, maxX);
+
+				// Edge functions at the center of the block's top-left pixel
+				long centerX = ((long) blockX << SUBPIXEL_BITS) + SUBPIXEL_STEPS / 2;
+				long centerY = ((long) blockY << SUBPIXEL_BITS) + SUBPIXEL_STEPS / 2;
+
+				long row12 = a12 * centerX + b12 * centerY + c12 + bias12;
+				long row20 = a20 * centerX + b20 * centerY + c20 + bias20;
+				long row01 = a01 * centerX + b01 * centerY + c01 + bias01;
+
+				// The functions are linear, so their extremes over the block are at its corners
+				int blockWidth = lastX - blockX, blockHeight = lastY - blockY;
+
+				long spanX12 = stepX12 * blockWidth, spanY12 = stepY12 * blockHeight;
+				long spanX20 = stepX20 * blockWidth, spanY20 = stepY20 * blockHeight;
+				long spanX01 = stepX01 * blockWidth, spanY01 = stepY01 * blockHeight;
+
+				// Trivial reject : all of the block is outside one of the edges
+				if (row12 + Math.max(spanX12, 0) + Math.max(spanY12, 0) < 0) continue;
+				if (row20 + Math.max(spanX20, 0) + Math.max(spanY20, 0) < 0) continue;
+				if (row01 + Math.max(spanX01, 0) + Math.max(spanY01, 0) < 0) continue;
+
+				// Trivial accept : all of the block is inside every edge, no per pixel test needed
+				boolean isBlockCovered = row12 + Math.min(spanX12, 0) + Math.min(spanY12, 0) >= 0
+				                      && row20 + Math.min(spanX20, 0) + Math.min(spanY20, 0) >= 0
+				                      && row01 + Math.min(spanX01, 0) + Math.min(spanY01, 0) >= 0;
+
+				for (int y = blockY; y <= lastY; y++) {
+					long edge12 = row12, edge20 = row20, edge01 = row01;
+
+					for (int x = blockX; x <= lastX; x++) {
+						// The sign bit of the OR is set if any of the edge functions is negative
+						if (isBlockCovered || (edge12 | edge20 | edge01) >= 0) {
+							double weight0 = (edge12 - bias12) * inverseArea;
+							double weight1 = (edge20 - bias20) * inverseArea;
+							double weight2 = (edge01 - bias01) * inverseArea;
+
+							// Pixel Depth (w)
+							float depth = (float) (w0 * weight0 + w1 * weight1 + w2 * weight2);
+
+							int pixelIndex = y * screenWidth + x;
+
+							// If the pixel is in front
+							if (depth < depthBuffer[pixelIndex]) {
+								depthBuffer[pixelIndex] = depth;
+
+								int r, g, b;
+
+								if (doUseTexture) {
+									// Perspective correct (u;v)
+									int texel = mapping.sample(texture, x, y);
+
+									double brightness = brightness0 * weight0 + brightness1 * weight1 + brightness2 * weight2;
+
+									r = Triangle.constrain(((texel >> 16) & 0xFF) * brightness);
+									g = Triangle.constrain(((texel >>  8) & 0xFF) * brightness);
+									b = Triangle.constrain(( texel        & 0xFF) * brightness);
+								} else {
+									r = Triangle.constrain(r0 * weight0 + r1 * weight1 + r2 * weight2);
+									g = Triangle.constrain(g0 * weight0 + g1 * weight1 + g2 * weight2);
+									b = Triangle.constrain(b0 * weight0 + b1 * weight1 + b2 * weight2);
+								}
+
+								colorBuffer[pixelIndex] = 0xFF000000 | (r << 16) | (g << 8) | b;
+
+								numPixels++;
+							}
+						}
+
+						edge12 += stepX12;
+						edge20 += stepX20;
+						edge01 += stepX01;
+					}
+
+					row12 += stepY12;
+					row20 += stepY20;
+					row01 += stepY01;
+				}
+			}
+		}
+
+		return numPixels;
+	}
+
+	// With a positive area and y pointing down, the inside is below top edges and right of left edges
+	private static boolean isTopLeft(long _a, long _b) {
+		return _a > 0 || (_a == 0 && _b > 0);
+	}
+}
@@ -0,0 +1,135 @@
+package engine;
+
+import java.util.Arrays;
+
+// Coarse levels over a render target's depth buffer, to reject triangles hidden behind what was already drawn
+// without touching their pixels : the farthest depth of every BLOCK_SIZE x BLOCK_SIZE block, and of every tile.
+// https://www.rastergrid.com/blog/2010/10/hierarchical-z-map-based-occlusion-culling/
+//
+// Depths only ever get closer during a frame, so a stale maximum is still a safe (conservative) one :
+// writes only mark their blocks dirty, and a dirty block is only recomputed when a test needs it.
+// Every tile only touches its own blocks, so tiles can be tested and updated in parallel.
+class HierarchicalDepthBuffer {
+	static final int BLOCK_SIZE = 8;
+
+	private static final int BLOCKS_PER_TILE = TileRasterizer.TILE_SIZE / BLOCK_SIZE;
+
+	private int width, height, blocksX, tilesX;
+
+	private float[] blockMaxDepths = new float[0];
+	private boolean[] isBlockDirty = new boolean[0];
+	private float[] tileMaxDepths  = new float[0];
+
+	void clear(int _width, int _height) {
+		this.width  = _width;
+		this.height = _height;
+
+		this.tilesX  = (_width + TileRasterizer.TILE_SIZE - 1) / TileRasterizer.TILE_SIZE;
+		this.blocksX = this.tilesX * BLOCKS_PER_TILE;
+
+		int numBlocks = this.blocksX * ((_height + TileRasterizer.TILE_SIZE - 1) / TileRasterizer.TILE_SIZE) * BLOCKS_PER_TILE;
+		int numTiles  = numBlocks / (BLOCKS_PER_TILE * BLOCKS_PER_TILE);
+
+		if (this.blockMaxDepths.length != numBlocks) {
+			this.blockMaxDepths = new float[numBlocks];
+			this.isBlockDirty   = new boolean[numBlocks];
+			this.tileMaxDepths  = new float[numTiles];
+		}
+
+		// The depth buffer is cleared to +infinity
+		Arrays.fill(this.blockMaxDepths, Float.POSITIVE_INFINITY);
+		Arrays.fill(this.isBlockDirty, false);
+		Arrays.fill(this.tileMaxDepths, Float.POSITIVE_INFINITY);
+	}
+
+	// Returns true if no pixel of the triangle within the tile can pass the depth test
+	boolean isOccluded(ProjectedTriangle _triangle, int _tile, int _clipMinX, int _clipMinY, int _clipMaxX, int _clipMaxY, float[] _depthBuffer) {
+		int minX = Math.max(_clipMinX, _triangle.minX), maxX = Math.min(_clipMaxX - 1, _triangle.maxX);
+		int minY = Math.max(_clipMinY, _triangle.minY), maxY = Math.min(_clipMaxY - 1, _triangle.maxY);
+
+		if (minX > maxX || minY > maxY) return true;
+
+		// Whole tile first, without touching the vertices
+		if (_triangle.minDepth > this.tileMaxDepths[_tile]) return true;
+
+		if (_triangle.minDepth == Double.NEGATIVE_INFINITY) return false;
+
+		boolean hasRefreshedBlocks = false;
+		boolean isOccluded = true;
+
+		for (int blockY = minY / BLOCK_SIZE; blockY <= maxY / BLOCK_SIZE && isOccluded; blockY++) {
+			for (int blockX = minX / BLOCK_SIZE; blockX <= maxX / BLOCK_SIZE; blockX++) {
+				int block = blockY * this.blocksX + blockX;
+
+				// The part of the block the triangle can write to
+				int areaMinX = Math.max(minX, blockX * BLOCK_SIZE), areaMaxX = Math.min(maxX, blockX * BLOCK_SIZE + BLOCK_SIZE - 1);
+				int areaMinY = Math.max(minY, blockY * BLOCK_SIZE), areaMaxY = Math.min(maxY, blockY * BLOCK_SIZE + BLOCK_SIZE - 1);
+
+				double closestDepth = _triangle.getMinDepth(areaMinX, areaMinY, areaMaxX, areaMaxY);
+
+				if (closestDepth > this.blockMaxDepths[block]) continue;
+
+				if (this.isBlockDirty[block]) {
+					this.refreshBlock(block, blockX, blockY, _depthBuffer);
+					hasRefreshedBlocks = true;
+
+					if (closestDepth > this.blockMaxDepths[block]) continue;
+				}
+
+				isOccluded = false;
+				break;
+			}
+		}
+
+		if (hasRefreshedBlocks) this.refreshTile(_tile);
+
+		return isOccluded;
+	}
+
+	// The triangle was drawn : the depths of the blocks under it may have changed
+	void markWritten(ProjectedTriangle _triangle, int _clipMinX, int _clipMinY, int _clipMaxX, int _clipMaxY) {
+		int minX = Math.max(_clipMinX, _triangle.minX), maxX = Math.min(_clipMaxX - 1, _triangle.maxX);
+		int minY = Math.max(_clipMinY, _triangle.minY), maxY = Math.min(_clipMaxY - 1, _triangle.maxY);
+
+		for (int blockY = minY / BLOCK_SIZE; blockY <= maxY / BLOCK_SIZE; blockY++) {
+			for (int blockX = minX / BLOCK_SIZE; blockX <= maxX / BLOCK_SIZE; blockX++) {
+				this.isBlockDirty[blockY * this.blocksX + blockX] = true;
+			}
+		}
+	}
+
+	private void refreshBlock(int _block, int _blockX, int _blockY, float[] _depthBuffer) {
+		int maxX = Math.min(_blockX * BLOCK_SIZE + BLOCK_SIZE, this.width);
+		int maxY = Math.min(_blockY * BLOCK_SIZE + BLOCK_SIZE, this.height);
+
+		float maxDepth = 0;
+
+		for (int y = _blockY * BLOCK_SIZE; y < maxY; y++) {
+			for (int x = _blockX * BLOCK_SIZE, i = y * this.width + x; x < maxX; x++, i++) {
+				if (_depthBuffer[i] > maxDepth) maxDepth = _depthBuffer[i];
+			}
+		}
+
+		this.blockMaxDepths[_block] = maxDepth;
+		this.isBlockDirty[_block] = false;
+	}
+
+	// Stale block maximums are conservative, so the tile's maximum over them is too (blocks past the target's edges don't count)
+	private void refreshTile(int _tile) {
+		int firstBlockX = (_tile % this.tilesX) * BLOCKS_PER_TILE;
+		int firstBlockY = (_tile / this.tilesX) * BLOCKS_PER_TILE;
+
+		int lastBlockX = Math.min(firstBlockX + BLOCKS_PER_TILE, (this.width  + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		int lastBlockY = Math.min(firstBlockY + BLOCKS_PER_TILE, (this.height + BLOCK_SIZE - 1) / BLOCK_SIZE);
+
+		float maxDepth = 0;
+
+		for (int blockY = firstBlockY; blockY < lastBlockY; blockY++) {
+			for (int blockX = firstBlockX; blockX < lastBlockX; blockX++) {
+				maxDepth = Math.max(maxDepth, this.blockMaxDepths[blockY * this.blocksX + blockX]);
+			}
+		}
+
+		this.tileMaxDepths[_tile] = maxDepth;
+	}
+}
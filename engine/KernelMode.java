@@ -0,0 +1,13 @@
+package engine;
+
+// Which inner loops fill the scanline spans and transform the vertices, selectable at runtime with Engine.setKernelMode()
+public enum KernelMode {
+	PER_PIXEL, // Barycentric weights evaluated for every pixel (scalar vertex transforms)
+	SCALAR,    // Depth and fixed-point colors stepped along each row (ScalarKernels)
+	VECTOR;    // Same results with the Vector API (VectorKernels), falls back to SCALAR when it is not available
+
+	// VECTOR needs the simd/ sources compiled and the JVM started with --add-modules jdk.incubator.vector
+	public boolean isAvailable() {
+		return this != VECTOR || Kernels.VECTOR != Kernels.SCALAR;
+	}
+}
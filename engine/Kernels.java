@@ -0,0 +1,35 @@
+package engine;
+
+// Inner loops of the scanline rasterizer and of the vertex stage : a scalar implementation (ScalarKernels) and an optional
+// one with the Vector API (VectorKernels, in simd/), which writes exactly the same values
+abstract class Kernels {
+	// Fixed point colors and brightnesses of the span kernels (16.16)
+	static final int FIXED_POINT_SHIFT = 16;
+	static final double FIXED_POINT_ONE = 1 << FIXED_POINT_SHIFT;
+
+	static final Kernels SCALAR = new ScalarKernels();
+	static final Kernels VECTOR = loadVectorKernels();
+
+	static Kernels get(KernelMode _mode) {
+		return (_mode == KernelMode.VECTOR) ? VECTOR : SCALAR;
+	}
+
+	// Pixels [_xStart; _xEnd] of the row starting at _rowOffset, given depth (w) and colors at _xStart and their steps along x.
+	// Returns the number of pixels written.
+	abstract int fillColoredSpan(int[] _colorBuffer, float[] _depthBuffer, int _rowOffset, int _xStart, int _xEnd, double _w, double _wStep, double _r, double _rStep, double _g, double _gStep, double _b, double _bStep);
+
+	// Points [_first; _last[ of _positions ((x, y, z) floats) times the row-major 4x4 _matrix, into _out as (x, y, z, w)
+	abstract void transformPoints(double[] _matrix, float[] _positions, int _first, int _last, double[] _out);
+
+	// The Vector API is an incubator module : it is only there when the JVM runs with --add-modules jdk.incubator.vector
+	private static Kernels loadVectorKernels() {
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) return SCALAR;
+
+		try {
+			return (Kernels) Class.forName("engine.VectorKernels").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+			// simd/ not compiled, or vectors too narrow to be worth it
+			return SCALAR;
+		}
+	}
+}
@@ -3,45 +3,75 @@ package engine;
 import java.util.ArrayList;
 
 public class Light {
+	// Below this, a light's contribution doesn't change a color channel (0-255) anymore
+	public static final double MIN_ILLUMINATION = 1 / 256.0;
+
 	public Vector position;
 
 	public double intensity;
 
+	// Nothing farther than this is lit by the light
+	public double radius;
+
+	// The radius is where the inverse square falloff gets below MIN_ILLUMINATION
 	public Light(Vector _position, double _intensity) {
+		this(_position, _intensity, Math.sqrt(Math.abs(_intensity) / MIN_ILLUMINATION));
+	}
+
+	public Light(Vector _position, double _intensity, double _radius) {
 		this.position = _position;
 		this.intensity = _intensity;
+		this.radius = _radius;
 	}
 	
 	public static float[] getIllimunation(Vector[] _rotatedVertices, Vector _surfaceNormal, ArrayList<Light> lights) {
 		float[] brightnesses = new float[3];
 		
-		for (int i = 0; i < 3; i++) {				
-			// For Every Light
-			for (Light light : lights) {
-				// No Need To Translate The Light's position and the triangle's position because it would cancel out
-				Vector vertexToLight = Vector.sub(light.position, _rotatedVertices[i]);
-
-				double distance = (double) vertexToLight.getLength();
-
-				vertexToLight.normalize();
-
-				double dotProductTriangleAndLight = Vector.dotProduct(vertexToLight, _surfaceNormal);
-					
-				if (dotProductTriangleAndLight > 0f) {
-					dotProductTriangleAndLight = Math.abs(dotProductTriangleAndLight);
-				} else {
-					dotProductTriangleAndLight = 0f;
-				}
-								
-				brightnesses[i] += (dotProductTriangleAndLight * light.intensity) / (distance * distance);
-			}
-							
-			if (brightnesses[i] > 1f) brightnesses[i] = 1f;
+		for (int i = 0; i < 3; i++) {
+			brightnesses[i] = getIllumination(_rotatedVertices[i].x, _rotatedVertices[i].y, _rotatedVertices[i].z, _surfaceNormal.x, _surfaceNormal.y, _surfaceNormal.z, lights);
 		}
 		
 		return brightnesses;
 	}
+
+	// Brightness (0-1) of a single point with the given normal
+	public static float getIllumination(double _x, double _y, double _z, double _normalX, double _normalY, double _normalZ, ArrayList<Light> lights) {
+		float brightness = 0f;
+
+		// For Every Light
+		for (Light light : lights) {
+			brightness += light.getIllumination(_x, _y, _z, _normalX, _normalY, _normalZ);
+		}
+						
+		if (brightness > 1f) brightness = 1f;
+
+		return brightness;
+	}
 	
+	// Brightness this light alone gives to a single point with the given normal
+	double getIllumination(double _x, double _y, double _z, double _normalX, double _normalY, double _normalZ) {
+		// No Need To Translate The Light's position and the vertex's position because it would cancel out
+		double vertexToLightX = this.position.x - _x;
+		double vertexToLightY = this.position.y - _y;
+		double vertexToLightZ = this.position.z - _z;
+
+		double distanceSquared = vertexToLightX * vertexToLightX + vertexToLightY * vertexToLightY + vertexToLightZ * vertexToLightZ;
+
+		if (distanceSquared > this.radius * this.radius) return 0;
+
+		double distance = Math.sqrt(distanceSquared);
+
+		vertexToLightX /= distance;
+		vertexToLightY /= distance;
+		vertexToLightZ /= distance;
+
+		double dotProductTriangleAndLight = vertexToLightX * _normalX + vertexToLightY * _normalY + vertexToLightZ * _normalZ;
+
+		if (dotProductTriangleAndLight <= 0) return 0;
+
+		return (dotProductTriangleAndLight * this.intensity) / (distance * distance);
+	}
+
 	public static Vector[] getColorsWIllumination(Vector[] _rotatedVertices, Vector _surfaceNormal, Vector[] _colors, ArrayList<Light> lights) {
 		// Total Brightness
 		Vector[] colorsWlighting = new Vector[3];
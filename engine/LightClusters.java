@@ -0,0 +1,175 @@
+package engine;
+
+import java.util.Arrays;
+
+// Per-frame light lists over the view frustum, split into CLUSTERS_X x CLUSTERS_Y screen tiles and CLUSTERS_Z depth
+// slices (exponentially spaced, so that near clusters stay small). A light is listed in every cluster its sphere of
+// influence (radius) may touch, so a vertex only evaluates the lights of its cluster instead of all of them.
+// https://www.aortiz.me/2018/12/21/CG.html
+//
+// Points outside of the frustum (vertices of triangles that get clipped) fall back to every light.
+class LightClusters {
+	static final int CLUSTERS_X = 16;
+	static final int CLUSTERS_Y = 8;
+	static final int CLUSTERS_Z = 24;
+
+	private static final int NUM_CLUSTERS = CLUSTERS_X * CLUSTERS_Y * CLUSTERS_Z;
+
+	private static final double MARGIN = 1e-6;
+
+	private Light[] lights = new Light[0]; // This frame's lights (without the removed ones)
+	private int numLights;
+
+	// The lights of cluster i are lights[clusterLights[clusterOffsets[i]]] ... lights[clusterLights[clusterOffsets[i + 1] - 1]]
+	private final int[] clusterOffsets = new int[NUM_CLUSTERS + 1];
+	private int[] clusterLights = new int[64];
+
+	private double zNear, sliceScale; // slice = log(w / zNear) * sliceScale
+	private double scaleX, scaleY;    // Clip x = scaleX * view x, clip y = scaleY * view y
+
+	private final double[] center = new double[3];
+
+	void build(SlotMap<Light> _lights, Matrix4 _viewMatrix, Matrix4 _perspectiveMatrix, double _zNear, double _zFar) {
+		this.zNear = _zNear;
+		this.sliceScale = CLUSTERS_Z / Math.log(_zFar / _zNear);
+		this.scaleX = _perspectiveMatrix.m[0];
+		this.scaleY = _perspectiveMatrix.m[5];
+
+		this.numLights = 0;
+
+		if (this.lights.length < _lights.size()) this.lights = new Light[_lights.size()];
+
+		for (int i = 0; i < _lights.size(); i++) {
+			Light light = _lights.getAt(i);
+
+			if (light.intensity != 0 && light.radius > 0) this.lights[this.numLights++] = light;
+		}
+
+		// Count, then fill (counting sort of the (cluster, light) pairs)
+		Arrays.fill(this.clusterOffsets, 0);
+
+		for (int i = 0; i < this.numLights; i++) this.addLight(i, _viewMatrix, false);
+
+		for (int i = 0, sum = 0; i <= NUM_CLUSTERS; i++) {
+			int count = this.clusterOffsets[i];
+
+			this.clusterOffsets[i] = sum;
+			sum += count;
+		}
+
+		if (this.clusterLights.length < this.clusterOffsets[NUM_CLUSTERS]) {
+			this.clusterLights = new int[Math.max(this.clusterOffsets[NUM_CLUSTERS], 2 * this.clusterLights.length)];
+		}
+
+		// clusterOffsets[i] is used as the insertion point, it ends up at the start of cluster i + 1
+		for (int i = 0; i < this.numLights; i++) this.addLight(i, _viewMatrix, true);
+
+		System.arraycopy(this.clusterOffsets, 0, this.clusterOffsets, 1, NUM_CLUSTERS);
+		this.clusterOffsets[0] = 0;
+	}
+
+	// Brightness (0-1) of a point (world space), whose clip space position is (_clipX, _clipY, _clipW)
+	float getIllumination(double _clipX, double _clipY, double _clipW, double _x, double _y, double _z, double _normalX, double _normalY, double _normalZ) {
+		float brightness = 0f;
+
+		int cluster = this.getCluster(_clipX, _clipY, _clipW);
+
+		if (cluster < 0) {
+			for (int i = 0; i < this.numLights; i++) {
+				brightness += this.lights[i].getIllumination(_x, _y, _z, _normalX, _normalY, _normalZ);
+			}
+		} else {
+			for (int i = this.clusterOffsets[cluster]; i < this.clusterOffsets[cluster + 1]; i++) {
+				brightness += this.lights[this.clusterLights[i]].getIllumination(_x, _y, _z, _normalX, _normalY, _normalZ);
+			}
+		}
+
+		if (brightness > 1f) brightness = 1f;
+
+		return brightness;
+	}
+
+	// -1 outside of the frustum
+	private int getCluster(double _clipX, double _clipY, double _clipW) {
+		if (!(_clipW >= this.zNear)) return -1;
+
+		double x = _clipX / _clipW, y = _clipY / _clipW;
+
+		if (x < -1 || x > 1 || y < -1 || y > 1) return -1;
+
+		int slice = (int) (Math.log(_clipW / this.zNear) * this.sliceScale);
+
+		if (slice >= CLUSTERS_Z) return -1;
+
+		int clusterX = Math.min(CLUSTERS_X - 1, (int) ((x + 1) / 2 * CLUSTERS_X));
+		int clusterY = Math.min(CLUSTERS_Y - 1, (int) ((y + 1) / 2 * CLUSTERS_Y));
+
+		return (slice * CLUSTERS_Y + clusterY) * CLUSTERS_X + clusterX;
+	}
+
+	// Counts the light in (or, when _doFill, writes it to) every cluster its bounding box may touch
+	private void addLight(int _light, Matrix4 _viewMatrix, boolean _doFill) {
+		Light light = this.lights[_light];
+
+		_viewMatrix.transformPoint(light.position.x, light.position.y, light.position.z, this.center, 0);
+
+		double radius = light.radius;
+		double minZ = Math.max(this.center[2] - radius, this.zNear);
+		double maxZ = this.center[2] + radius;
+
+		if (minZ > maxZ) return;
+
+		int firstSlice = this.getSlice(minZ), lastSlice = this.getSlice(maxZ);
+
+		for (int slice = firstSlice; slice <= lastSlice; slice++) {
+			// The part of the box's depth range within the slice (with some margin, getCluster() rounds differently)
+			double nearZ = Math.max(minZ, this.getSliceDepth(slice) * (1 - MARGIN));
+			double farZ  = Math.min(maxZ, this.getSliceDepth(slice + 1) * (1 + MARGIN));
+
+			if (nearZ > farZ) continue;
+
+			// x / z is monotonic in both x and z : the extremes are at the corners
+			double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+			for (int corner = 0; corner < 4; corner++) {
+				double z = ((corner & 1) != 0) ? farZ : nearZ;
+				double sign = ((corner & 2) != 0) ? 1 : -1;
+
+				double x = this.scaleX * (this.center[0] + sign * radius) / z;
+				double y = this.scaleY * (this.center[1] + sign * radius) / z;
+
+				minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+				minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+			}
+
+			if (maxX < -1 || minX > 1 || maxY < -1 || minY > 1) continue;
+
+			int firstX = getTile(minX - MARGIN, CLUSTERS_X), lastX = getTile(maxX + MARGIN, CLUSTERS_X);
+			int firstY = getTile(minY - MARGIN, CLUSTERS_Y), lastY = getTile(maxY + MARGIN, CLUSTERS_Y);
+
+			for (int clusterY = firstY; clusterY <= lastY; clusterY++) {
+				for (int clusterX = firstX; clusterX <= lastX; clusterX++) {
+					int cluster = (slice * CLUSTERS_Y + clusterY) * CLUSTERS_X + clusterX;
+
+					if (_doFill) {
+						this.clusterLights[this.clusterOffsets[cluster]++] = _light;
+					} else {
+						this.clusterOffsets[cluster]++;
+					}
+				}
+			}
+		}
+	}
+
+	private int getSlice(double _z) {
+		return Math.max(0, Math.min(CLUSTERS_Z - 1, (int) (Math.log(_z / this.zNear) * this.sliceScale)));
+	}
+
+	private double getSliceDepth(int _slice) {
+		return (_slice == 0) ? 0 : (_slice == CLUSTERS_Z) ? Double.POSITIVE_INFINITY : this.zNear * Math.exp(_slice / this.sliceScale);
+	}
+
+	private static int getTile(double _ndc, int _numTiles) {
+		return Math.max(0, Math.min(_numTiles - 1, (int) Math.floor((_ndc + 1) / 2 * _numTiles)));
+	}
+}
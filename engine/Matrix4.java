@@ -0,0 +1,181 @@
+package engine;
+
+import java.util.Arrays;
+
+// 4x4 matrix stored flat in row-major order : m[row * 4 + column]
+// Same convention as MatrixOperations : vectors are rows, v' = v * M, so A.mul(B) applies A first then B
+public class Matrix4 {
+	public final double[] m = new double[16];
+
+	public Matrix4() { this.setIdentity(); }
+
+	public Matrix4(double[][] _m) {
+		for (int row = 0; row < 4; row++) {
+			for (int column = 0; column < 4; column++) {
+				this.m[row * 4 + column] = _m[row][column];
+			}
+		}
+	}
+
+	public Matrix4 copy() { Matrix4 result = new Matrix4(); result.set(this); return result; }
+
+	public Matrix4 set(Matrix4 _other) { System.arraycopy(_other.m, 0, this.m, 0, 16); return this; }
+
+	public Matrix4 setIdentity() {
+		Arrays.fill(this.m, 0);
+
+		this.m[0] = this.m[5] = this.m[10] = this.m[15] = 1;
+
+		return this;
+	}
+
+	public Matrix4 setTranslation(double _x, double _y, double _z) {
+		this.setIdentity();
+
+		this.m[12] = _x; this.m[13] = _y; this.m[14] = _z;
+
+		return this;
+	}
+
+	// Same as multiplying MatrixOperations' X, Y then Z rotation matrices (https://www.siggraph.org/education/materials/HyperGraph/modeling/mod_tran/3drota.htm#Z)
+	public Matrix4 setRotation(double _x, double _y, double _z) {
+		double cx = Math.cos(_x), sx = Math.sin(_x);
+		double cy = Math.cos(_y), sy = Math.sin(_y);
+		double cz = Math.cos(_z), sz = Math.sin(_z);
+
+		this.setIdentity();
+
+		this.m[0] = cy * cz;                this.m[1] = cy * sz;                this.m[2]  = -sy;
+		this.m[4] = sx * sy * cz - cx * sz; this.m[5] = sx * sy * sz + cx * cz; this.m[6]  = sx * cy;
+		this.m[8] = cx * sy * cz + sx * sz; this.m[9] = cx * sy * sz - sx * cz; this.m[10] = cx * cy;
+
+		return this;
+	}
+
+	// Rotation around a point : translate by -midPoint, rotate, translate back
+	public Matrix4 setRotation(Vector _rotation, Vector _midPoint) {
+		this.setRotation(_rotation.x, _rotation.y, _rotation.z);
+
+		this.m[12] = _midPoint.x - (_midPoint.x * this.m[0] + _midPoint.y * this.m[4] + _midPoint.z * this.m[8]);
+		this.m[13] = _midPoint.y - (_midPoint.x * this.m[1] + _midPoint.y * this.m[5] + _midPoint.z * this.m[9]);
+		this.m[14] = _midPoint.z - (_midPoint.x * this.m[2] + _midPoint.y * this.m[6] + _midPoint.z * this.m[10]);
+
+		return this;
+	}
+
+	// this = this * other
+	public Matrix4 mul(Matrix4 _other) {
+		multiply(this, _other, this);
+
+		return this;
+	}
+
+	// result = a * b (result may be a or b)
+	public static void multiply(Matrix4 _a, Matrix4 _b, Matrix4 _result) {
+		double[] a = _a.m, b = _b.m;
+
+		double r0  = a[0]  * b[0] + a[1]  * b[4] + a[2]  * b[8]  + a[3]  * b[12];
+		double r1  = a[0]  * b[1] + a[1]  * b[5] + a[2]  * b[9]  + a[3]  * b[13];
+		double r2  = a[0]  * b[2] + a[1]  * b[6] + a[2]  * b[10] + a[3]  * b[14];
+		double r3  = a[0]  * b[3] + a[1]  * b[7] + a[2]  * b[11] + a[3]  * b[15];
+		double r4  = a[4]  * b[0] + a[5]  * b[4] + a[6]  * b[8]  + a[7]  * b[12];
+		double r5  = a[4]  * b[1] + a[5]  * b[5] + a[6]  * b[9]  + a[7]  * b[13];
+		double r6  = a[4]  * b[2] + a[5]  * b[6] + a[6]  * b[10] + a[7]  * b[14];
+		double r7  = a[4]  * b[3] + a[5]  * b[7] + a[6]  * b[11] + a[7]  * b[15];
+		double r8  = a[8]  * b[0] + a[9]  * b[4] + a[10] * b[8]  + a[11] * b[12];
+		double r9  = a[8]  * b[1] + a[9]  * b[5] + a[10] * b[9]  + a[11] * b[13];
+		double r10 = a[8]  * b[2] + a[9]  * b[6] + a[10] * b[10] + a[11] * b[14];
+		double r11 = a[8]  * b[3] + a[9]  * b[7] + a[10] * b[11] + a[11] * b[15];
+		double r12 = a[12] * b[0] + a[13] * b[4] + a[14] * b[8]  + a[15] * b[12];
+		double r13 = a[12] * b[1] + a[13] * b[5] + a[14] * b[9]  + a[15] * b[13];
+		double r14 = a[12] * b[2] + a[13] * b[6] + a[14] * b[10] + a[15] * b[14];
+		double r15 = a[12] * b[3] + a[13] * b[7] + a[14] * b[11] + a[15] * b[15];
+
+		double[] r = _result.m;
+
+		r[0]  = r0;  r[1]  = r1;  r[2]  = r2;  r[3]  = r3;
+		r[4]  = r4;  r[5]  = r5;  r[6]  = r6;  r[7]  = r7;
+		r[8]  = r8;  r[9]  = r9;  r[10] = r10; r[11] = r11;
+		r[12] = r12; r[13] = r13; r[14] = r14; r[15] = r15;
+	}
+
+	public static Matrix4 multiply(Matrix4 _a, Matrix4 _b) { Matrix4 result = new Matrix4(); multiply(_a, _b, result); return result; }
+
+	// Inverts the matrix in place, returns false (and leaves it untouched) if it is singular
+	// https://stackoverflow.com/questions/1148309/inverting-a-4x4-matrix
+	public boolean invert() {
+		double[] m = this.m;
+		double[] inv = new double[16];
+
+		inv[0]  =  m[5] * m[10] * m[15] - m[5] * m[11] * m[14] - m[9] * m[6] * m[15] + m[9] * m[7] * m[14] + m[13] * m[6] * m[11] - m[13] * m[7] * m[10];
+		inv[4]  = -m[4] * m[10] * m[15] + m[4] * m[11] * m[14] + m[8] * m[6] * m[15] - m[8] * m[7] * m[14] - m[12] * m[6] * m[11] + m[12] * m[7] * m[10];
+		inv[8]  =  m[4] * m[9]  * m[15] - m[4] * m[11] * m[13] - m[8] * m[5] * m[15] + m[8] * m[7] * m[13] + m[12] * m[5] * m[11] - m[12] * m[7] * m[9];
+		inv[12] = -m[4] * m[9]  * m[14] + m[4] * m[10] * m[13] + m[8] * m[5] * m[14] - m[8] * m[6] * m[13] - m[12] * m[5] * m[10] + m[12] * m[6] * m[9];
+		inv[1]  = -m[1] * m[10] * m[15] + m[1] * m[11] * m[14] + m[9] * m[2] * m[15] - m[9] * m[3] * m[14] - m[13] * m[2] * m[11] + m[13] * m[3] * m[10];
+		inv[5]  =  m[0] * m[10] * m[15] - m[0] * m[11] * m[14] - m[8] * m[2] * m[15] + m[8] * m[3] * m[14] + m[12] * m[2] * m[11] - m[12] * m[3] * m[10];
+		inv[9]  = -m[0] * m[9]  * m[15] + m[0] * m[11] * m[13] + m[8] * m[1] * m[15] - m[8] * m[3] * m[13] - m[12] * m[1] * m[11] + m[12] * m[3] * m[9];
+		inv[13] =  m[0] * m[9]  * m[14] - m[0] * m[10] * m[13] - m[8] * m[1] * m[14] + m[8] * m[2] * m[13] + m[12] * m[1] * m[10] - m[12] * m[2] * m[9];
+		inv[2]  =  m[1] * m[6]  * m[15] - m[1] * m[7]  * m[14] - m[5] * m[2] * m[15] + m[5] * m[3] * m[14] + m[13] * m[2] * m[7]  - m[13] * m[3] * m[6];
+		inv[6]  = -m[0] * m[6]  * m[15] + m[0] * m[7]  * m[14] + m[4] * m[2] * m[15] - m[4] * m[3] * m[14] - m[12] * m[2] * m[7]  + m[12] * m[3] * m[6];
+		inv[10] =  m[0] * m[5]  * m[15] - m[0] * m[7]  * m[13] - m[4] * m[1] * m[15] + m[4] * m[3] * m[13] + m[12] * m[1] * m[7]  - m[12] * m[3] * m[5];
+		inv[14] = -m[0] * m[5]  * m[14] + m[0] * m[6]  * m[13] + m[4] * m[1] * m[14] - m[4] * m[2] * m[13] - m[12] * m[1] * m[6]  + m[12] * m[2] * m[5];
+		inv[3]  = -m[1] * m[6]  * m[11] + m[1] * m[7]  * m[10] + m[5] * m[2] * m[11] - m[5] * m[3] * m[10] - m[9]  * m[2] * m[7]  + m[9]  * m[3] * m[6];
+		inv[7]  =  m[0] * m[6]  * m[11] - m[0] * m[7]  * m[10] - m[4] * m[2] * m[11] + m[4] * m[3] * m[10] + m[8]  * m[2] * m[7]  - m[8]  * m[3] * m[6];
+		inv[11] = -m[0] * m[5]  * m[11] + m[0] * m[7]  * m[9]  + m[4] * m[1] * m[11] - m[4] * m[3] * m[9]  - m[8]  * m[1] * m[7]  + m[8]  * m[3] * m[5];
+		inv[15] =  m[0] * m[5]  * m[10] - m[0] * m[6]  * m[9]  - m[4] * m[1] * m[10] + m[4] * m[2] * m[9]  + m[8]  * m[1] * m[6]  - m[8]  * m[2] * m[5];
+
+		double determinant = m[0] * inv[0] + m[1] * inv[4] + m[2] * inv[8] + m[3] * inv[12];
+
+		if (determinant == 0) return false;
+
+		for (int i = 0; i < 16; i++) {
+			m[i] = inv[i] / determinant;
+		}
+
+		return true;
+	}
+
+	public static Matrix4 invert(Matrix4 _m) { Matrix4 result = _m.copy(); result.invert(); return result; }
+
+	// Point (w = 1) : writes (x, y, z, w) into _out[_offset] to _out[_offset + 3]
+	public void transform(double _x, double _y, double _z, double[] _out, int _offset) {
+		double[] m = this.m;
+
+		_out[_offset]     = m[0] * _x + m[4] * _y + m[8]  * _z + m[12];
+		_out[_offset + 1] = m[1] * _x + m[5] * _y + m[9]  * _z + m[13];
+		_out[_offset + 2] = m[2] * _x + m[6] * _y + m[10] * _z + m[14];
+		_out[_offset + 3] = m[3] * _x + m[7] * _y + m[11] * _z + m[15];
+	}
+
+	// transform() of the points [_first; _last[ of _positions ((x, y, z) per point), into _out as (x, y, z, w) per point.
+	// With KernelMode.VECTOR, several points at a time when the Vector API is available (same results).
+	public void transformPoints(float[] _positions, int _first, int _last, double[] _out, KernelMode _mode) {
+		Kernels.get(_mode).transformPoints(this.m, _positions, _first, _last, _out);
+	}
+
+	// Point (w = 1) for affine matrices : writes (x, y, z) into _out[_offset] to _out[_offset + 2]
+	public void transformPoint(double _x, double _y, double _z, double[] _out, int _offset) {
+		double[] m = this.m;
+
+		_out[_offset]     = m[0] * _x + m[4] * _y + m[8]  * _z + m[12];
+		_out[_offset + 1] = m[1] * _x + m[5] * _y + m[9]  * _z + m[13];
+		_out[_offset + 2] = m[2] * _x + m[6] * _y + m[10] * _z + m[14];
+	}
+
+	// Direction (w = 0, translation ignored) : writes (x, y, z) into _out[_offset] to _out[_offset + 2]
+	public void transformDirection(double _x, double _y, double _z, double[] _out, int _offset) {
+		double[] m = this.m;
+
+		_out[_offset]     = m[0] * _x + m[4] * _y + m[8]  * _z;
+		_out[_offset + 1] = m[1] * _x + m[5] * _y + m[9]  * _z;
+		_out[_offset + 2] = m[2] * _x + m[6] * _y + m[10] * _z;
+	}
+
+	public static Matrix4 translation(double _x, double _y, double _z) { return new Matrix4().setTranslation(_x, _y, _z); }
+
+	public static Matrix4 rotation(double _x, double _y, double _z) { return new Matrix4().setRotation(_x, _y, _z); }
+
+	public static Matrix4 perspective(double _width, double _height, double _fov, double _zNear, double _zFar) {
+		return new Matrix4(MatrixOperations.createPerspectiveMatrix(_width, _height, _fov, _zNear, _zFar));
+	}
+}
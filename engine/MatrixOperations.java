@@ -2,8 +2,8 @@ package engine;
 
 public class MatrixOperations {
 	public static double[][] createPerspectiveMatrix(double _width, double _height, double _fov, double _zNear, double _zFar) {
-		double aspectRatio = _height / (double) _width;
-		double a = (double) (1.f / Math.tan(_fov * 0.5 * 180.f / 3.1415926));
+		double aspectRatio = _height / _width;
+		double a = 1.f / Math.tan(_fov * 0.5 * 180.f / 3.1415926);
 
 		if (a > 0) a = -a;
 
@@ -0,0 +1,114 @@
+package engine;
+
+// Indexed triangle mesh : every vertex is stored once and triangles reference them through the index buffer
+public class Mesh {
+	public final float[] positions; // (x, y, z) per vertex
+	public final float[] normals;   // (x, y, z) per vertex, averaged from the surrounding faces
+	public final float[] uvs;       // (u, v) per vertex, null if the mesh has no texture coordinates
+	public final float[] colors;    // (r, g, b) per vertex, between 0 and 255
+	public final int[]   indices;   // 3 per triangle
+
+	public final float[] bounds;    // Object space bounding box (min x, y, z, max x, y, z)
+
+	// Simplified versions, each with about half the triangles of the previous one (within the same bounds)
+	public Mesh[] lods = new Mesh[0];
+
+	public Mesh(float[] _positions, float[] _colors, int[] _indices) {
+		this(_positions, null, null, _colors, _indices);
+	}
+
+	// Normals are computed from the faces when _normals is null
+	public Mesh(float[] _positions, float[] _normals, float[] _uvs, float[] _colors, int[] _indices) {
+		this(_positions, _normals, _uvs, _colors, _indices, computeBounds(_positions));
+	}
+
+	Mesh(float[] _positions, float[] _normals, float[] _uvs, float[] _colors, int[] _indices, float[] _bounds) {
+		this.positions = _positions;
+		this.normals   = (_normals != null) ? _normals : computeNormals(_positions, _indices);
+		this.uvs       = _uvs;
+		this.colors    = _colors;
+		this.indices   = _indices;
+		this.bounds    = _bounds;
+	}
+
+	public int numVertices()  { return this.positions.length / 3; }
+	public int numTriangles() { return this.indices.length / 3; }
+
+	// Bytes taken by the arrays (levels of detail included)
+	public long getMemorySize() {
+		long size = 4L * (this.positions.length + this.normals.length + this.colors.length + this.indices.length + this.bounds.length + ((this.uvs != null) ? this.uvs.length : 0));
+
+		for (Mesh lod : this.lods) size += lod.getMemorySize();
+
+		return size;
+	}
+
+	// Same geometry (arrays shared, levels of detail included) with colors of its own, which can be changed
+	// without affecting the other users of this mesh
+	public Mesh copyWithOwnColors() {
+		Mesh copy = new Mesh(this.positions, this.normals, this.uvs, this.colors.clone(), this.indices, this.bounds);
+
+		copy.lods = new Mesh[this.lods.length];
+
+		for (int i = 0; i < this.lods.length; i++) copy.lods[i] = this.lods[i].copyWithOwnColors();
+
+		return copy;
+	}
+
+	// Level 0 is the mesh itself
+	public Mesh getLod(int _level) {
+		return (_level == 0) ? this : this.lods[_level - 1];
+	}
+
+	// Quadric error edge collapse, slow on big meshes : done once when a model is loaded (and cached along with it)
+	public void generateLods() {
+		this.lods = MeshSimplifier.generateLods(this);
+	}
+
+	public static float[] computeNormals(float[] _positions, int[] _indices) {
+		double[] sums = new double[_positions.length];
+
+		for (int i = 0; i < _indices.length; i += 3) {
+			int a = 3 * _indices[i], b = 3 * _indices[i + 1], c = 3 * _indices[i + 2];
+
+			// Not normalized : larger faces weigh more (https://www.khronos.org/opengl/wiki/Calculating_a_Surface_Normal)
+			double uX = _positions[b] - _positions[a], uY = _positions[b + 1] - _positions[a + 1], uZ = _positions[b + 2] - _positions[a + 2];
+			double vX = _positions[c] - _positions[a], vY = _positions[c + 1] - _positions[a + 1], vZ = _positions[c + 2] - _positions[a + 2];
+
+			double nX = uY * vZ - uZ * vY;
+			double nY = uZ * vX - uX * vZ;
+			double nZ = uX * vY - uY * vX;
+
+			sums[a] += nX; sums[a + 1] += nY; sums[a + 2] += nZ;
+			sums[b] += nX; sums[b + 1] += nY; sums[b + 2] += nZ;
+			sums[c] += nX; sums[c + 1] += nY; sums[c + 2] += nZ;
+		}
+
+		float[] normals = new float[_positions.length];
+
+		for (int i = 0; i < sums.length; i += 3) {
+			double length = Math.sqrt(sums[i] * sums[i] + sums[i + 1] * sums[i + 1] + sums[i + 2] * sums[i + 2]);
+
+			if (length > 0) {
+				normals[i]     = (float) (sums[i]     / length);
+				normals[i + 1] = (float) (sums[i + 1] / length);
+				normals[i + 2] = (float) (sums[i + 2] / length);
+			}
+		}
+
+		return normals;
+	}
+
+	public static float[] computeBounds(float[] _positions) {
+		float[] bounds = new float[] { 0, 0, 0, 0, 0, 0 };
+
+		for (int i = 0; i < _positions.length; i += 3) {
+			for (int c = 0; c < 3; c++) {
+				if (i == 0 || _positions[i + c] < bounds[c])     bounds[c]     = _positions[i + c];
+				if (i == 0 || _positions[i + c] > bounds[c + 3]) bounds[c + 3] = _positions[i + c];
+			}
+		}
+
+		return bounds;
+	}
+}
@@ -0,0 +1,73 @@
+package engine;
+
+// BVH over the triangles of a scene object (a triangle range of its mesh), in object space.
+// Every node also knows the range of vertices its triangles use, so that the vertices of the leaves
+// outside of the view don't have to be transformed at all.
+class MeshBVH extends BVH {
+	static final int LEAF_SIZE = 256;
+
+	final Mesh mesh; // The mesh this was built for (SceneObject.mesh can be replaced)
+	final int firstTriangle, numTriangles;
+
+	// Per node : the triangles use vertices [firstVertex; lastVertex[ (the root's range covers the whole BVH)
+	final int[] firstVertex, lastVertex;
+
+	MeshBVH(Mesh _mesh, int _firstTriangle, int _numTriangles) {
+		super(computeTriangleBounds(_mesh, _firstTriangle, _numTriangles), _numTriangles, LEAF_SIZE);
+
+		this.mesh = _mesh;
+		this.firstTriangle = _firstTriangle;
+		this.numTriangles  = _numTriangles;
+
+		this.firstVertex = new int[this.numNodes];
+		this.lastVertex  = new int[this.numNodes];
+
+		for (int node = 0; node < this.numNodes; node++) {
+			if (this.count[node] < 0) continue;
+
+			int firstVertex = _mesh.numVertices(), lastVertex = 0;
+
+			for (int i = this.first[node]; i < this.first[node] + this.count[node]; i++) {
+				int triangle = this.getTriangle(i);
+
+				for (int corner = 0; corner < 3; corner++) {
+					firstVertex = Math.min(firstVertex, _mesh.indices[3 * triangle + corner]);
+					lastVertex  = Math.max(lastVertex,  _mesh.indices[3 * triangle + corner] + 1);
+				}
+			}
+
+			this.firstVertex[node] = Math.min(firstVertex, lastVertex);
+			this.lastVertex[node]  = lastVertex;
+		}
+
+		// Children come after their parent
+		for (int node = this.numNodes - 1; node >= 0; node--) {
+			if (this.count[node] >= 0) continue;
+
+			int left = this.first[node];
+
+			this.firstVertex[node] = Math.min(this.firstVertex[left], this.firstVertex[left + 1]);
+			this.lastVertex[node]  = Math.max(this.lastVertex[left],  this.lastVertex[left + 1]);
+		}
+	}
+
+	// The mesh triangle at position _i of the order
+	int getTriangle(int _i) { return this.firstTriangle + this.order[_i]; }
+
+	private static float[] computeTriangleBounds(Mesh _mesh, int _firstTriangle, int _numTriangles) {
+		float[] bounds = new float[6 * _numTriangles];
+
+		for (int i = 0; i < _numTriangles; i++) {
+			for (int corner = 0; corner < 3; corner++) {
+				int vertex = 3 * _mesh.indices[3 * (_firstTriangle + i) + corner];
+
+				for (int c = 0; c < 3; c++) {
+					if (corner == 0 || _mesh.positions[vertex + c] < bounds[6 * i + c])     bounds[6 * i + c]     = _mesh.positions[vertex + c];
+					if (corner == 0 || _mesh.positions[vertex + c] > bounds[6 * i + c + 3]) bounds[6 * i + c + 3] = _mesh.positions[vertex + c];
+				}
+			}
+		}
+
+		return bounds;
+	}
+}
@@ -0,0 +1,202 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Compiled meshes, so that a model is only parsed the first time it is loaded.
+// A cache file is keyed by the model's absolute path, size and modification time, and is read back
+// through a memory mapped FileChannel with bulk copies (no parsing).
+//
+// Format (little endian) :
+//   int magic, int version, long source size, long source modification time (ms),
+//   int path length, path (UTF-8), padding to a multiple of 4,
+//   int level count, then for the mesh and each of its levels of detail :
+//     int vertex count, int triangle count, int flags,
+//     float[6] bounds (min x, y, z, max x, y, z),
+//     float[3 * vertices] positions, float[3 * vertices] normals, float[2 * vertices] uvs (if HAS_UVS),
+//     int[3 * triangles] indices
+class MeshCache {
+	static final int MAGIC   = 0x4853454D; // "MESH"
+	static final int VERSION = 2;
+
+	static final int HAS_UVS = 1;
+
+	static Path directory = Paths.get(".meshcache");
+
+	// The mesh in _path, from the cache when it is up to date, parsed (and cached) otherwise
+	static Mesh load(String _path) throws IOException {
+		Path source = Paths.get(_path).toAbsolutePath().normalize();
+
+		long sourceSize = Files.size(source);
+		long sourceModifiedTime = Files.getLastModifiedTime(source).toMillis();
+
+		Path cacheFile = directory.resolve(String.format("%016x.mesh", hash(source.toString())));
+
+		if (Files.exists(cacheFile)) {
+			try {
+				Mesh mesh = read(cacheFile, source.toString(), sourceSize, sourceModifiedTime);
+
+				if (mesh != null) return mesh;
+			} catch (IOException | RuntimeException e) {
+				System.out.println("Ignoring broken mesh cache " + cacheFile + " (" + e + ")");
+			}
+		}
+
+		Mesh mesh = ObjParser.parse(_path);
+
+		mesh.generateLods();
+
+		try {
+			write(cacheFile, mesh, source.toString(), sourceSize, sourceModifiedTime);
+		} catch (IOException e) {
+			System.out.println("Could not write mesh cache " + cacheFile + " (" + e + ")");
+		}
+
+		return mesh;
+	}
+
+	// Returns null if the cache file was made from another version of the source
+	static Mesh read(Path _cacheFile, String _source, long _sourceSize, long _sourceModifiedTime) throws IOException {
+		try (FileChannel channel = FileChannel.open(_cacheFile, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+
+			if (buffer.getLong() != _sourceSize || buffer.getLong() != _sourceModifiedTime) return null;
+
+			byte[] path = new byte[buffer.getInt()];
+
+			buffer.get(path);
+
+			if (!new String(path, StandardCharsets.UTF_8).equals(_source)) return null;
+
+			buffer.position(align(buffer.position()));
+
+			Mesh[] levels = new Mesh[buffer.getInt()];
+
+			for (int i = 0; i < levels.length; i++) levels[i] = readMesh(buffer);
+
+			levels[0].lods = Arrays.copyOfRange(levels, 1, levels.length);
+
+			return levels[0];
+		}
+	}
+
+	private static Mesh readMesh(ByteBuffer _buffer) {
+		int numVertices  = _buffer.getInt();
+		int numTriangles = _buffer.getInt();
+		int flags        = _buffer.getInt();
+
+		float[] bounds    = new float[6];
+		float[] positions = new float[3 * numVertices];
+		float[] normals   = new float[3 * numVertices];
+		float[] uvs       = ((flags & HAS_UVS) != 0) ? new float[2 * numVertices] : null;
+		int[]   indices   = new int[3 * numTriangles];
+
+		_buffer.asFloatBuffer().get(bounds).get(positions).get(normals);
+		_buffer.position(_buffer.position() + 4 * (bounds.length + positions.length + normals.length));
+
+		if (uvs != null) {
+			_buffer.asFloatBuffer().get(uvs);
+			_buffer.position(_buffer.position() + 4 * uvs.length);
+		}
+
+		_buffer.asIntBuffer().get(indices);
+		_buffer.position(_buffer.position() + 4 * indices.length);
+
+		float[] colors = new float[3 * numVertices];
+
+		Arrays.fill(colors, 255);
+
+		return new Mesh(positions, normals, uvs, colors, indices, bounds);
+	}
+
+	// Written to a temporary file first, so that a reader never sees a partial cache file
+	static void write(Path _cacheFile, Mesh _mesh, String _source, long _sourceSize, long _sourceModifiedTime) throws IOException {
+		byte[] path = _source.getBytes(StandardCharsets.UTF_8);
+
+		int numLevels = 1 + _mesh.lods.length;
+
+		int headerSize = align(28 + path.length) + 4;
+		int dataSize   = 0;
+
+		for (int i = 0; i < numLevels; i++) dataSize += getDataSize(_mesh.getLod(i));
+
+		ByteBuffer buffer = ByteBuffer.allocate(headerSize + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(MAGIC).putInt(VERSION);
+		buffer.putLong(_sourceSize).putLong(_sourceModifiedTime);
+		buffer.putInt(path.length).put(path);
+		buffer.position(align(buffer.position()));
+
+		buffer.putInt(numLevels);
+
+		for (int i = 0; i < numLevels; i++) writeMesh(buffer, _mesh.getLod(i));
+
+		buffer.position(0);
+
+		Files.createDirectories(_cacheFile.toAbsolutePath().getParent());
+
+		Path temporaryFile = Files.createTempFile(_cacheFile.toAbsolutePath().getParent(), "mesh", ".tmp");
+
+		try {
+			try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining()) channel.write(buffer);
+			}
+
+			Files.move(temporaryFile, _cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			// Already moved if everything went well, otherwise no half written file is left next to the cache
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private static int getDataSize(Mesh _mesh) {
+		int numVertices = _mesh.numVertices();
+
+		return 12 + 4 * (_mesh.bounds.length + 6 * numVertices + ((_mesh.uvs != null) ? 2 * numVertices : 0) + _mesh.indices.length);
+	}
+
+	private static void writeMesh(ByteBuffer _buffer, Mesh _mesh) {
+		_buffer.putInt(_mesh.numVertices()).putInt(_mesh.numTriangles()).putInt((_mesh.uvs != null) ? HAS_UVS : 0);
+
+		_buffer.asFloatBuffer().put(_mesh.bounds).put(_mesh.positions).put(_mesh.normals);
+		_buffer.position(_buffer.position() + 4 * (_mesh.bounds.length + _mesh.positions.length + _mesh.normals.length));
+
+		if (_mesh.uvs != null) {
+			_buffer.asFloatBuffer().put(_mesh.uvs);
+			_buffer.position(_buffer.position() + 4 * _mesh.uvs.length);
+		}
+
+		_buffer.asIntBuffer().put(_mesh.indices);
+		_buffer.position(_buffer.position() + 4 * _mesh.indices.length);
+	}
+
+	private static int align(int _position) {
+		return (_position + 3) & ~3;
+	}
+
+	// 64 bit FNV-1a (https://en.wikipedia.org/wiki/Fowler%E2%80%93Noll%E2%80%93Vo_hash_function)
+	private static long hash(String _string) {
+		long hash = 0xcbf29ce484222325L;
+
+		for (byte b : _string.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
+	}
+}
@@ -0,0 +1,567 @@
+package engine;
+
+import java.util.Arrays;
+
+// Mesh simplification by quadric error edge collapse (Garland & Heckbert).
+// https://www.cs.cmu.edu/~garland/Papers/quadrics.pdf
+//
+// Every vertex accumulates the squared distances to the planes of its original triangles (a quadric);
+// the edge whose collapse adds the least error is collapsed first, into the point minimizing the error.
+// Open borders (and the seams of split vertices) get extra planes perpendicular to them so they keep their shape,
+// and collapses that would flip a triangle over are refused.
+class MeshSimplifier {
+	static final int MIN_TRIANGLES = 64;   // No level of detail is made smaller than this
+	static final int MAX_LEVELS    = 6;
+
+	private static final double BORDER_WEIGHT = 1000;
+	private static final double MIN_NORMAL_DOT = 0.2; // Largest rotation of a triangle a collapse may cause (cosine)
+
+	private final int numVertices;
+	private final double[] positions;
+	private final double[] quadrics; // 10 per vertex : xx, xy, xz, x, yy, yz, y, zz, z, 1
+	private final float[] normals, uvs, colors;
+	private final float[] bounds;
+
+	private final int[] indices;
+	private final boolean[] isTriangleRemoved;
+	private int numTriangles;
+
+	// Triangles around every vertex (may hold removed triangles, until the vertex's list is next cleaned)
+	private int[][] vertexTriangles;
+	private int[] numVertexTriangles;
+
+	private final int[] versions; // Bumped when a vertex changes, to invalidate its queued edges
+	private final boolean[] isVertexRemoved;
+
+	private final EdgeHeap heap = new EdgeHeap();
+	private final double[] target = new double[3];
+
+	// Simplified versions of the mesh, every one with about half the triangles of the previous one
+	static Mesh[] generateLods(Mesh _mesh) {
+		Mesh[] lods = new Mesh[0];
+		Mesh mesh = _mesh;
+
+		while (lods.length < MAX_LEVELS && mesh.numTriangles() / 2 >= MIN_TRIANGLES) {
+			Mesh lod = simplify(mesh, mesh.numTriangles() / 2);
+
+			// Stuck (borders, flips) : coarser levels wouldn't be much cheaper
+			if (lod.numTriangles() > 0.75 * mesh.numTriangles()) break;
+
+			lods = Arrays.copyOf(lods, lods.length + 1);
+			lods[lods.length - 1] = lod;
+			mesh = lod;
+		}
+
+		return lods;
+	}
+
+	static Mesh simplify(Mesh _mesh, int _targetTriangles) {
+		MeshSimplifier simplifier = new MeshSimplifier(_mesh);
+
+		simplifier.collapse(_targetTriangles);
+
+		return simplifier.toMesh();
+	}
+
+	private MeshSimplifier(Mesh _mesh) {
+		this.numVertices = _mesh.numVertices();
+		this.numTriangles = _mesh.numTriangles();
+
+		this.positions = new double[3 * this.numVertices];
+
+		for (int i = 0; i < this.positions.length; i++) this.positions[i] = _mesh.positions[i];
+
+		this.normals = _mesh.normals.clone();
+		this.uvs     = (_mesh.uvs != null) ? _mesh.uvs.clone() : null;
+		this.colors  = _mesh.colors.clone();
+		this.indices = _mesh.indices.clone();
+
+		this.isTriangleRemoved = new boolean[this.numTriangles];
+		this.isVertexRemoved   = new boolean[this.numVertices];
+		this.versions          = new int[this.numVertices];
+		this.quadrics          = new double[10 * this.numVertices];
+
+		// Collapsed vertices are kept within the (used) vertices' bounds, so that the full mesh's bounds hold for every level
+		this.bounds = new float[] { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+
+		for (int vertex : this.indices) {
+			for (int c = 0; c < 3; c++) {
+				this.bounds[c]     = Math.min(this.bounds[c],     _mesh.positions[3 * vertex + c]);
+				this.bounds[c + 3] = Math.max(this.bounds[c + 3], _mesh.positions[3 * vertex + c]);
+			}
+		}
+
+		this.buildAdjacency();
+		this.buildQuadrics();
+	}
+
+	private void buildAdjacency() {
+		this.numVertexTriangles = new int[this.numVertices];
+
+		for (int vertex : this.indices) this.numVertexTriangles[vertex]++;
+
+		this.vertexTriangles = new int[this.numVertices][];
+
+		for (int i = 0; i < this.numVertices; i++) {
+			this.vertexTriangles[i] = new int[Math.max(this.numVertexTriangles[i], 4)];
+			this.numVertexTriangles[i] = 0;
+		}
+
+		for (int i = 0; i < this.indices.length; i++) {
+			this.addVertexTriangle(this.indices[i], i / 3);
+		}
+	}
+
+	private void buildQuadrics() {
+		double[] plane = new double[4];
+
+		for (int triangle = 0; triangle < this.numTriangles; triangle++) {
+			// Weighted by area, so that a few slivers don't outweigh the surface around them
+			double area = this.computePlane(triangle, plane);
+
+			for (int corner = 0; corner < 3; corner++) {
+				addPlane(this.quadrics, 10 * this.indices[3 * triangle + corner], plane, area);
+			}
+		}
+
+		// Edges used by a single triangle are borders : found as the (min vertex, max vertex) keys that appear once
+		long[] edges = new long[this.indices.length];
+
+		for (int i = 0; i < this.indices.length; i++) {
+			int a = this.indices[i], b = this.indices[(i % 3 == 2) ? i - 2 : i + 1];
+
+			edges[i] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+		}
+
+		long[] sorted = edges.clone();
+
+		Arrays.sort(sorted);
+
+		for (int i = 0; i < this.indices.length; i++) {
+			int found = Arrays.binarySearch(sorted, edges[i]);
+
+			boolean isBorder = (found == 0 || sorted[found - 1] != edges[i]) && (found == sorted.length - 1 || sorted[found + 1] != edges[i]);
+
+			if (!isBorder) continue;
+
+			int a = this.indices[i], b = this.indices[(i % 3 == 2) ? i - 2 : i + 1];
+
+			this.computePlane(i / 3, plane);
+
+			// Plane through the edge, perpendicular to the triangle
+			double eX = this.positions[3 * b] - this.positions[3 * a];
+			double eY = this.positions[3 * b + 1] - this.positions[3 * a + 1];
+			double eZ = this.positions[3 * b + 2] - this.positions[3 * a + 2];
+
+			double nX = eY * plane[2] - eZ * plane[1];
+			double nY = eZ * plane[0] - eX * plane[2];
+			double nZ = eX * plane[1] - eY * plane[0];
+
+			double length = Math.sqrt(nX * nX + nY * nY + nZ * nZ);
+
+			if (length == 0) continue;
+
+			double[] border = new double[] { nX / length, nY / length, nZ / length, 0 };
+
+			border[3] = -(border[0] * this.positions[3 * a] + border[1] * this.positions[3 * a + 1] + border[2] * this.positions[3 * a + 2]);
+
+			double weight = BORDER_WEIGHT * (eX * eX + eY * eY + eZ * eZ);
+
+			addPlane(this.quadrics, 10 * a, border, weight);
+			addPlane(this.quadrics, 10 * b, border, weight);
+		}
+
+		// Every edge once (the lower vertex first)
+		for (int i = 0; i < sorted.length; i++) {
+			if (i > 0 && sorted[i] == sorted[i - 1]) continue;
+
+			this.pushEdge((int) (sorted[i] >>> 32), (int) sorted[i]);
+		}
+	}
+
+	private void collapse(int _targetTriangles) {
+		while (this.numTriangles > _targetTriangles && this.heap.size > 0) {
+			int a = this.heap.topA(), b = this.heap.topB();
+			boolean isValid = this.heap.topVersionA() == this.versions[a] && this.heap.topVersionB() == this.versions[b];
+
+			this.heap.pop();
+
+			if (!isValid || this.isVertexRemoved[a] || this.isVertexRemoved[b]) continue;
+
+			this.computeTarget(a, b, this.target);
+
+			if (this.doesFlip(a, b, this.target) || this.doesFlip(b, a, this.target)) continue;
+
+			this.collapseEdge(a, b, this.target);
+		}
+	}
+
+	// Moves a to _target, and merges b into it
+	private void collapseEdge(int a, int b, double[] _target) {
+		double eX = this.positions[3 * b] - this.positions[3 * a];
+		double eY = this.positions[3 * b + 1] - this.positions[3 * a + 1];
+		double eZ = this.positions[3 * b + 2] - this.positions[3 * a + 2];
+
+		double lengthSquared = eX * eX + eY * eY + eZ * eZ;
+
+		// Where the new position lies along the edge, for the attributes
+		double t = (lengthSquared > 0) ? ((_target[0] - this.positions[3 * a]) * eX + (_target[1] - this.positions[3 * a + 1]) * eY + (_target[2] - this.positions[3 * a + 2]) * eZ) / lengthSquared : 0;
+
+		t = Math.max(0, Math.min(1, t));
+
+		lerp(this.normals, 3, a, b, t);
+		lerp(this.colors,  3, a, b, t);
+		if (this.uvs != null) lerp(this.uvs, 2, a, b, t);
+
+		double normalLength = Math.sqrt(this.normals[3 * a] * this.normals[3 * a] + this.normals[3 * a + 1] * this.normals[3 * a + 1] + this.normals[3 * a + 2] * this.normals[3 * a + 2]);
+
+		if (normalLength > 0) {
+			for (int c = 0; c < 3; c++) this.normals[3 * a + c] /= normalLength;
+		}
+
+		System.arraycopy(_target, 0, this.positions, 3 * a, 3);
+
+		for (int i = 0; i < 10; i++) this.quadrics[10 * a + i] += this.quadrics[10 * b + i];
+
+		// Triangles with both vertices disappear, the others now use a
+		for (int i = 0; i < this.numVertexTriangles[b]; i++) {
+			int triangle = this.vertexTriangles[b][i];
+
+			if (this.isTriangleRemoved[triangle]) continue;
+
+			int offset = 3 * triangle;
+
+			if (this.indices[offset] == a || this.indices[offset + 1] == a || this.indices[offset + 2] == a) {
+				this.isTriangleRemoved[triangle] = true;
+				this.numTriangles--;
+				continue;
+			}
+
+			for (int corner = 0; corner < 3; corner++) {
+				if (this.indices[offset + corner] == b) this.indices[offset + corner] = a;
+			}
+
+			this.addVertexTriangle(a, triangle);
+		}
+
+		this.isVertexRemoved[b] = true;
+		this.vertexTriangles[b] = null;
+		this.numVertexTriangles[b] = 0;
+
+		this.versions[a]++;
+		this.versions[b]++;
+
+		// Drop the removed triangles from a's list, then requeue the edges around a
+		int numTriangles = 0;
+
+		for (int i = 0; i < this.numVertexTriangles[a]; i++) {
+			int triangle = this.vertexTriangles[a][i];
+
+			if (!this.isTriangleRemoved[triangle]) this.vertexTriangles[a][numTriangles++] = triangle;
+		}
+
+		this.numVertexTriangles[a] = numTriangles;
+
+		// Only a's quadric changed : the other edges' costs still hold (shared edges get queued twice, the second is skipped later)
+		for (int i = 0; i < numTriangles; i++) {
+			int offset = 3 * this.vertexTriangles[a][i];
+
+			for (int corner = 0; corner < 3; corner++) {
+				int neighbor = this.indices[offset + corner];
+
+				if (neighbor != a) this.pushEdge(a, neighbor);
+			}
+		}
+	}
+
+	private void pushEdge(int a, int b) {
+		this.computeTarget(a, b, this.target);
+
+		this.heap.push(this.computeError(a, b, this.target), a, b, this.versions[a], this.versions[b]);
+	}
+
+	// The point minimizing the summed quadric of a and b (falls back to the best of the ends and the middle)
+	private void computeTarget(int a, int b, double[] _target) {
+		double[] q = this.quadrics;
+
+		int qa = 10 * a, qb = 10 * b;
+
+		double xx = q[qa] + q[qb],         xy = q[qa + 1] + q[qb + 1], xz = q[qa + 2] + q[qb + 2], x = q[qa + 3] + q[qb + 3];
+		double yy = q[qa + 4] + q[qb + 4], yz = q[qa + 5] + q[qb + 5], y = q[qa + 6] + q[qb + 6];
+		double zz = q[qa + 7] + q[qb + 7], z = q[qa + 8] + q[qb + 8];
+
+		// Solve A * p = -b with Cramer's rule
+		double determinant = xx * (yy * zz - yz * yz) - xy * (xy * zz - yz * xz) + xz * (xy * yz - yy * xz);
+
+		double scale = Math.abs(xx) + Math.abs(yy) + Math.abs(zz);
+
+		if (Math.abs(determinant) > 1e-9 * scale * scale * scale && scale > 0) {
+			_target[0] = -(x * (yy * zz - yz * yz) - xy * (y * zz - yz * z) + xz * (y * yz - yy * z)) / determinant;
+			_target[1] = -(xx * (y * zz - z * yz) - x * (xy * zz - yz * xz) + xz * (xy * z - y * xz)) / determinant;
+			_target[2] = -(xx * (yy * z - yz * y) - xy * (xy * z - y * xz) + x * (xy * yz - yy * xz)) / determinant;
+
+			// Far from the edge : the quadrics are nearly flat in some direction, the solution isn't reliable
+			if (this.isInBounds(_target)) return;
+		}
+
+		double bestError = Double.MAX_VALUE;
+
+		for (int i = 0; i <= 2; i++) {
+			double t = i / 2.0;
+
+			double pX = this.positions[3 * a]     + (this.positions[3 * b]     - this.positions[3 * a])     * t;
+			double pY = this.positions[3 * a + 1] + (this.positions[3 * b + 1] - this.positions[3 * a + 1]) * t;
+			double pZ = this.positions[3 * a + 2] + (this.positions[3 * b + 2] - this.positions[3 * a + 2]) * t;
+
+			double error = evaluate(q, qa, qb, pX, pY, pZ);
+
+			if (error < bestError) {
+				bestError = error;
+				_target[0] = pX; _target[1] = pY; _target[2] = pZ;
+			}
+		}
+	}
+
+	private boolean isInBounds(double[] _point) {
+		for (int c = 0; c < 3; c++) {
+			if (!(_point[c] >= this.bounds[c] && _point[c] <= this.bounds[c + 3])) return false;
+		}
+
+		return true;
+	}
+
+	private double computeError(int a, int b, double[] _point) {
+		return evaluate(this.quadrics, 10 * a, 10 * b, _point[0], _point[1], _point[2]);
+	}
+
+	// p^T * (Qa + Qb) * p, with p = (x, y, z, 1)
+	private static double evaluate(double[] q, int qa, int qb, double x, double y, double z) {
+		double xx = q[qa] + q[qb],         xy = q[qa + 1] + q[qb + 1], xz = q[qa + 2] + q[qb + 2], xw = q[qa + 3] + q[qb + 3];
+		double yy = q[qa + 4] + q[qb + 4], yz = q[qa + 5] + q[qb + 5], yw = q[qa + 6] + q[qb + 6];
+		double zz = q[qa + 7] + q[qb + 7], zw = q[qa + 8] + q[qb + 8], ww = q[qa + 9] + q[qb + 9];
+
+		return xx * x * x + 2 * xy * x * y + 2 * xz * x * z + 2 * xw * x
+		     + yy * y * y + 2 * yz * y * z + 2 * yw * y
+		     + zz * z * z + 2 * zw * z
+		     + ww;
+	}
+
+	// Would moving _vertex to _target (merging it with _other) turn one of its other triangles over ?
+	private boolean doesFlip(int _vertex, int _other, double[] _target) {
+		for (int i = 0; i < this.numVertexTriangles[_vertex]; i++) {
+			int triangle = this.vertexTriangles[_vertex][i];
+
+			if (this.isTriangleRemoved[triangle]) continue;
+
+			int offset = 3 * triangle;
+
+			int corner = (this.indices[offset] == _vertex) ? 0 : (this.indices[offset + 1] == _vertex) ? 1 : 2;
+
+			int b = this.indices[offset + (corner + 1) % 3], c = this.indices[offset + (corner + 2) % 3];
+
+			// Collapsed along with the edge
+			if (b == _other || c == _other) continue;
+
+			double[] p = this.positions;
+
+			double oldX = (p[3 * b + 1] - p[3 * _vertex + 1]) * (p[3 * c + 2] - p[3 * _vertex + 2]) - (p[3 * b + 2] - p[3 * _vertex + 2]) * (p[3 * c + 1] - p[3 * _vertex + 1]);
+			double oldY = (p[3 * b + 2] - p[3 * _vertex + 2]) * (p[3 * c]     - p[3 * _vertex])     - (p[3 * b]     - p[3 * _vertex])     * (p[3 * c + 2] - p[3 * _vertex + 2]);
+			double oldZ = (p[3 * b]     - p[3 * _vertex])     * (p[3 * c + 1] - p[3 * _vertex + 1]) - (p[3 * b + 1] - p[3 * _vertex + 1]) * (p[3 * c]     - p[3 * _vertex]);
+
+			double newX = (p[3 * b + 1] - _target[1]) * (p[3 * c + 2] - _target[2]) - (p[3 * b + 2] - _target[2]) * (p[3 * c + 1] - _target[1]);
+			double newY = (p[3 * b + 2] - _target[2]) * (p[3 * c]     - _target[0]) - (p[3 * b]     - _target[0]) * (p[3 * c + 2] - _target[2]);
+			double newZ = (p[3 * b]     - _target[0]) * (p[3 * c + 1] - _target[1]) - (p[3 * b + 1] - _target[1]) * (p[3 * c]     - _target[0]);
+
+			double oldLength = Math.sqrt(oldX * oldX + oldY * oldY + oldZ * oldZ);
+			double newLength = Math.sqrt(newX * newX + newY * newY + newZ * newZ);
+
+			if (newLength == 0) return true;
+			if (oldLength == 0) continue;
+
+			if ((oldX * newX + oldY * newY + oldZ * newZ) / (oldLength * newLength) < MIN_NORMAL_DOT) return true;
+		}
+
+		return false;
+	}
+
+	// Unit normal and offset of the triangle's plane into _plane, returns the triangle's area
+	private double computePlane(int _triangle, double[] _plane) {
+		int a = 3 * this.indices[3 * _triangle], b = 3 * this.indices[3 * _triangle + 1], c = 3 * this.indices[3 * _triangle + 2];
+
+		double[] p = this.positions;
+
+		double uX = p[b] - p[a], uY = p[b + 1] - p[a + 1], uZ = p[b + 2] - p[a + 2];
+		double vX = p[c] - p[a], vY = p[c + 1] - p[a + 1], vZ = p[c + 2] - p[a + 2];
+
+		double nX = uY * vZ - uZ * vY;
+		double nY = uZ * vX - uX * vZ;
+		double nZ = uX * vY - uY * vX;
+
+		double length = Math.sqrt(nX * nX + nY * nY + nZ * nZ);
+
+		if (length == 0) {
+			Arrays.fill(_plane, 0);
+			return 0;
+		}
+
+		_plane[0] = nX / length;
+		_plane[1] = nY / length;
+		_plane[2] = nZ / length;
+		_plane[3] = -(_plane[0] * p[a] + _plane[1] * p[a + 1] + _plane[2] * p[a + 2]);
+
+		return length / 2;
+	}
+
+	// Q += weight * plane * plane^T
+	private static void addPlane(double[] _quadrics, int _offset, double[] _plane, double _weight) {
+		double a = _plane[0], b = _plane[1], c = _plane[2], d = _plane[3];
+
+		_quadrics[_offset]     += _weight * a * a;
+		_quadrics[_offset + 1] += _weight * a * b;
+		_quadrics[_offset + 2] += _weight * a * c;
+		_quadrics[_offset + 3] += _weight * a * d;
+		_quadrics[_offset + 4] += _weight * b * b;
+		_quadrics[_offset + 5] += _weight * b * c;
+		_quadrics[_offset + 6] += _weight * b * d;
+		_quadrics[_offset + 7] += _weight * c * c;
+		_quadrics[_offset + 8] += _weight * c * d;
+		_quadrics[_offset + 9] += _weight * d * d;
+	}
+
+	private static void lerp(float[] _attributes, int _stride, int a, int b, double t) {
+		for (int i = 0; i < _stride; i++) {
+			_attributes[_stride * a + i] += (float) ((_attributes[_stride * b + i] - _attributes[_stride * a + i]) * t);
+		}
+	}
+
+	private void addVertexTriangle(int _vertex, int _triangle) {
+		if (this.numVertexTriangles[_vertex] == this.vertexTriangles[_vertex].length) {
+			this.vertexTriangles[_vertex] = Arrays.copyOf(this.vertexTriangles[_vertex], 2 * this.vertexTriangles[_vertex].length);
+		}
+
+		this.vertexTriangles[_vertex][this.numVertexTriangles[_vertex]++] = _triangle;
+	}
+
+	// The remaining triangles (in their original order) and the vertices they use
+	private Mesh toMesh() {
+		int[] remap = new int[this.numVertices];
+
+		Arrays.fill(remap, -1);
+
+		int[] indices = new int[3 * this.numTriangles];
+		int numIndices = 0, numVertices = 0;
+
+		for (int triangle = 0; triangle < this.isTriangleRemoved.length; triangle++) {
+			if (this.isTriangleRemoved[triangle]) continue;
+
+			for (int corner = 0; corner < 3; corner++) {
+				int vertex = this.indices[3 * triangle + corner];
+
+				if (remap[vertex] < 0) remap[vertex] = numVertices++;
+
+				indices[numIndices++] = remap[vertex];
+			}
+		}
+
+		float[] positions = new float[3 * numVertices];
+		float[] normals   = new float[3 * numVertices];
+		float[] colors    = new float[3 * numVertices];
+		float[] uvs       = (this.uvs != null) ? new float[2 * numVertices] : null;
+
+		for (int vertex = 0; vertex < this.numVertices; vertex++) {
+			int index = remap[vertex];
+
+			if (index < 0) continue;
+
+			for (int c = 0; c < 3; c++) {
+				positions[3 * index + c] = (float) this.positions[3 * vertex + c];
+				normals[3 * index + c]   = this.normals[3 * vertex + c];
+				colors[3 * index + c]    = this.colors[3 * vertex + c];
+			}
+
+			if (uvs != null) {
+				uvs[2 * index]     = this.uvs[2 * vertex];
+				uvs[2 * index + 1] = this.uvs[2 * vertex + 1];
+			}
+		}
+
+		return new Mesh(positions, normals, uvs, colors, indices);
+	}
+
+	// Binary min-heap of edge collapses, in parallel primitive arrays (there can be millions of entries)
+	private static class EdgeHeap {
+		double[] errors = new double[64];
+		int[] as = new int[64], bs = new int[64], versionsA = new int[64], versionsB = new int[64];
+		int size;
+
+		int topA()        { return this.as[0]; }
+		int topB()        { return this.bs[0]; }
+		int topVersionA() { return this.versionsA[0]; }
+		int topVersionB() { return this.versionsB[0]; }
+
+		void push(double _error, int a, int b, int _versionA, int _versionB) {
+			if (this.size == this.errors.length) {
+				int capacity = 2 * this.size;
+
+				this.errors    = Arrays.copyOf(this.errors, capacity);
+				this.as        = Arrays.copyOf(this.as, capacity);
+				this.bs        = Arrays.copyOf(this.bs, capacity);
+				this.versionsA = Arrays.copyOf(this.versionsA, capacity);
+				this.versionsB = Arrays.copyOf(this.versionsB, capacity);
+			}
+
+			int i = this.size++;
+
+			// Sift up
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+
+				if (this.errors[parent] <= _error) break;
+
+				this.move(parent, i);
+				i = parent;
+			}
+
+			this.set(i, _error, a, b, _versionA, _versionB);
+		}
+
+		void pop() {
+			this.size--;
+
+			if (this.size == 0) return;
+
+			int last = this.size;
+			double error = this.errors[last];
+
+			int i = 0;
+
+			// Sift the last entry down from the top
+			while (true) {
+				int child = 2 * i + 1;
+
+				if (child >= this.size) break;
+
+				if (child + 1 < this.size && this.errors[child + 1] < this.errors[child]) child++;
+
+				if (this.errors[child] >= error) break;
+
+				this.move(child, i);
+				i = child;
+			}
+
+			this.move(last, i);
+		}
+
+		private void move(int _from, int _to) {
+			this.set(_to, this.errors[_from], this.as[_from], this.bs[_from], this.versionsA[_from], this.versionsB[_from]);
+		}
+
+		private void set(int _i, double _error, int a, int b, int _versionA, int _versionB) {
+			this.errors[_i] = _error;
+			this.as[_i] = a;
+			this.bs[_i] = b;
+			this.versionsA[_i] = _versionA;
+			this.versionsB[_i] = _versionB;
+		}
+	}
+}
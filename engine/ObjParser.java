@@ -0,0 +1,491 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Wavefront OBJ loader : the file is memory mapped and cut into chunks at line boundaries, then
+// every chunk is parsed in parallel straight from the bytes (no Strings, no per line garbage).
+// Supports v / vt / vn, faces with any number of corners (fan triangulated) and negative (relative) indices.
+// https://en.wikipedia.org/wiki/Wavefront_.obj_file
+class ObjParser {
+	// Chunks smaller than this aren't worth a task
+	static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+	// Face corner indices are stored 0 based. Negative (relative) indices can only be resolved once the number
+	// of elements before the chunk is known, until then they are stored relative to the chunk, shifted by -RELATIVE.
+	private static final int RELATIVE = 1 << 30;
+	private static final int MISSING  = Integer.MIN_VALUE;
+
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+
+	// Colors are white, normals come from the file when every corner has one and are computed otherwise,
+	// UVs are null when no corner has one
+	static Mesh parse(String _path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(_path), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) throw new IOException(_path + " is too large (" + channel.size() + " bytes)");
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			Chunk[] chunks = split(buffer, (int) channel.size());
+
+			Parallel.forRange(chunks.length, i -> chunks[i].parse());
+
+			for (Chunk chunk : chunks) {
+				if (chunk.error != null) throw new IOException(_path + " : " + chunk.error);
+			}
+
+			return build(chunks, _path);
+		}
+	}
+
+	private static Chunk[] split(ByteBuffer _buffer, int _size) {
+		int numChunks = Math.max(1, Math.min(_size / MIN_CHUNK_SIZE, 4 * Runtime.getRuntime().availableProcessors()));
+
+		Chunk[] chunks = new Chunk[numChunks];
+
+		int start = 0;
+
+		for (int i = 0; i < numChunks; i++) {
+			int end = (i == numChunks - 1) ? _size : Math.max(start, (int) ((long) _size * (i + 1) / numChunks));
+
+			// Move the end after the next line break
+			while (end < _size && _buffer.get(end - 1) != '\n') end++;
+
+			chunks[i] = new Chunk(_buffer, start, end);
+
+			start = end;
+		}
+
+		return chunks;
+	}
+
+	private static Mesh build(Chunk[] _chunks, String _path) throws IOException {
+		int numChunks = _chunks.length;
+
+		// Where every chunk's elements go in the whole file
+		int[] positionOffsets = new int[numChunks + 1];
+		int[] uvOffsets       = new int[numChunks + 1];
+		int[] normalOffsets   = new int[numChunks + 1];
+		int[] triangleOffsets = new int[numChunks + 1];
+
+		boolean doCornersHaveUVs = false, doCornersHaveNormals = false, doAllCornersHaveNormals = true;
+
+		for (int i = 0; i < numChunks; i++) {
+			Chunk chunk = _chunks[i];
+
+			positionOffsets[i + 1] = positionOffsets[i] + chunk.numPositions;
+			uvOffsets[i + 1]       = uvOffsets[i]       + chunk.numUVs;
+			normalOffsets[i + 1]   = normalOffsets[i]   + chunk.numNormals;
+			triangleOffsets[i + 1] = triangleOffsets[i] + chunk.numTriangles;
+
+			doCornersHaveUVs        |= chunk.doCornersHaveUVs;
+			doCornersHaveNormals    |= chunk.doCornersHaveNormals;
+			doAllCornersHaveNormals &= chunk.doAllCornersHaveNormals;
+		}
+
+		int numPositions = positionOffsets[numChunks];
+		int numUVs       = uvOffsets[numChunks];
+		int numNormals   = normalOffsets[numChunks];
+		int numTriangles = triangleOffsets[numChunks];
+
+		float[] positions = new float[3 * numPositions];
+		float[] uvs       = new float[2 * numUVs];
+		float[] normals   = new float[3 * numNormals];
+
+		// Corners as (position, uv, normal) global indices, 3 corners per triangle
+		int[] corners = new int[9 * numTriangles];
+
+		int[] numErrors = new int[numChunks];
+
+		Parallel.forRange(numChunks, i -> {
+			Chunk chunk = _chunks[i];
+
+			System.arraycopy(chunk.positions, 0, positions, 3 * positionOffsets[i], 3 * chunk.numPositions);
+			System.arraycopy(chunk.uvs,       0, uvs,       2 * uvOffsets[i],       2 * chunk.numUVs);
+			System.arraycopy(chunk.normals,   0, normals,   3 * normalOffsets[i],   3 * chunk.numNormals);
+
+			int offset = 9 * triangleOffsets[i];
+
+			for (int c = 0; c < 9 * chunk.numTriangles; c += 3) {
+				int position = resolve(chunk.corners[c],     positionOffsets[i], numPositions);
+				int uv       = resolve(chunk.corners[c + 1], uvOffsets[i],       numUVs);
+				int normal   = resolve(chunk.corners[c + 2], normalOffsets[i],   numNormals);
+
+				// Out of range references
+				if (position == MISSING || (uv == MISSING) != (chunk.corners[c + 1] == MISSING) || (normal == MISSING) != (chunk.corners[c + 2] == MISSING)) {
+					numErrors[i]++;
+					position = 0;
+				}
+
+				corners[offset + c]     = position;
+				corners[offset + c + 1] = uv;
+				corners[offset + c + 2] = normal;
+			}
+		});
+
+		for (int i = 0; i < numChunks; i++) {
+			if (numErrors[i] > 0) throw new IOException(_path + " : face index out of range");
+		}
+
+		int[] indices = new int[3 * numTriangles];
+
+		if (!doCornersHaveUVs && !doCornersHaveNormals) {
+			// Corners are plain positions : the positions are the mesh's vertices
+			Parallel.forRange(numChunks, i -> {
+				for (int t = 3 * triangleOffsets[i]; t < 3 * triangleOffsets[i + 1]; t++) {
+					indices[t] = corners[3 * t];
+				}
+			});
+
+			return new Mesh(positions, null, null, white(numPositions), indices);
+		}
+
+		// Every distinct (position, uv, normal) combination becomes a vertex
+		VertexMap vertexMap = new VertexMap(3 * numTriangles);
+
+		for (int t = 0; t < 3 * numTriangles; t++) {
+			indices[t] = vertexMap.indexOf(corners[3 * t], corners[3 * t + 1], corners[3 * t + 2]);
+		}
+
+		int numVertices = vertexMap.size;
+
+		float[] vertexPositions = new float[3 * numVertices];
+		float[] vertexUVs       = doCornersHaveUVs ? new float[2 * numVertices] : null;
+		float[] vertexNormals   = doAllCornersHaveNormals ? new float[3 * numVertices] : null;
+
+		for (int v = 0; v < numVertices; v++) {
+			int position = vertexMap.keys[3 * v], uv = vertexMap.keys[3 * v + 1], normal = vertexMap.keys[3 * v + 2];
+
+			System.arraycopy(positions, 3 * position, vertexPositions, 3 * v, 3);
+
+			if (vertexUVs != null && uv != MISSING) System.arraycopy(uvs, 2 * uv, vertexUVs, 2 * v, 2);
+
+			if (vertexNormals != null) System.arraycopy(normals, 3 * normal, vertexNormals, 3 * v, 3);
+		}
+
+		return new Mesh(vertexPositions, vertexNormals, vertexUVs, white(numVertices), indices);
+	}
+
+	// Chunk relative / absolute index to an index into the whole file's elements (MISSING if invalid)
+	private static int resolve(int _index, int _chunkOffset, int _count) {
+		if (_index == MISSING) return MISSING;
+
+		int index = (_index < 0) ? _chunkOffset + (_index + RELATIVE) : _index;
+
+		return (index >= 0 && index < _count) ? index : MISSING;
+	}
+
+	private static float[] white(int _numVertices) {
+		float[] colors = new float[3 * _numVertices];
+
+		Arrays.fill(colors, 255);
+
+		return colors;
+	}
+
+	// Parses the lines in [start; end[ of the file into its own growable arrays
+	private static class Chunk {
+		final ByteBuffer buffer;
+		final int start, end;
+
+		int position; // Read cursor
+
+		float[] positions = new float[3 * 1024]; int numPositions;
+		float[] uvs       = new float[2 * 64];   int numUVs;
+		float[] normals   = new float[3 * 64];   int numNormals;
+
+		// (position, uv, normal) per corner, 3 corners per triangle
+		int[] corners = new int[9 * 1024]; int numTriangles;
+
+		// The corners of the face being parsed
+		int[] face = new int[3 * 8]; int numFaceCorners;
+
+		boolean doCornersHaveUVs, doCornersHaveNormals, doAllCornersHaveNormals = true;
+
+		String error;
+
+		Chunk(ByteBuffer _buffer, int _start, int _end) {
+			this.buffer = _buffer;
+			this.start = _start;
+			this.end   = _end;
+		}
+
+		void parse() {
+			try {
+				this.position = this.start;
+
+				while (this.position < this.end) {
+					this.parseLine();
+				}
+			} catch (RuntimeException e) {
+				this.error = e.getMessage() + " (near byte " + this.position + ")";
+			}
+		}
+
+		private void parseLine() {
+			this.skipSpaces();
+
+			int keyword = this.peek();
+
+			if (keyword == 'v') {
+				this.position++;
+
+				int next = this.peek();
+
+				if (isSpace(next)) {
+					if (3 * this.numPositions + 3 > this.positions.length) this.positions = Arrays.copyOf(this.positions, 2 * this.positions.length);
+
+					for (int i = 0; i < 3; i++) this.positions[3 * this.numPositions + i] = (float) this.parseNumber();
+
+					this.numPositions++;
+				} else if (next == 't' && isSpace(this.peek(1))) {
+					this.position++;
+
+					if (2 * this.numUVs + 2 > this.uvs.length) this.uvs = Arrays.copyOf(this.uvs, 2 * this.uvs.length);
+
+					this.uvs[2 * this.numUVs]     = (float) this.parseNumber();
+					this.uvs[2 * this.numUVs + 1] = this.isEndOfLine() ? 0f : (float) this.parseNumber();
+
+					this.numUVs++;
+				} else if (next == 'n' && isSpace(this.peek(1))) {
+					this.position++;
+
+					if (3 * this.numNormals + 3 > this.normals.length) this.normals = Arrays.copyOf(this.normals, 2 * this.normals.length);
+
+					for (int i = 0; i < 3; i++) this.normals[3 * this.numNormals + i] = (float) this.parseNumber();
+
+					this.numNormals++;
+				}
+			} else if (keyword == 'f' && isSpace(this.peek(1))) {
+				this.position++;
+
+				this.parseFace();
+			}
+
+			// Ignore whatever is left (comments, groups, materials, extra components...)
+			this.skipLine();
+		}
+
+		// Corners are "v", "v/vt", "v//vn" or "v/vt/vn"
+		private void parseFace() {
+			this.numFaceCorners = 0;
+
+			while (!this.isEndOfLine()) {
+				if (3 * this.numFaceCorners + 3 > this.face.length) this.face = Arrays.copyOf(this.face, 2 * this.face.length);
+
+				int corner = 3 * this.numFaceCorners++;
+
+				this.face[corner]     = this.toIndex(this.parseInteger(), this.numPositions);
+				this.face[corner + 1] = MISSING;
+				this.face[corner + 2] = MISSING;
+
+				if (this.peek() == '/') {
+					this.position++;
+
+					if (this.peek() != '/') {
+						this.face[corner + 1] = this.toIndex(this.parseInteger(), this.numUVs);
+						this.doCornersHaveUVs = true;
+					}
+
+					if (this.peek() == '/') {
+						this.position++;
+
+						this.face[corner + 2] = this.toIndex(this.parseInteger(), this.numNormals);
+						this.doCornersHaveNormals = true;
+					}
+				}
+
+				if (this.face[corner + 2] == MISSING) this.doAllCornersHaveNormals = false;
+			}
+
+			// Fan triangulation : (0, i, i + 1)
+			for (int i = 1; i < this.numFaceCorners - 1; i++) {
+				if (9 * this.numTriangles + 9 > this.corners.length) this.corners = Arrays.copyOf(this.corners, 2 * this.corners.length);
+
+				int offset = 9 * this.numTriangles++;
+
+				System.arraycopy(this.face, 0,           this.corners, offset,     3);
+				System.arraycopy(this.face, 3 * i,       this.corners, offset + 3, 3);
+				System.arraycopy(this.face, 3 * (i + 1), this.corners, offset + 6, 3);
+			}
+		}
+
+		// 1 based index, or negative relative to the elements defined so far
+		private int toIndex(int _index, int _numDefined) {
+			if (_index > 0) return _index - 1;
+
+			if (_index == 0 || _index <= -RELATIVE) throw new IllegalStateException("invalid index " + _index);
+
+			return (_numDefined + _index) - RELATIVE;
+		}
+
+		private int parseInteger() {
+			boolean isNegative = false;
+
+			if (this.peek() == '-') { isNegative = true; this.position++; }
+			else if (this.peek() == '+') { this.position++; }
+
+			if (!isDigit(this.peek())) throw new IllegalStateException("expected an integer");
+
+			long value = 0;
+
+			while (isDigit(this.peek())) {
+				value = value * 10 + (this.buffer.get(this.position++) - '0');
+
+				if (value > Integer.MAX_VALUE) throw new IllegalStateException("integer too large");
+			}
+
+			this.skipSpaces();
+
+			return (int) (isNegative ? -value : value);
+		}
+
+		// [+-]digits[.digits][(e|E)[+-]digits] : up to 18 significant digits are kept (more than float precision)
+		private double parseNumber() {
+			this.skipSpaces();
+
+			boolean isNegative = false;
+
+			if (this.peek() == '-') { isNegative = true; this.position++; }
+			else if (this.peek() == '+') { this.position++; }
+
+			long mantissa = 0;
+			int exponent = 0;
+			boolean hasDigits = false;
+
+			while (isDigit(this.peek())) {
+				if (mantissa < 100_000_000_000_000_000L) mantissa = mantissa * 10 + (this.buffer.get(this.position) - '0');
+				else exponent++;
+
+				this.position++;
+				hasDigits = true;
+			}
+
+			if (this.peek() == '.') {
+				this.position++;
+
+				while (isDigit(this.peek())) {
+					if (mantissa < 100_000_000_000_000_000L) {
+						mantissa = mantissa * 10 + (this.buffer.get(this.position) - '0');
+						exponent--;
+					}
+
+					this.position++;
+					hasDigits = true;
+				}
+			}
+
+			if (!hasDigits) throw new IllegalStateException("expected a number");
+
+			if (this.peek() == 'e' || this.peek() == 'E') {
+				this.position++;
+
+				boolean isExponentNegative = false;
+
+				if (this.peek() == '-') { isExponentNegative = true; this.position++; }
+				else if (this.peek() == '+') { this.position++; }
+
+				int value = 0;
+
+				while (isDigit(this.peek())) {
+					if (value < 10_000) value = value * 10 + (this.buffer.get(this.position) - '0');
+
+					this.position++;
+				}
+
+				exponent += isExponentNegative ? -value : value;
+			}
+
+			double number = mantissa;
+
+			if (exponent != 0) {
+				int absoluteExponent = Math.abs(exponent);
+
+				double scale = (absoluteExponent < POWERS_OF_TEN.length) ? POWERS_OF_TEN[absoluteExponent] : Math.pow(10, absoluteExponent);
+
+				number = (exponent < 0) ? number / scale : number * scale;
+			}
+
+			return isNegative ? -number : number;
+		}
+
+		private int peek() { return this.peek(0); }
+
+		private int peek(int _offset) {
+			return (this.position + _offset < this.end) ? this.buffer.get(this.position + _offset) : '\n';
+		}
+
+		private boolean isEndOfLine() {
+			this.skipSpaces();
+
+			int next = this.peek();
+
+			return next == '\n' || next == '#';
+		}
+
+		private void skipSpaces() {
+			while (this.position < this.end && isSpace(this.buffer.get(this.position))) this.position++;
+		}
+
+		private void skipLine() {
+			while (this.position < this.end && this.buffer.get(this.position) != '\n') this.position++;
+
+			this.position++;
+		}
+
+		private static boolean isSpace(int _c) { return _c == ' ' || _c == '\t' || _c == '\r'; }
+
+		private static boolean isDigit(int _c) { return _c >= '0' && _c <= '9'; }
+	}
+
+	// Open addressing hash map from a (position, uv, normal) triple to its vertex index
+	private static class VertexMap {
+		final int[] table; // Vertex index + 1, 0 when empty
+		final int mask;
+
+		int[] keys = new int[3 * 1024];
+		int size;
+
+		VertexMap(int _maxSize) {
+			int capacity = Integer.highestOneBit(Math.max(16, 2 * _maxSize - 1)) << 1;
+
+			this.table = new int[capacity];
+			this.mask = capacity - 1;
+		}
+
+		int indexOf(int _position, int _uv, int _normal) {
+			int hash = (_position * 0x9E3779B1) ^ (_uv * 0x85EBCA77) ^ (_normal * 0xC2B2AE3D);
+
+			for (int slot = (hash ^ (hash >>> 16)) & this.mask; ; slot = (slot + 1) & this.mask) {
+				int entry = this.table[slot];
+
+				if (entry == 0) {
+					if (3 * this.size + 3 > this.keys.length) this.keys = Arrays.copyOf(this.keys, 2 * this.keys.length);
+
+					this.keys[3 * this.size]     = _position;
+					this.keys[3 * this.size + 1] = _uv;
+					this.keys[3 * this.size + 2] = _normal;
+
+					this.table[slot] = ++this.size;
+
+					return this.size - 1;
+				}
+
+				int index = 3 * (entry - 1);
+
+				if (this.keys[index] == _position && this.keys[index + 1] == _uv && this.keys[index + 2] == _normal) return entry - 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Runs body(i) for every i in [0; count[ on the common fork-join pool (work stealing)
+class Parallel {
+	static void forRange(int _count, IntConsumer _body) {
+		if (_count == 1) {
+			_body.accept(0);
+		} else if (_count > 1) {
+			ForkJoinPool.commonPool().invoke(new RangeTask(0, _count, _body));
+		}
+	}
+
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int first, last; // [first; last[
+		private final IntConsumer body;
+
+		RangeTask(int _first, int _last, IntConsumer _body) {
+			this.first = _first;
+			this.last  = _last;
+			this.body  = _body;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.last - this.first == 1) {
+				this.body.accept(this.first);
+				return;
+			}
+
+			int middle = (this.first + this.last) >>> 1;
+
+			invokeAll(new RangeTask(this.first, middle, this.body), new RangeTask(middle, this.last, this.body));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package engine;
+
+// A triangle that went through the geometry stage : screen space (x, y), depth in w and lit colors.
+// Instances are pooled by the geometry stage and overwritten every frame.
+class ProjectedTriangle {
+	final Vector[] vertices = new Vector[] { new Vector(), new Vector(), new Vector() };
+	final Vector[] colors   = new Vector[] { new Vector(), new Vector(), new Vector() }; // Brightened vertex colors (when not textured)
+	final float[]  brightnesses = new float[3];                                           // Vertex brightnesses (when textured)
+	final float[]  uvs = new float[6];                                                    // Vertex texture coordinates (when textured)
+	final TextureMapping textureMapping = new TextureMapping();
+
+	boolean doUseTexture;
+	Texture texture;
+
+	// Screen space bounding box (inclusive), clamped to the render target
+	int minX, minY, maxX, maxY;
+
+	// Depth plane (w = depthA * x + depthB * y + depthC), and the closest depth the rasterizers can write
+	// (-infinity if the triangle is degenerate), for occlusion culling
+	double depthA, depthB, depthC;
+	double minDepth;
+
+	void setColored(Vector[] _vertices, Vector[] _colors) {
+		for (int i = 0; i < 3; i++) {
+			this.vertices[i].set(_vertices[i]);
+			this.colors[i].set(_colors[i]);
+		}
+
+		this.doUseTexture = false;
+		this.texture = null;
+	}
+
+	void setTextured(Vector[] _vertices, float[] _brightnesses, Vector[] _uvs, Texture _texture) {
+		for (int i = 0; i < 3; i++) {
+			this.vertices[i].set(_vertices[i]);
+			this.brightnesses[i] = _brightnesses[i];
+			this.setUV(i, _uvs[i].x, _uvs[i].y);
+		}
+
+		this.doUseTexture = true;
+		this.texture = _texture;
+	}
+
+	void setVertex(int _i, double _x, double _y, double _w) {
+		this.vertices[_i].set(_x, _y, 0, _w);
+	}
+
+	void setColor(int _i, double _r, double _g, double _b) {
+		this.colors[_i].set(_r, _g, _b, 1);
+	}
+
+	void setUV(int _i, double _u, double _v) {
+		this.uvs[2 * _i]     = (float) _u;
+		this.uvs[2 * _i + 1] = (float) _v;
+	}
+
+	// Returns false if the triangle does not cover the target at all
+	boolean computeBounds(int _width, int _height) {
+		double left   = Math.min(this.vertices[0].x, Math.min(this.vertices[1].x, this.vertices[2].x));
+		double right  = Math.max(this.vertices[0].x, Math.max(this.vertices[1].x, this.vertices[2].x));
+		double top    = Math.min(this.vertices[0].y, Math.min(this.vertices[1].y, this.vertices[2].y));
+		double bottom = Math.max(this.vertices[0].y, Math.max(this.vertices[1].y, this.vertices[2].y));
+
+		// The rasterizer truncates coordinates, so one extra pixel on each side keeps the bounds conservative
+		this.minX = Math.max((int) Math.floor(left)  - 1, 0);
+		this.minY = Math.max((int) Math.floor(top)   - 1, 0);
+		this.maxX = Math.min((int) Math.ceil(right)  + 1, _width  - 1);
+		this.maxY = Math.min((int) Math.ceil(bottom) + 1, _height - 1);
+
+		if (this.minX > this.maxX || this.minY > this.maxY) return false;
+
+		this.computeDepthPlane();
+
+		if (this.doUseTexture) {
+			this.textureMapping.set(this.vertices, this.uvs[0], this.uvs[1], this.uvs[2], this.uvs[3], this.uvs[4], this.uvs[5]);
+		}
+
+		return true;
+	}
+
+	// The rasterizers interpolate depth linearly in screen space, and may write pixels slightly outside of the
+	// triangle (but within its bounds), so the closest depth is the plane's minimum over the bounds, not the closest vertex
+	private void computeDepthPlane() {
+		double x0 = this.vertices[0].x, y0 = this.vertices[0].y, w0 = this.vertices[0].w;
+		double x1 = this.vertices[1].x - x0, y1 = this.vertices[1].y - y0, w1 = this.vertices[1].w - w0;
+		double x2 = this.vertices[2].x - x0, y2 = this.vertices[2].y - y0, w2 = this.vertices[2].w - w0;
+
+		double denominator = x1 * y2 - x2 * y1;
+
+		if (!(Math.abs(denominator) > 1e-12)) {
+			this.minDepth = Double.NEGATIVE_INFINITY;
+			return;
+		}
+
+		this.depthA = (w1 * y2 - w2 * y1) / denominator;
+		this.depthB = (x1 * w2 - x2 * w1) / denominator;
+		this.depthC = w0 - this.depthA * x0 - this.depthB * y0;
+
+		this.minDepth = this.getMinDepth(this.minX, this.minY, this.maxX, this.maxY);
+	}
+
+	// Closest depth the rasterizers can write over pixels [_minX; _maxX] x [_minY; _maxY] (pixels are sampled
+	// at their corner or center), pulled a little closer so that their rounding can't make a pixel closer than it
+	double getMinDepth(int _minX, int _minY, int _maxX, int _maxY) {
+		double depth = this.depthA * ((this.depthA > 0) ? _minX : _maxX + 1) + this.depthB * ((this.depthB > 0) ? _minY : _maxY + 1) + this.depthC;
+
+		return depth - Math.abs(depth) * 1e-5;
+	}
+
+	// Returns the number of pixels written
+	int render(RasterizerMode _mode, KernelMode _kernelMode, RenderTarget _target, int _clipMinX, int _clipMinY, int _clipMaxX, int _clipMaxY) {
+		// Triangles too large for the fixed-point setup always go through the scanline rasterizer
+		if (_mode == RasterizerMode.HALF_SPACE && HalfSpaceRasterizer.canRender(this.vertices)) {
+			return HalfSpaceRasterizer.render(this, _target, _clipMinX, _clipMinY, _clipMaxX, _clipMaxY);
+		} else if (this.doUseTexture) {
+			return Triangle.renderTexturedTriangle(this.vertices, this.textureMapping, this.texture, _target, this.brightnesses, _clipMinX, _clipMinY, _clipMaxX, _clipMaxY, _kernelMode);
+		} else {
+			return Triangle.renderColoredTriangle(this.vertices, _target, this.colors, _clipMinX, _clipMinY, _clipMaxX, _clipMaxY, _kernelMode);
+		}
+	}
+}
@@ -0,0 +1,7 @@
+package engine;
+
+// Which rasterizer fills the triangles, selectable at runtime with Engine.setRasterizerMode()
+public enum RasterizerMode {
+	SCANLINE,   // Scanline spans with per pixel barycentric weights (Triangle)
+	HALF_SPACE  // Incremental fixed-point edge functions over 8x8 blocks (HalfSpaceRasterizer)
+}
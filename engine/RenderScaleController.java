@@ -0,0 +1,60 @@
+package engine;
+
+// Dynamic resolution : picks the render scale (fraction of the screen size along each axis) that holds a frame time budget.
+// Rendering costs mostly per pixel, so the pixel count (scale^2) follows budget / frame time, from a smoothed frame time
+// and with some headroom. Scales are quantized and only change after a cooldown, because every change means rendering
+// a whole frame at the new size. Going down takes as many steps as needed, going up only a few at a time.
+class RenderScaleController {
+	static final double DEFAULT_MIN_SCALE = 0.5;
+	static final double DEFAULT_MAX_SCALE = 1;
+
+	private static final double STEP = 1.0 / 32;
+	private static final int    MAX_STEPS_UP = 2;
+	private static final int    COOLDOWN_FRAMES = 8;
+
+	private static final double HEADROOM  = 0.85; // Aim below the budget, frame times aren't steady
+	private static final double SMOOTHING = 0.2;  // Weight of the last frame time in the average
+
+	private double minScale = DEFAULT_MIN_SCALE, maxScale = DEFAULT_MAX_SCALE;
+	private double scale = DEFAULT_MAX_SCALE;
+
+	private double averageFrameTime = -1; // Nanoseconds, -1 until a frame was measured
+	private int framesSinceChange = 0;
+
+	void setBounds(double _minScale, double _maxScale) {
+		if (!(_minScale > 0 && _minScale <= _maxScale && _maxScale <= 1)) throw new IllegalArgumentException("invalid render scale bounds [" + _minScale + "; " + _maxScale + "]");
+
+		this.minScale = _minScale;
+		this.maxScale = _maxScale;
+
+		this.scale = Math.max(this.minScale, Math.min(this.maxScale, this.scale));
+	}
+
+	double getScale()    { return this.scale;    }
+	double getMinScale() { return this.minScale; }
+	double getMaxScale() { return this.maxScale; }
+
+	// Takes the time the last frame took to render (at the current scale), returns the scale of the next one
+	double update(long _frameTime, long _budget) {
+		this.averageFrameTime = (this.averageFrameTime < 0) ? _frameTime : this.averageFrameTime + SMOOTHING * (_frameTime - this.averageFrameTime);
+		this.framesSinceChange++;
+
+		if (this.minScale == this.maxScale || this.framesSinceChange < COOLDOWN_FRAMES) return this.scale;
+
+		double scale = this.scale * Math.sqrt(HEADROOM * _budget / Math.max(this.averageFrameTime, 1));
+
+		scale = Math.min(scale, this.scale + MAX_STEPS_UP * STEP);
+		scale = Math.floor(scale / STEP) * STEP;
+		scale = Math.max(this.minScale, Math.min(this.maxScale, scale));
+
+		if (scale != this.scale) {
+			// What the frames should take at the new scale, until they are measured
+			this.averageFrameTime *= (scale * scale) / (this.scale * this.scale);
+
+			this.scale = scale;
+			this.framesSinceChange = 0;
+		}
+
+		return this.scale;
+	}
+}
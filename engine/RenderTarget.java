@@ -0,0 +1,58 @@
+package engine;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+public class RenderTarget {
+	public final int width, height;
+
+	// The color buffer is the image's own pixel array, so presenting a frame needs no copy
+	private final BufferedImage image;
+
+	// Row-major : index = y * width + x
+	public final int[]   colorBuffer;
+	public final float[] depthBuffer; // Depth (w) of the closest pixel so far, +infinity when empty
+
+	long frame = 0; // Frame shown by the buffers, 0 if unknown (see DirtyRegionTracker)
+
+	public RenderTarget(int _width, int _height) {
+		this.width  = _width;
+		this.height = _height;
+
+		this.image = new BufferedImage(_width, _height, BufferedImage.TYPE_INT_RGB);
+
+		this.colorBuffer = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+		this.depthBuffer = new float[_width * _height];
+	}
+
+	public void clear(int _backgroundRGB) {
+		Arrays.fill(this.colorBuffer, _backgroundRGB);
+		Arrays.fill(this.depthBuffer, Float.POSITIVE_INFINITY);
+	}
+
+	// Only clears [_minX; _maxX[ x [_minY; _maxY[
+	public void clear(int _backgroundRGB, int _minX, int _minY, int _maxX, int _maxY) {
+		for (int y = _minY; y < _maxY; y++) {
+			Arrays.fill(this.colorBuffer, y * this.width + _minX, y * this.width + _maxX, _backgroundRGB);
+			Arrays.fill(this.depthBuffer, y * this.width + _minX, y * this.width + _maxX, Float.POSITIVE_INFINITY);
+		}
+	}
+
+	public int getRGB(int _x, int _y) { return this.colorBuffer[_y * this.width + _x]; }
+
+	// Backed by the color buffer : only valid until the next frame is rendered into this target
+	public BufferedImage getImage() { return this.image; }
+
+	public void copyTo(BufferedImage _image) {
+		_image.setRGB(0, 0, this.width, this.height, this.colorBuffer, 0, this.width);
+	}
+
+	public BufferedImage toImage() {
+		BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+
+		this.copyTo(image);
+
+		return image;
+	}
+}
@@ -0,0 +1,63 @@
+package engine;
+
+class ScalarKernels extends Kernels {
+	// A pixel costs a multiply-add for the depth, a test, then integer adds and shifts : colors are stepped in fixed point,
+	// which avoids the divisions of the per pixel weights and the (slow) double to int conversions.
+	// https://fgiesen.wordpress.com/2013/02/10/optimizing-the-basic-rasterizer/
+	int fillColoredSpan(int[] _colorBuffer, float[] _depthBuffer, int _rowOffset, int _xStart, int _xEnd, double _w, double _wStep, double _r, double _rStep, double _g, double _gStep, double _b, double _bStep) {
+		int r = (int) (_r * FIXED_POINT_ONE), rStep = (int) (_rStep * FIXED_POINT_ONE);
+		int g = (int) (_g * FIXED_POINT_ONE), gStep = (int) (_gStep * FIXED_POINT_ONE);
+		int b = (int) (_b * FIXED_POINT_ONE), bStep = (int) (_bStep * FIXED_POINT_ONE);
+
+		return fillColoredSpanFixed(_colorBuffer, _depthBuffer, _rowOffset, _xStart, _xEnd, _w, _wStep, r, rStep, g, gStep, b, bStep);
+	}
+
+	// Colors already in fixed point, also used by VectorKernels for the pixels that don't fill a whole vector
+	static int fillColoredSpanFixed(int[] _colorBuffer, float[] _depthBuffer, int _rowOffset, int _xStart, int _xEnd, double _w, double _wStep, int _r, int _rStep, int _g, int _gStep, int _b, int _bStep) {
+		int r = _r, g = _g, b = _b;
+
+		int numPixels = 0;
+
+		for (int x = _xStart; x <= _xEnd; x++) {
+			// Not accumulated : the depth has to stay as precise as the per pixel evaluation
+			float w = (float) (_w + _wStep * (x - _xStart));
+
+			int pixelIndex = _rowOffset + x;
+
+			if (w < _depthBuffer[pixelIndex]) {
+				_depthBuffer[pixelIndex] = w;
+
+				_colorBuffer[pixelIndex] = 0xFF000000 | (constrainFixed(r) << 16) | (constrainFixed(g) << 8) | constrainFixed(b);
+
+				numPixels++;
+			}
+
+			r += _rStep; g += _gStep; b += _bStep;
+		}
+
+		return numPixels;
+	}
+
+	// Same as Matrix4.transform(), in the same order of operations
+	void transformPoints(double[] _matrix, float[] _positions, int _first, int _last, double[] _out) {
+		double[] m = _matrix;
+
+		for (int i = _first; i < _last; i++) {
+			double x = _positions[3 * i], y = _positions[3 * i + 1], z = _positions[3 * i + 2];
+
+			int offset = 4 * i;
+
+			_out[offset]     = m[0] * x + m[4] * y + m[8]  * z + m[12];
+			_out[offset + 1] = m[1] * x + m[5] * y + m[9]  * z + m[13];
+			_out[offset + 2] = m[2] * x + m[6] * y + m[10] * z + m[14];
+			_out[offset + 3] = m[3] * x + m[7] * y + m[11] * z + m[15];
+		}
+	}
+
+	// Fixed point color channel clamped to 0-255
+	static int constrainFixed(int _value) {
+		int value = _value >> FIXED_POINT_SHIFT;
+
+		return (value < 0) ? 0 : ((value > 255) ? 255 : value);
+	}
+}
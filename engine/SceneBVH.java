@@ -0,0 +1,180 @@
+package engine;
+
+import java.util.Arrays;
+
+// BVH over the whole scene, in world space. Items are clusters of CLUSTER_SIZE consecutive loose triangles,
+// followed by the objects. The tree is rebuilt when the scene's content changes and refit otherwise :
+// an object's bounds are only recomputed when its model matrix (or mesh) changed, loose triangles (which can be
+// edited in place) are rebounded every frame, with a bounding sphere around the midpoint of rotated ones.
+// Objects are bounded by their full detail mesh, whose bounds contain every level of detail.
+class SceneBVH {
+	static final int CLUSTER_SIZE = 64;
+
+	private BVH bvh;
+
+	// Scene content the tree was built for
+	private SceneObject[] objects = new SceneObject[0];
+	private int numObjects, numClusters;
+
+	private float[] itemBounds = new float[0];
+	private double[] modelMatrices = new double[0]; // 16 per object : the model matrix its bounds were computed with
+	private MeshBVH[] objectBVHs   = new MeshBVH[0]; // And the BVH
+
+	// Result of the last query, per item : the frustum planes still cutting it (0 : entirely inside), -1 if it is outside
+	private int[] itemPlanes = new int[0];
+
+	private final double[] corner = new double[3];
+
+	int getNumClusters() { return this.numClusters; }
+
+	int getClusterPlanes(int _cluster) { return this.itemPlanes[_cluster]; }
+
+	int getObjectPlanes(int _object) { return this.itemPlanes[this.numClusters + _object]; }
+
+	// The objects' model matrices have to be up to date
+	void update(Triangle[] _triangles, int _numTriangles, SceneObject[] _objects, int _numObjects) {
+		int numClusters = (_numTriangles + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+		boolean doRebuild = this.bvh == null || numClusters != this.numClusters || _numObjects != this.numObjects;
+
+		for (int i = 0; i < _numObjects && !doRebuild; i++) {
+			doRebuild = _objects[i] != this.objects[i];
+		}
+
+		if (doRebuild) {
+			int numItems = numClusters + _numObjects;
+
+			this.objects = Arrays.copyOf(_objects, _numObjects);
+			this.numObjects  = _numObjects;
+			this.numClusters = numClusters;
+
+			this.itemBounds    = new float[6 * numItems];
+			this.itemPlanes    = new int[numItems];
+			this.modelMatrices = new double[16 * _numObjects];
+			this.objectBVHs    = new MeshBVH[_numObjects];
+
+			// Forces every object's bounds to be computed
+			Arrays.fill(this.modelMatrices, Double.NaN);
+		}
+
+		boolean hasChanged = false;
+
+		for (int i = 0; i < numClusters; i++) {
+			hasChanged |= this.computeClusterBounds(_triangles, i * CLUSTER_SIZE, Math.min((i + 1) * CLUSTER_SIZE, _numTriangles), 6 * i);
+		}
+
+		for (int i = 0; i < _numObjects; i++) {
+			SceneObject object = _objects[i];
+
+			double[] m = object.modelMatrix.m;
+
+			MeshBVH bvh = object.getBVH(0);
+
+			boolean hasMoved = bvh != this.objectBVHs[i];
+
+			for (int j = 0; j < 16; j++) {
+				if (m[j] != this.modelMatrices[16 * i + j]) {
+					hasMoved = true;
+					break;
+				}
+			}
+
+			if (!hasMoved) continue;
+
+			System.arraycopy(m, 0, this.modelMatrices, 16 * i, 16);
+			this.objectBVHs[i] = bvh;
+
+			this.computeObjectBounds(object, bvh, 6 * (numClusters + i));
+			hasChanged = true;
+		}
+
+		if (doRebuild) {
+			this.bvh = new BVH(this.itemBounds, numClusters + _numObjects, 1);
+		} else if (hasChanged) {
+			this.bvh.refit(this.itemBounds);
+		}
+	}
+
+	void query(Frustum _frustum) {
+		this.bvh.query(_frustum, Frustum.ALL_PLANES);
+
+		Arrays.fill(this.itemPlanes, -1);
+
+		for (int i = 0; i < this.bvh.numVisibleLeaves; i++) {
+			int leaf = this.bvh.visibleLeaves[i];
+
+			for (int j = this.bvh.first[leaf]; j < this.bvh.first[leaf] + this.bvh.count[leaf]; j++) {
+				this.itemPlanes[this.bvh.order[j]] = this.bvh.visiblePlanes[i];
+			}
+		}
+	}
+
+	// Returns true if the bounds changed
+	private boolean computeClusterBounds(Triangle[] _triangles, int _first, int _last, int _offset) {
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+
+		for (int i = _first; i < _last; i++) {
+			Triangle triangle = _triangles[i];
+
+			boolean isRotated = triangle.rotation.x != 0 || triangle.rotation.y != 0 || triangle.rotation.z != 0;
+
+			Vector midPoint = triangle.rotationMidPoint;
+
+			for (Vector vertex : triangle.vertices) {
+				if (isRotated) {
+					// Whatever the rotation, the vertex stays at the same distance of the midpoint
+					double radius = Math.sqrt((vertex.x - midPoint.x) * (vertex.x - midPoint.x) + (vertex.y - midPoint.y) * (vertex.y - midPoint.y) + (vertex.z - midPoint.z) * (vertex.z - midPoint.z));
+
+					minX = Math.min(minX, midPoint.x - radius); maxX = Math.max(maxX, midPoint.x + radius);
+					minY = Math.min(minY, midPoint.y - radius); maxY = Math.max(maxY, midPoint.y + radius);
+					minZ = Math.min(minZ, midPoint.z - radius); maxZ = Math.max(maxZ, midPoint.z + radius);
+				} else {
+					minX = Math.min(minX, vertex.x); maxX = Math.max(maxX, vertex.x);
+					minY = Math.min(minY, vertex.y); maxY = Math.max(maxY, vertex.y);
+					minZ = Math.min(minZ, vertex.z); maxZ = Math.max(maxZ, vertex.z);
+				}
+			}
+		}
+
+		// Empty cluster
+		if (minX > maxX) {
+			minX = minY = minZ = maxX = maxY = maxZ = 0;
+		}
+
+		return this.setBounds(_offset, minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	// The 8 corners of the object's (object space) bounds, to world space
+	private void computeObjectBounds(SceneObject _object, MeshBVH _bvh, int _offset) {
+		float[] bounds = _bvh.bounds;
+
+		double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+
+		for (int i = 0; i < 8; i++) {
+			_object.modelMatrix.transformPoint(bounds[((i & 1) != 0) ? 3 : 0], bounds[((i & 2) != 0) ? 4 : 1], bounds[((i & 4) != 0) ? 5 : 2], this.corner, 0);
+
+			minX = Math.min(minX, this.corner[0]); maxX = Math.max(maxX, this.corner[0]);
+			minY = Math.min(minY, this.corner[1]); maxY = Math.max(maxY, this.corner[1]);
+			minZ = Math.min(minZ, this.corner[2]); maxZ = Math.max(maxZ, this.corner[2]);
+		}
+
+		this.setBounds(_offset, minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	// Rounded outwards to floats. Returns true if the bounds changed.
+	private boolean setBounds(int _offset, double _minX, double _minY, double _minZ, double _maxX, double _maxY, double _maxZ) {
+		float minX = Math.nextDown((float) _minX), minY = Math.nextDown((float) _minY), minZ = Math.nextDown((float) _minZ);
+		float maxX = Math.nextUp((float) _maxX),   maxY = Math.nextUp((float) _maxY),   maxZ = Math.nextUp((float) _maxZ);
+
+		float[] b = this.itemBounds;
+
+		if (b[_offset] == minX && b[_offset + 1] == minY && b[_offset + 2] == minZ && b[_offset + 3] == maxX && b[_offset + 4] == maxY && b[_offset + 5] == maxZ) return false;
+
+		b[_offset] = minX; b[_offset + 1] = minY; b[_offset + 2] = minZ;
+		b[_offset + 3] = maxX; b[_offset + 4] = maxY; b[_offset + 5] = maxZ;
+
+		return true;
+	}
+}
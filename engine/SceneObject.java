@@ -0,0 +1,92 @@
+package engine;
+
+import java.util.Arrays;
+
+// An instance of (a triangle range of) a mesh placed in the world with a single transform :
+// the mesh is scaled, rotated around rotationMidPoint (in mesh coordinates), then moved by position
+public class SceneObject {
+	public Mesh mesh;
+
+	public Vector position         = new Vector(0, 0, 0);
+	public Vector rotation         = new Vector(0, 0, 0);
+	public Vector rotationMidPoint = new Vector(0, 0, 0);
+	public double scale = 1;
+
+	// Triangles [firstTriangle; firstTriangle + numTriangles[ of the mesh
+	public int firstTriangle, numTriangles;
+
+	// Per-frame data of the geometry stage
+	final Matrix4 modelMatrix               = new Matrix4();
+	final Matrix4 modelViewProjectionMatrix = new Matrix4();
+	VertexCache vertexCache;
+	int lod;     // Level of detail rendered this frame (0 : the triangle range of the mesh, i : all of mesh.lods[i - 1])
+	MeshBVH bvh; // The one of that level
+
+	// Set by Engine.loadModel() : the asset of the mesh, released (with the bytes of the colors the object owns) when
+	// the object is removed from the scene
+	Asset<Mesh> asset;
+	long copyMemorySize;
+
+	// Per level, built the first time the level is rendered (and again if the mesh or the triangle range changed)
+	private MeshBVH[] bvhs = new MeshBVH[1];
+
+	public SceneObject(Mesh _mesh) {
+		this(_mesh, 0, _mesh.numTriangles());
+	}
+
+	public SceneObject(Mesh _mesh, int _firstTriangle, int _numTriangles) {
+		this.mesh = _mesh;
+		this.firstTriangle = _firstTriangle;
+		this.numTriangles  = _numTriangles;
+	}
+
+	// Renders the whole of _mesh from now on
+	public void setMesh(Mesh _mesh) {
+		this.mesh = _mesh;
+		this.firstTriangle = 0;
+		this.numTriangles  = _mesh.numTriangles();
+	}
+
+	// Only objects made of a whole mesh switch to its levels of detail
+	boolean hasLods() {
+		return this.mesh.lods.length > 0 && this.firstTriangle == 0 && this.numTriangles == this.mesh.numTriangles();
+	}
+
+	MeshBVH getBVH(int _lod) {
+		Mesh mesh = this.mesh.getLod(_lod);
+
+		if (_lod >= this.bvhs.length) this.bvhs = Arrays.copyOf(this.bvhs, _lod + 1);
+
+		int firstTriangle = (_lod == 0) ? this.firstTriangle : 0;
+		int numTriangles  = (_lod == 0) ? this.numTriangles  : mesh.numTriangles();
+
+		MeshBVH bvh = this.bvhs[_lod];
+
+		if (bvh == null || bvh.mesh != mesh || bvh.firstTriangle != firstTriangle || bvh.numTriangles != numTriangles) {
+			this.bvhs[_lod] = new MeshBVH(mesh, firstTriangle, numTriangles);
+		}
+
+		return this.bvhs[_lod];
+	}
+
+	public Matrix4 getModelMatrix() {
+		Matrix4 model = new Matrix4();
+
+		this.computeModelMatrix(model);
+
+		return model;
+	}
+
+	public void computeModelMatrix(Matrix4 _result) {
+		_result.setRotation(this.rotation, this.rotationMidPoint);
+
+		// Uniform scale, then translation
+		for (int i = 0; i < 15; i++) {
+			if (i % 4 != 3) _result.m[i] *= this.scale;
+		}
+
+		_result.m[12] += this.position.x;
+		_result.m[13] += this.position.y;
+		_result.m[14] += this.position.z;
+	}
+}
@@ -0,0 +1,130 @@
+package engine;
+
+import java.util.Arrays;
+
+// Dense storage with stable handles : items are packed in [0; size()[ (a removal moves the last item into the hole),
+// so iterating only touches live items, and handles go through a slot table to find them. A handle is the slot
+// (low 32 bits) and the slot's generation (high 32 bits), which is bumped on every removal : handles of removed
+// items are detected as stale instead of reaching whatever reuses the slot. Free slots form a linked list.
+// Generations start at 0, so until a slot is reused its handle is the item's insertion index.
+// https://docs.rs/slotmap/latest/slotmap/
+final class SlotMap<T> {
+	private T[] items;
+	private int[] itemSlots = new int[16];   // Slot of each item
+	private int[] slotItems = new int[16];   // Item of each slot, or -2 - the next free slot (-1 : none) if the slot is free
+	private int[] generations = new int[16];
+
+	private int size, numSlots;
+	private int firstFreeSlot = -1;
+
+	@SuppressWarnings("unchecked")
+	SlotMap() {
+		this.items = (T[]) new Object[16];
+	}
+
+	int size() { return this.size; }
+
+	long add(T _item) {
+		if (_item == null) throw new IllegalArgumentException("Items can't be null");
+
+		int slot;
+
+		if (this.firstFreeSlot >= 0) {
+			slot = this.firstFreeSlot;
+			this.firstFreeSlot = -2 - this.slotItems[slot];
+		} else {
+			slot = this.numSlots++;
+
+			if (slot == this.slotItems.length) {
+				this.slotItems   = Arrays.copyOf(this.slotItems,   2 * slot);
+				this.generations = Arrays.copyOf(this.generations, 2 * slot);
+			}
+		}
+
+		if (this.size == this.items.length) {
+			this.items     = Arrays.copyOf(this.items,     2 * this.size);
+			this.itemSlots = Arrays.copyOf(this.itemSlots, 2 * this.size);
+		}
+
+		this.items[this.size] = _item;
+		this.itemSlots[this.size] = slot;
+		this.slotItems[slot] = this.size++;
+
+		return getHandle(slot, this.generations[slot]);
+	}
+
+	// O(1), returns false if the handle is stale
+	boolean remove(long _handle) {
+		int index = this.indexOf(_handle);
+
+		if (index < 0) return false;
+
+		int slot = (int) _handle, last = --this.size;
+
+		// The last item takes the hole
+		this.items[index] = this.items[last];
+		this.itemSlots[index] = this.itemSlots[last];
+		this.slotItems[this.itemSlots[index]] = index;
+
+		this.items[last] = null;
+
+		this.generations[slot]++;
+		this.slotItems[slot] = -2 - this.firstFreeSlot;
+		this.firstFreeSlot = slot;
+
+		return true;
+	}
+
+	// Null if the handle is stale
+	T get(long _handle) {
+		int index = this.indexOf(_handle);
+
+		return (index >= 0) ? this.items[index] : null;
+	}
+
+	// Returns false if the handle is stale
+	boolean set(long _handle, T _item) {
+		if (_item == null) throw new IllegalArgumentException("Items can't be null");
+
+		int index = this.indexOf(_handle);
+
+		if (index < 0) return false;
+
+		this.items[index] = _item;
+
+		return true;
+	}
+
+	// Live items in [0; size()[
+	T getAt(int _index) { return this.items[_index]; }
+
+	long getHandleAt(int _index) {
+		int slot = this.itemSlots[_index];
+
+		return getHandle(slot, this.generations[slot]);
+	}
+
+	// Index of the handle's item in [0; size()[, -1 if the handle is stale
+	int indexOf(long _handle) {
+		int slot = (int) _handle, generation = (int) (_handle >>> 32);
+
+		if (slot < 0 || slot >= this.numSlots || this.generations[slot] != generation || this.slotItems[slot] < 0) return -1;
+
+		return this.slotItems[slot];
+	}
+
+	// Same as ArrayList.toArray(_array) : the live items, in a new array if _array is too small
+	T[] toArray(T[] _array) {
+		T[] array = (_array.length >= this.size) ? _array : Arrays.copyOf(_array, this.size);
+
+		System.arraycopy(this.items, 0, array, 0, this.size);
+
+		if (array.length > this.size) array[this.size] = null;
+
+		return array;
+	}
+
+	private static long getHandle(int _slot, int _generation) {
+		return ((long) _generation << 32) | (_slot & 0xFFFFFFFFL);
+	}
+}
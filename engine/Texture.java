@@ -7,44 +7,239 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
+// Texels are kept as packed (0xRRGGBB) rows along with a mip chain (every level half the size of the previous one,
+// averaged 2x2), so that sampling never goes through BufferedImage nor allocates.
+// https://en.wikipedia.org/wiki/Mipmap
+// Texture coordinates are normalized (0-1 over the image) and repeat outside of it.
 public class Texture {
-	private BufferedImage textureImage;
-	
 	private int textureWidth, textureHeight;
-	
+
+	// Packed (0xRRGGBB) copy of the image, row-major, so that sampling doesn't go through BufferedImage
+	private int[] texels;
+
+	// Mip chain : levels[0] is texels
+	private int[][] levels;
+	private int[] levelWidths, levelHeights;
+	private int[] levelMasksX, levelMasksY; // size - 1 for power of 2 sizes (wrapping is a mask), -1 otherwise
+
+	private TextureFilter filter = TextureFilter.BILINEAR;
+
+	int version = 0; // Bumped whenever the texels or the filter change (see DirtyRegionTracker)
+
 	public void setTexture(String _path) {
 		try {
-			this.textureImage = ImageIO.read(new File(_path));
-			
-			this.textureWidth  = this.textureImage.getWidth();
-			this.textureHeight = this.textureImage.getHeight();
+			this.setTexture(ImageIO.read(new File(_path)));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
-	
+
 	public void setTexture(BufferedImage _textureImage) {
-		this.textureImage = _textureImage;
-		
-		this.textureWidth  = this.textureImage.getWidth();
-		this.textureHeight = this.textureImage.getHeight();
+		this.textureWidth  = _textureImage.getWidth();
+		this.textureHeight = _textureImage.getHeight();
+
+		this.texels = _textureImage.getRGB(0, 0, this.textureWidth, this.textureHeight, null, 0, this.textureWidth);
+
+		this.buildMipChain();
+
+		this.version++;
+	}
+
+	// Takes the texels (and mip chain) of _texture, keeps its own filter
+	void set(Texture _texture) {
+		this.textureWidth  = _texture.textureWidth;
+		this.textureHeight = _texture.textureHeight;
+		this.texels        = _texture.texels;
+		this.levels        = _texture.levels;
+		this.levelWidths   = _texture.levelWidths;
+		this.levelHeights  = _texture.levelHeights;
+		this.levelMasksX   = _texture.levelMasksX;
+		this.levelMasksY   = _texture.levelMasksY;
+
+		this.version++;
 	}
-	
+
 	public Texture(String _path) { setTexture(_path); }
-	
+
 	public Texture(BufferedImage _textureImage) { setTexture(_textureImage); }
-	
+
+	// 1x1 texture of a single color (0xRRGGBB)
+	Texture(int _rgb) {
+		this.textureWidth = this.textureHeight = 1;
+		this.texels = new int[] { _rgb };
+
+		this.buildMipChain();
+	}
+
+	public Texture(BufferedImage _textureImage, TextureFilter _filter) {
+		setTexture(_textureImage);
+		setFilter(_filter);
+	}
+
+	public void setFilter(TextureFilter _filter) {
+		this.filter = _filter;
+		this.version++;
+	}
+
+	public TextureFilter getFilter() { return this.filter; }
+
 	public Vector sample(int _u, int _v) {
-		if (_u >= 0 && _u < this.textureImage.getWidth()) {
-			if (_v >= 0 && _v < this.textureImage.getHeight()) {
-				return new Vector(new Color(textureImage.getRGB(_u, _v)));
+		return new Vector(new Color(this.sampleRGB(_u, _v)));
+	}
+
+	// Allocation free version of sample : packed 0xRRGGBB, black outside of the texture
+	public int sampleRGB(int _u, int _v) {
+		if (_u >= 0 && _u < this.textureWidth) {
+			if (_v >= 0 && _v < this.textureHeight) {
+				return this.texels[_v * this.textureWidth + _u] & 0xFFFFFF;
+			}
+		}
+
+		return 0;
+	}
+
+	// Filtered sample (packed 0xRRGGBB) at normalized (u;v), given how much (u;v) change from one pixel to the next
+	// along x and y : the larger the footprint of a pixel in texels, the smaller the mip level
+	public int sample(double _u, double _v, double _dudx, double _dvdx, double _dudy, double _dvdy) {
+		if (this.texels == null || this.texels.length == 0) return 0;
+
+		// Footprint of the pixel in level 0 texels (squared)
+		double dudx = _dudx * this.textureWidth, dvdx = _dvdx * this.textureHeight;
+		double dudy = _dudy * this.textureWidth, dvdy = _dvdy * this.textureHeight;
+
+		double footprint = Math.max(dudx * dudx + dvdx * dvdx, dudy * dudy + dvdy * dvdy);
+
+		double level = (footprint > 1) ? Math.min(0.5 * log2(footprint), this.levels.length - 1) : 0;
+
+		switch (this.filter) {
+			case NEAREST:
+				return this.sampleNearest((int) (level + 0.5), _u, _v);
+			case BILINEAR:
+				return this.sampleBilinear((int) (level + 0.5), _u, _v);
+			default:
+				int first = (int) level;
+
+				if (first == this.levels.length - 1) return this.sampleBilinear(first, _u, _v);
+
+				return lerp(this.sampleBilinear(first, _u, _v), this.sampleBilinear(first + 1, _u, _v), (int) ((level - first) * 256));
+		}
+	}
+
+	private int sampleNearest(int _level, double _u, double _v) {
+		int width = this.levelWidths[_level], height = this.levelHeights[_level];
+
+		int x = wrap((int) Math.floor(_u * width),  width,  this.levelMasksX[_level]);
+		int y = wrap((int) Math.floor(_v * height), height, this.levelMasksY[_level]);
+
+		return this.levels[_level][y * width + x] & 0xFFFFFF;
+	}
+
+	// Texel centers are at half integers
+	private int sampleBilinear(int _level, double _u, double _v) {
+		int width = this.levelWidths[_level], height = this.levelHeights[_level];
+		int[] texels = this.levels[_level];
+
+		double x = _u * width - 0.5, y = _v * height - 0.5;
+
+		double floorX = Math.floor(x), floorY = Math.floor(y);
+
+		int weightX = (int) ((x - floorX) * 256), weightY = (int) ((y - floorY) * 256);
+
+		int x0 = wrap((int) floorX, width,  this.levelMasksX[_level]), x1 = (x0 + 1 == width)  ? 0 : x0 + 1;
+		int y0 = wrap((int) floorY, height, this.levelMasksY[_level]), y1 = (y0 + 1 == height) ? 0 : y0 + 1;
+
+		int top    = lerp(texels[y0 * width + x0], texels[y0 * width + x1], weightX);
+		int bottom = lerp(texels[y1 * width + x0], texels[y1 * width + x1], weightX);
+
+		return lerp(top, bottom, weightY);
+	}
+
+	// Per channel blend of packed colors, _weight of _b out of 256
+	private static int lerp(int _a, int _b, int _weight) {
+		int r = ((_a >> 16) & 0xFF) + (((((_b >> 16) & 0xFF) - ((_a >> 16) & 0xFF)) * _weight) >> 8);
+		int g = ((_a >>  8) & 0xFF) + (((((_b >>  8) & 0xFF) - ((_a >>  8) & 0xFF)) * _weight) >> 8);
+		int b = ( _a        & 0xFF) + (((( _b        & 0xFF) - ( _a        & 0xFF)) * _weight) >> 8);
+
+		return (r << 16) | (g << 8) | b;
+	}
+
+	// Repeat : a mask for power of 2 sizes (floorMod is an integer division)
+	private static int wrap(int _coordinate, int _size, int _mask) {
+		return (_mask >= 0) ? (_coordinate & _mask) : Math.floorMod(_coordinate, _size);
+	}
+
+	// Piecewise linear between powers of 2 (off by 0.09 at most), plenty to pick and blend mip levels.
+	// Read from the bits of the (positive, normal) double : exponent + mantissa - 1
+	private static double log2(double _value) {
+		long bits = Double.doubleToRawLongBits(_value);
+
+		double mantissa = Double.longBitsToDouble((bits & 0x000FFFFFFFFFFFFFL) | 0x3FF0000000000000L);
+
+		return (int) (bits >>> 52) - 1023 + (mantissa - 1);
+	}
+
+	private void buildMipChain() {
+		int numLevels = 1;
+
+		for (int size = Math.max(this.textureWidth, this.textureHeight); size > 1; size /= 2) numLevels++;
+
+		this.levels       = new int[numLevels][];
+		this.levelWidths  = new int[numLevels];
+		this.levelHeights = new int[numLevels];
+		this.levelMasksX  = new int[numLevels];
+		this.levelMasksY  = new int[numLevels];
+
+		this.levels[0] = this.texels;
+		this.levelWidths[0]  = this.textureWidth;
+		this.levelHeights[0] = this.textureHeight;
+
+		for (int level = 1; level < numLevels; level++) {
+			int sourceWidth = this.levelWidths[level - 1], sourceHeight = this.levelHeights[level - 1];
+			int width = Math.max(1, sourceWidth / 2), height = Math.max(1, sourceHeight / 2);
+
+			int[] source = this.levels[level - 1];
+			int[] texels = new int[width * height];
+
+			for (int y = 0; y < height; y++) {
+				int y0 = Math.min(2 * y, sourceHeight - 1), y1 = Math.min(2 * y + 1, sourceHeight - 1);
+
+				for (int x = 0; x < width; x++) {
+					int x0 = Math.min(2 * x, sourceWidth - 1), x1 = Math.min(2 * x + 1, sourceWidth - 1);
+
+					int a = source[y0 * sourceWidth + x0], b = source[y0 * sourceWidth + x1];
+					int c = source[y1 * sourceWidth + x0], d = source[y1 * sourceWidth + x1];
+
+					int r = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF) + ((d >> 16) & 0xFF) + 2) >> 2;
+					int g = (((a >>  8) & 0xFF) + ((b >>  8) & 0xFF) + ((c >>  8) & 0xFF) + ((d >>  8) & 0xFF) + 2) >> 2;
+					int bl = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) >> 2;
+
+					texels[y * width + x] = (r << 16) | (g << 8) | bl;
+				}
 			}
+
+			this.levels[level] = texels;
+			this.levelWidths[level]  = width;
+			this.levelHeights[level] = height;
+		}
+
+		for (int level = 0; level < numLevels; level++) {
+			this.levelMasksX[level] = (Integer.bitCount(this.levelWidths[level])  == 1) ? this.levelWidths[level]  - 1 : -1;
+			this.levelMasksY[level] = (Integer.bitCount(this.levelHeights[level]) == 1) ? this.levelHeights[level] - 1 : -1;
 		}
-					
-		return new Vector(0, 0, 0);
 	}
-	
+
 	public int getWidth()  { return this.textureWidth; }
-	
+
 	public int getHeight() { return this.textureHeight; }
+
+	public int getNumLevels() { return this.levels.length; }
+
+	// Bytes taken by the texels (mip chain included)
+	public long getMemorySize() {
+		long size = 0;
+
+		for (int[] level : this.levels) size += 4L * level.length;
+
+		return size;
+	}
 }
@@ -0,0 +1,8 @@
+package engine;
+
+// How a texture is sampled, selectable per texture with Texture.setFilter()
+public enum TextureFilter {
+	NEAREST,   // Closest texel of the closest mip level
+	BILINEAR,  // Blend of the 4 closest texels of the closest mip level
+	TRILINEAR  // Blend of bilinear samples of the 2 closest mip levels
+}
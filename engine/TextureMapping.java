@@ -0,0 +1,60 @@
+package engine;
+
+// Perspective correct texture coordinates over a projected triangle : u / w, v / w and 1 / w are linear in
+// screen space, so they are set up as planes once per triangle and (u;v) is recovered per pixel with a division.
+// The planes also give the exact screen space derivatives of (u;v), which pick the mip level.
+// https://en.wikipedia.org/wiki/Texture_mapping#Perspective_correctness
+public final class TextureMapping {
+	// Planes p(x, y) = a * x + b * y + c of u / w, v / w and 1 / w
+	private double uA, uB, uC, vA, vB, vC, qA, qB, qC;
+
+	// _vertices : screen space (x, y) and depth (w) of the corners. Returns false if the triangle is degenerate.
+	public boolean set(Vector[] _vertices, double _u0, double _v0, double _u1, double _v1, double _u2, double _v2) {
+		double x0 = _vertices[0].x, y0 = _vertices[0].y, q0 = 1 / _vertices[0].w;
+		double x1 = _vertices[1].x - x0, y1 = _vertices[1].y - y0, q1 = 1 / _vertices[1].w;
+		double x2 = _vertices[2].x - x0, y2 = _vertices[2].y - y0, q2 = 1 / _vertices[2].w;
+
+		double denominator = x1 * y2 - x2 * y1;
+
+		if (!(Math.abs(denominator) > 1e-12)) {
+			// Constant over the triangle
+			this.uA = this.uB = this.vA = this.vB = this.qA = this.qB = 0;
+			this.uC = _u0; this.vC = _v0; this.qC = 1;
+
+			return false;
+		}
+
+		// Differences to corner 0, then solved for the gradients (Cramer's rule)
+		double du1 = _u1 * q1 - _u0 * q0, du2 = _u2 * q2 - _u0 * q0;
+		double dv1 = _v1 * q1 - _v0 * q0, dv2 = _v2 * q2 - _v0 * q0;
+		double dq1 = q1 - q0,             dq2 = q2 - q0;
+
+		this.uA = (du1 * y2 - du2 * y1) / denominator; this.uB = (x1 * du2 - x2 * du1) / denominator;
+		this.vA = (dv1 * y2 - dv2 * y1) / denominator; this.vB = (x1 * dv2 - x2 * dv1) / denominator;
+		this.qA = (dq1 * y2 - dq2 * y1) / denominator; this.qB = (x1 * dq2 - x2 * dq1) / denominator;
+
+		this.uC = _u0 * q0 - this.uA * x0 - this.uB * y0;
+		this.vC = _v0 * q0 - this.vA * x0 - this.vB * y0;
+		this.qC = q0       - this.qA * x0 - this.qB * y0;
+
+		return true;
+	}
+
+	// Filtered texel (packed 0xRRGGBB) at pixel (_x, _y), sampled at its center
+	int sample(Texture _texture, int _x, int _y) {
+		double x = _x + 0.5, y = _y + 0.5;
+
+		double q = this.qA * x + this.qB * y + this.qC;
+
+		// Only pixels slightly outside of the triangle can get there (the plane stays positive inside)
+		if (!(q > 0)) q = Double.MIN_NORMAL;
+
+		double inverseQ = 1 / q;
+
+		double u = (this.uA * x + this.uB * y + this.uC) * inverseQ;
+		double v = (this.vA * x + this.vB * y + this.vC) * inverseQ;
+
+		// d(u / q) = (du - u * dq) / q
+		return _texture.sample(u, v, (this.uA - u * this.qA) * inverseQ, (this.vA - v * this.qA) * inverseQ, (this.uB - u * this.qB) * inverseQ, (this.vB - v * this.qB) * inverseQ);
+	}
+}
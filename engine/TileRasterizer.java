@@ -0,0 +1,155 @@
+package engine;
+
+import java.util.Arrays;
+
+// Sort-middle rasterizer : triangles are binned into fixed screen tiles, then every tile is
+// rasterized in parallel. A tile owns its pixels (color and depth), so no locking is needed.
+// With occlusion culling, triangles are first tested against a hierarchical depth buffer, which works best
+// when the geometry stage submits them front to back.
+class TileRasterizer {
+	static final int TILE_SIZE = 64;
+
+	private int tilesX, tilesY;
+
+	// bins[tile] holds indices into the triangle list, in submission order
+	private int[][] bins = new int[0][];
+	private int[]   binSizes = new int[0];
+
+	// Pixels written and triangles occluded per tile during the last frame
+	private int[] tilePixels = new int[0];
+	private int[] tileOccluded = new int[0];
+
+	private final HierarchicalDepthBuffer hierarchicalDepthBuffer = new HierarchicalDepthBuffer();
+	private boolean doUseOcclusionCulling;
+
+	private ProjectedTriangle[] triangles;
+	private int numTriangles;
+	private RenderTarget target;
+	private RasterizerMode mode;
+	private KernelMode kernelMode;
+
+	// Tiles to render (null : all of them), the others keep the target's pixels
+	private boolean[] tiles;
+
+	void render(ProjectedTriangle[] _triangles, int _numTriangles, RenderTarget _target, RasterizerMode _mode, KernelMode _kernelMode, boolean _doUseOcclusionCulling) {
+		this.render(_triangles, _numTriangles, _target, _mode, _kernelMode, _doUseOcclusionCulling, null);
+	}
+
+	void render(ProjectedTriangle[] _triangles, int _numTriangles, RenderTarget _target, RasterizerMode _mode, KernelMode _kernelMode, boolean _doUseOcclusionCulling, boolean[] _tiles) {
+		this.triangles = _triangles;
+		this.numTriangles = _numTriangles;
+		this.target    = _target;
+		this.mode      = _mode;
+		this.kernelMode = _kernelMode;
+		this.tiles     = _tiles;
+		this.doUseOcclusionCulling = _doUseOcclusionCulling;
+
+		this.resize(_target.width, _target.height);
+		this.bin();
+
+		if (_doUseOcclusionCulling) this.hierarchicalDepthBuffer.clear(_target.width, _target.height);
+
+		Parallel.forRange(this.tilesX * this.tilesY, this::renderTile);
+
+		// Don't keep the frame's data alive
+		this.triangles = null;
+		this.target    = null;
+		this.tiles     = null;
+	}
+
+	private void resize(int _width, int _height) {
+		this.tilesX = (_width  + TILE_SIZE - 1) / TILE_SIZE;
+		this.tilesY = (_height + TILE_SIZE - 1) / TILE_SIZE;
+
+		int numTiles = this.tilesX * this.tilesY;
+
+		if (this.bins.length != numTiles) {
+			this.bins     = new int[numTiles][16];
+			this.binSizes = new int[numTiles];
+			this.tilePixels = new int[numTiles];
+			this.tileOccluded = new int[numTiles];
+		}
+	}
+
+	private void bin() {
+		Arrays.fill(this.binSizes, 0);
+
+		for (int i = 0; i < this.numTriangles; i++) {
+			ProjectedTriangle triangle = this.triangles[i];
+
+			for (int tileY = triangle.minY / TILE_SIZE; tileY <= triangle.maxY / TILE_SIZE; tileY++) {
+				for (int tileX = triangle.minX / TILE_SIZE; tileX <= triangle.maxX / TILE_SIZE; tileX++) {
+					int tile = tileY * this.tilesX + tileX;
+
+					if (this.binSizes[tile] == this.bins[tile].length) {
+						this.bins[tile] = Arrays.copyOf(this.bins[tile], this.bins[tile].length * 2);
+					}
+
+					this.bins[tile][this.binSizes[tile]++] = i;
+				}
+			}
+		}
+	}
+
+	private void renderTile(int _tile) {
+		if (this.tiles != null && !this.tiles[_tile]) {
+			this.tilePixels[_tile] = this.tileOccluded[_tile] = 0;
+			return;
+		}
+
+		int clipMinX = (_tile % this.tilesX) * TILE_SIZE;
+		int clipMinY = (_tile / this.tilesX) * TILE_SIZE;
+		int clipMaxX = Math.min(clipMinX + TILE_SIZE, this.target.width);
+		int clipMaxY = Math.min(clipMinY + TILE_SIZE, this.target.height);
+
+		int[] bin = this.bins[_tile];
+		int numPixels = 0, numOccluded = 0;
+
+		for (int i = 0; i < this.binSizes[_tile]; i++) {
+			ProjectedTriangle triangle = this.triangles[bin[i]];
+
+			if (!this.doUseOcclusionCulling) {
+				numPixels += triangle.render(this.mode, this.kernelMode, this.target, clipMinX, clipMinY, clipMaxX, clipMaxY);
+				continue;
+			}
+
+			if (this.hierarchicalDepthBuffer.isOccluded(triangle, _tile, clipMinX, clipMinY, clipMaxX, clipMaxY, this.target.depthBuffer)) {
+				numOccluded++;
+				continue;
+			}
+
+			int numTrianglePixels = triangle.render(this.mode, this.kernelMode, this.target, clipMinX, clipMinY, clipMaxX, clipMaxY);
+
+			if (numTrianglePixels > 0) this.hierarchicalDepthBuffer.markWritten(triangle, clipMinX, clipMinY, clipMaxX, clipMaxY);
+
+			numPixels += numTrianglePixels;
+		}
+
+		this.tilePixels[_tile] = numPixels;
+		this.tileOccluded[_tile] = numOccluded;
+	}
+
+	// Number of pixels written during the last frame (a pixel drawn over counts again)
+	long getNumPixelsShaded() {
+		long numPixels = 0;
+
+		for (int i = 0; i < this.tilesX * this.tilesY; i++) {
+			numPixels += this.tilePixels[i];
+		}
+
+		return numPixels;
+	}
+
+	// Number of triangles rejected by occlusion culling during the last frame, once per tile they were rejected in
+	long getNumOccludedTriangles() {
+		if (!this.doUseOcclusionCulling) return 0;
+
+		long numOccluded = 0;
+
+		for (int i = 0; i < this.tilesX * this.tilesY; i++) {
+			numOccluded += this.tileOccluded[i];
+		}
+
+		return numOccluded;
+	}
+}
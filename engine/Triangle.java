@@ -1,8 +1,5 @@
 package engine;
 
-import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-
 public class Triangle {
 	public Vector[] vertices;
 	public Vector rotation;
@@ -10,7 +7,16 @@ public class Triangle {
 	public Vector[] colors;
 	
 	public boolean doUseTexture = false;
-	public int textureID = -1;
+	public long textureID = -1; // Handle of the texture (see Engine.addTexture())
+
+	// Normalized texture coordinates (u;v) of the vertices, in x and y. Null maps the texture's corners
+	// (0;0), (1;0) and (0;1) to the vertices.
+	public Vector[] uvs;
+
+	// Largest fixed point brightness of fillTexturedSpan() : a channel times it still fits in an int
+	private static final int MAX_FIXED_BRIGHTNESS = Integer.MAX_VALUE / 255;
+
+	static final Vector[] DEFAULT_UVS = new Vector[] { new Vector(0, 0, 0), new Vector(1, 0, 0), new Vector(0, 1, 0) };
 
 	public Triangle(Vector[] _vertices, Vector[] _colors) {
 		this.vertices = _vertices;
@@ -18,7 +24,7 @@ public class Triangle {
 		this.rotation = new Vector(0, 0, 0);
 	}
 	
-	public Triangle(Vector[] _vertices, Vector[] _colors,int _textureID, boolean _doUseTexture) {
+	public Triangle(Vector[] _vertices, Vector[] _colors, long _textureID, boolean _doUseTexture) {
 		this.vertices = _vertices;
 		this.colors   = _colors;
 		this.rotation = new Vector(0, 0, 0);
@@ -27,6 +33,12 @@ public class Triangle {
 		this.doUseTexture = _doUseTexture;
 	}
 
+	public Triangle(Vector[] _vertices, Vector[] _colors, Vector[] _uvs, long _textureID) {
+		this(_vertices, _colors, _textureID, true);
+
+		this.uvs = _uvs;
+	}
+
 	public static Vector getSurfaceNormal(Vector[] vertices) {
 		//https://www.khronos.org/opengl/wiki/Calculating_a_Surface_Normal
 
@@ -40,233 +52,324 @@ public class Triangle {
 		return Vector.normalize(new Vector(nX, nY, nZ));
 	}
 	
-	public static void renderTexturedTriangle(Vector[] vertices, int textureID, BufferedImage pixelBuffer, int _screenWidth, int _screenHeight, float[] brightnesses, double[][] depthBuffer, ArrayList<Texture> textures) {
+	// Only the pixels inside [clipMinX; clipMaxX[ x [clipMinY; clipMaxY[ are touched (used by the tile rasterizer)
+	// Nothing is allocated : vertex data is read into locals and pixels are packed straight into the target's buffers,
+	// the texture mapping is set up by the caller (once per triangle, see TextureMapping.set())
+	// Sampling dominates textured spans : SCALAR and VECTOR both step them with fillTexturedSpan()
+	// Returns the number of pixels written
+	public static int renderTexturedTriangle(Vector[] vertices, TextureMapping mapping, Texture texture, RenderTarget target, float[] brightnesses, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY, KernelMode mode) {
+		int screenWidth = target.width;
+		int[]   colorBuffer = target.colorBuffer;
+		float[] depthBuffer = target.depthBuffer;
+
+		double x0 = vertices[0].x, y0 = vertices[0].y, w0 = vertices[0].w;
+		double x1 = vertices[1].x, y1 = vertices[1].y, w1 = vertices[1].w;
+		double x2 = vertices[2].x, y2 = vertices[2].y, w2 = vertices[2].w;
+
 		// https://codeplea.com/triangular-interpolation
 					
 		// Step 1 : calculate denominator
 					
-		double denominator = (vertices[1].y - vertices[2].y) * (vertices[0].x - vertices[2].x) + (vertices[2].x - vertices[1].x) * (vertices[0].y - vertices[2].y);
+		double denominator = (y1 - y2) * (x0 - x2) + (x2 - x1) * (y0 - y2);
 					
 		// Step 1.5 : precalculate values
 					
-		double preCalc1 = (vertices[1].y - vertices[2].y);
-		double preCalc2 = (vertices[2].x - vertices[1].x);
-		double preCalc3 = (vertices[2].y - vertices[0].y);
-		double preCalc4 = (vertices[0].x - vertices[2].x);
-		
-		Vector t0 = vertices[0].copy();
-		Vector t1 = vertices[1].copy();
-		Vector t2 = vertices[2].copy();
-		
-		// left, right, top and bottom most points of triangle (for texturing (u;v))
-					
-		int left = (int) t0.x, right = (int) t0.x, top = (int) t0.y, bottom = (int) t0.y;
-					
-		if (t1.x < left)   { left   = (int) t1.x; } if (t2.x < left)   { left   = (int) t2.x; }
-		if (t1.x > right)  { right  = (int) t1.x; } if (t2.x > right)  { left   = (int) t2.x; }
-		if (t1.y < top)    { top    = (int) t1.y; } if (t2.y < top)    { top    = (int) t2.y; }
-		if (t1.y > bottom) { bottom = (int) t1.y; } if (t2.y > bottom) { bottom = (int) t2.y; }
-					
-		int deltaX = right - left, deltaY = bottom - top;
+		double preCalc1 = (y1 - y2);
+		double preCalc2 = (x2 - x1);
+		double preCalc3 = (y2 - y0);
+		double preCalc4 = (x0 - x2);
+
+		// The weights are planes : steps along x, for the span kernel (their sum stays 1)
+		double weight0StepX = preCalc1 / denominator, weight1StepX = preCalc3 / denominator, weight2StepX = -weight0StepX - weight1StepX;
+
+		double wStepX = w0 * weight0StepX + w1 * weight1StepX + w2 * weight2StepX;
+		double brightnessStepX = brightnesses[0] * weight0StepX + brightnesses[1] * weight1StepX + brightnesses[2] * weight2StepX;
 		
 		// https://github.com/ssloy/tinyrenderer/wiki/Lesson-2:-Triangle-rasterization-and-back-face-culling
+
+		double t0x = x0, t0y = y0, t1x = x1, t1y = y1, t2x = x2, t2y = y2;
 					
-		if (t0.y == t1.y && t0.y == t2.y) return;
+		if (t0y == t1y && t0y == t2y) return 0;
 
-		if (t0.y > t1.y) { Vector temp = t0.copy(); t0 = t1.copy(); t1 = temp.copy(); }
-		if (t0.y > t2.y) { Vector temp = t0.copy(); t0 = t2.copy(); t2 = temp.copy(); }
-		if (t1.y > t2.y) { Vector temp = t2.copy(); t2 = t1.copy(); t1 = temp.copy(); }
+		if (t0y > t1y) { double tx = t0x, ty = t0y; t0x = t1x; t0y = t1y; t1x = tx; t1y = ty; }
+		if (t0y > t2y) { double tx = t0x, ty = t0y; t0x = t2x; t0y = t2y; t2x = tx; t2y = ty; }
+		if (t1y > t2y) { double tx = t2x, ty = t2y; t2x = t1x; t2y = t1y; t1x = tx; t1y = ty; }
 					
-		int total_height = (int) (t2.y - t0.y);
+		// Rows outside of the target are skipped below : the geometry stage's guard band keeps this bounded
+		int total_height = (int) (t2y - t0y);
+
+		int numPixels = 0;
 
-		if (total_height >= _screenHeight) { total_height = _screenHeight - 1; }
+		// Only walk the rows that can fall inside the clip rectangle
+		int firstRow = Math.max(0,            (int) Math.floor(clipMinY - t0y) - 1);
+		int lastRow  = Math.min(total_height, (int) Math.ceil(clipMaxY - t0y) + 1);
 					
-		for (int i = 0; i < total_height + 1; i++) {
-			boolean second_half = i > t1.y - t0.y || t1.y == t0.y;
+		for (int i = firstRow; i <= lastRow; i++) {
+			int y = (int) (t0y + i);
+
+			// Check If The Row Is Within the rendered area
+			if (y < clipMinY || y >= clipMaxY) continue;
+
+			boolean second_half = i > t1y - t0y || t1y == t0y;
+
+			double segment_height = second_half ? t2y - t1y : t1y - t0y;
+
+			double alpha = i / (t2y - t0y);
+			double beta  = (i - (second_half ? t1y - t0y : 0)) / segment_height;
+
+			double aX = t0x + (t2x - t0x) * alpha;
+			double bX = second_half ? t1x + (t2x - t1x) * beta : t0x + (t1x - t0x) * beta;
+
+			if (aX > bX) { double temp = aX; aX = bX; bX = temp; }
+
+			int xStart = Math.max((int) ((aX > 0) ? aX : 0), clipMinX);
+			int xEnd   = Math.min((int) ((bX < screenWidth - 1) ? bX : screenWidth - 1), clipMaxX - 1);
 
-			int segment_height = (int) (second_half ? t2.y - t1.y : t1.y - t0.y);
+			double preCalc6 = (y - y2);
 
-			double alpha = i / (double) total_height;
-			double beta  = (i - (second_half ? t1.y - t0.y : 0)) / segment_height;
+			if (mode != KernelMode.PER_PIXEL) {
+				if (xStart > xEnd) continue;
 
-			Vector A = Vector.add( t0, Vector.mul( Vector.sub(t2, t0) , alpha ) );
-			Vector B = second_half ?  Vector.add( t1, Vector.mul( Vector.sub(t2, t1) , beta ) ) : Vector.add( t0, Vector.mul( Vector.sub(t1, t0), beta ));
+				double preCalc5 = (xStart - x2);
 
-			if (A.x > B.x) { Vector temp = A.copy(); A = B.copy(); B = temp.copy(); }
+				double weight0 = (preCalc1 * preCalc5 + preCalc2 * preCalc6) / denominator;
+				double weight1 = (preCalc3 * preCalc5 + preCalc4 * preCalc6) / denominator;
+				double weight2 = 1 - weight0 - weight1;
 
-			int xStart = (int) ((A.x > 0) ? A.x : 0);
-			int xEnd   = (int) ((B.x < _screenWidth - 1) ? B.x : _screenWidth - 1);
+				numPixels += fillTexturedSpan(colorBuffer, depthBuffer, y * screenWidth, y, xStart, xEnd,
+						w0 * weight0 + w1 * weight1 + w2 * weight2, wStepX,
+						brightnesses[0] * weight0 + brightnesses[1] * weight1 + brightnesses[2] * weight2, brightnessStepX,
+						mapping, texture);
+
+				continue;
+			}
 										
 			for (int x = xStart; x <= xEnd; x++) {
-				int y = (int) (t0.y + i);
+				// https://codeplea.com/triangular-interpolation
+							
+				double preCalc5 = (x - x2);
+							
+				double weight0 = (preCalc1 * preCalc5 + preCalc2 * preCalc6) / denominator;
+				double weight1 = (preCalc3 * preCalc5 + preCalc4 * preCalc6) / denominator;
+				double weight2 = 1 - weight0 - weight1;
+							
+				double weightSum = weight0 + weight1 + weight2;
+							
+				// Pixel Depth (w)
+				double w = (w0 * weight0 + w1 * weight1 + w2 * weight2) / weightSum;
+							
+				// If the pixel is in front
+				int pixelIndex = y * screenWidth + x;
 
-				// Check If Pixel Is Within the rendered area
-				if (y >= 0 && y < _screenHeight) {
-					// https://codeplea.com/triangular-interpolation
-								
-					double preCalc5 = (x - vertices[2].x);
-					double preCalc6 = (y - vertices[2].y);
-								
-					double[] VertexPositionWeights = new double[] {
-						(preCalc1 * preCalc5 + preCalc2 * preCalc6) / denominator, 
-						(preCalc3 * preCalc5 + preCalc4 * preCalc6) / denominator, 
-						0, 
-					};
-								
-					VertexPositionWeights[2] = 1 - VertexPositionWeights[0] - VertexPositionWeights[1];
-								
-					double VertexPositionWeightSum = VertexPositionWeights[0] + VertexPositionWeights[1] + VertexPositionWeights[2];
-								
-					// Pixel Depth (w)
-					double w = 0;
+				if ((float) w < depthBuffer[pixelIndex]) {
+					depthBuffer[pixelIndex] = (float) w;
 								
-					// For every vertex
-					for (int c = 0; c < 3; c++) {
-						w += vertices[c].w * VertexPositionWeights[c];
-					}
-								
-					w /= VertexPositionWeightSum;
-								
-					// Pixel Color
-					Vector color = new Vector(0, 0, 0);
+					// Sample color from texture (perspective correct)
+					int texel = mapping.sample(texture, x, y);
+												
+					float brightness = 0f;
+
+					brightness += brightnesses[0] * weight0;
+					brightness += brightnesses[1] * weight1;
+					brightness += brightnesses[2] * weight2;
+					
+					brightness /= weightSum;
+
+					// Limit values between 0 and 255
+					int r = constrain(((texel >> 16) & 0xFF) * (double) brightness);
+					int g = constrain(((texel >>  8) & 0xFF) * (double) brightness);
+					int b = constrain(( texel        & 0xFF) * (double) brightness);
 								
-					// If the pixel is in front
-					if (w < depthBuffer[x][y] || depthBuffer[x][y] == 0) {
-						depthBuffer[x][y] = w;
-									
-						// Get (u;v) coordinates
-						int u = (int) (((x - left) / (float) deltaX) * (textures.get(textureID).getWidth()  - 1));
-						int v = (int) (((y - top)  / (float) deltaY) * (textures.get(textureID).getHeight() - 1));
-
-						// Sample color from texture
-						color = textures.get(textureID).sample(u, v);
-													
-						float brightness = 0f;
-						
-						for (int c = 0; c < 3; c++) {
-							brightness += brightnesses[c] * VertexPositionWeights[c];
-						}
-						
-						brightness /= VertexPositionWeightSum;
-						
-						color.mul(brightness);
-						
-						// Limit values between 0 and 255
-						color.constrain();
-									
-						// Set the pixel to the right color
-						pixelBuffer.setRGB(x, y, color.getColor().getRGB());
-					}
-				}							
+					// Set the pixel to the right color
+					colorBuffer[pixelIndex] = 0xFF000000 | (r << 16) | (g << 8) | b;
+
+					numPixels++;
+				}
 			}
 		}
+
+		return numPixels;
 	}
 	
-	public static void renderColoredTriangle(Vector[] vertices, BufferedImage pixelBuffer, int _screenWidth, int _screenHeight, Vector[] brightnedColors, double[][] depthBuffer) {
+	public static int renderColoredTriangle(Vector[] vertices, RenderTarget target, Vector[] brightnedColors) {
+		return renderColoredTriangle(vertices, target, brightnedColors, 0, 0, target.width, target.height, KernelMode.VECTOR);
+	}
+
+	// Only the pixels inside [clipMinX; clipMaxX[ x [clipMinY; clipMaxY[ are touched (used by the tile rasterizer)
+	// Nothing is allocated : vertex data is read into locals and pixels are packed straight into the target's buffers
+	// Rows are filled by the span kernels of mode (stepping depth and colors along x), or by evaluating the barycentric
+	// weights of every pixel with KernelMode.PER_PIXEL
+	// Returns the number of pixels written
+	public static int renderColoredTriangle(Vector[] vertices, RenderTarget target, Vector[] brightnedColors, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY, KernelMode mode) {
+		Kernels kernels = Kernels.get(mode);
+
+		int screenWidth = target.width;
+		int[]   colorBuffer = target.colorBuffer;
+		float[] depthBuffer = target.depthBuffer;
+
+		double x0 = vertices[0].x, y0 = vertices[0].y, w0 = vertices[0].w;
+		double x1 = vertices[1].x, y1 = vertices[1].y, w1 = vertices[1].w;
+		double x2 = vertices[2].x, y2 = vertices[2].y, w2 = vertices[2].w;
+
+		double r0 = brightnedColors[0].x, g0 = brightnedColors[0].y, b0 = brightnedColors[0].z;
+		double r1 = brightnedColors[1].x, g1 = brightnedColors[1].y, b1 = brightnedColors[1].z;
+		double r2 = brightnedColors[2].x, g2 = brightnedColors[2].y, b2 = brightnedColors[2].z;
+
 		// https://codeplea.com/triangular-interpolation
 		
 		// Step 1 : calculate denominator
 		
-		double denominator = (vertices[1].y - vertices[2].y) * (vertices[0].x - vertices[2].x) + (vertices[2].x - vertices[1].x) * (vertices[0].y - vertices[2].y);
+		double denominator = (y1 - y2) * (x0 - x2) + (x2 - x1) * (y0 - y2);
 		
 		// Step 1.5 : precalculate values
 					
-		double preCalc1 = (vertices[1].y - vertices[2].y);
-		double preCalc2 = (vertices[2].x - vertices[1].x);
-		double preCalc3 = (vertices[2].y - vertices[0].y);
-		double preCalc4 = (vertices[0].x - vertices[2].x);
-		
-		Vector t0 = vertices[0].copy();
-		Vector t1 = vertices[1].copy();
-		Vector t2 = vertices[2].copy();
+		double preCalc1 = (y1 - y2);
+		double preCalc2 = (x2 - x1);
+		double preCalc3 = (y2 - y0);
+		double preCalc4 = (x0 - x2);
+
+		// The weights are planes : steps along x, for the span kernel (their sum stays 1)
+		double weight0StepX = preCalc1 / denominator, weight1StepX = preCalc3 / denominator, weight2StepX = -weight0StepX - weight1StepX;
+
+		double wStepX = w0 * weight0StepX + w1 * weight1StepX + w2 * weight2StepX;
+		double rStepX = r0 * weight0StepX + r1 * weight1StepX + r2 * weight2StepX;
+		double gStepX = g0 * weight0StepX + g1 * weight1StepX + g2 * weight2StepX;
+		double bStepX = b0 * weight0StepX + b1 * weight1StepX + b2 * weight2StepX;
 					
 		// https://github.com/ssloy/tinyrenderer/wiki/Lesson-2:-Triangle-rasterization-and-back-face-culling
+
+		double t0x = x0, t0y = y0, t1x = x1, t1y = y1, t2x = x2, t2y = y2;
 					
-		if (t0.y == t1.y && t0.y == t2.y) return;
+		if (t0y == t1y && t0y == t2y) return 0;
 
-		if (t0.y > t1.y) { Vector temp = t0.copy(); t0 = t1.copy(); t1 = temp.copy(); }
-		if (t0.y > t2.y) { Vector temp = t0.copy(); t0 = t2.copy(); t2 = temp.copy(); }
-		if (t1.y > t2.y) { Vector temp = t2.copy(); t2 = t1.copy(); t1 = temp.copy(); }
+		if (t0y > t1y) { double tx = t0x, ty = t0y; t0x = t1x; t0y = t1y; t1x = tx; t1y = ty; }
+		if (t0y > t2y) { double tx = t0x, ty = t0y; t0x = t2x; t0y = t2y; t2x = tx; t2y = ty; }
+		if (t1y > t2y) { double tx = t2x, ty = t2y; t2x = t1x; t2y = t1y; t1x = tx; t1y = ty; }
 					
-		int total_height = (int) (t2.y - t0.y);
+		// Rows outside of the target are skipped below : the geometry stage's guard band keeps this bounded
+		int total_height = (int) (t2y - t0y);
+
+		int numPixels = 0;
 
-		if (total_height >= _screenHeight) { total_height = _screenHeight - 1; }
+		// Only walk the rows that can fall inside the clip rectangle
+		int firstRow = Math.max(0,                (int) Math.floor(clipMinY - t0y) - 1);
+		int lastRow  = Math.min(total_height - 1, (int) Math.ceil(clipMaxY - t0y) + 1);
 					
-		for (int i = 0; i < total_height; i++) {
-			boolean second_half = i > t1.y - t0.y || t1.y == t0.y;
+		for (int i = firstRow; i <= lastRow; i++) {
+			int y = (int) (t0y + i);
+
+			// Check If The Row Is Within the rendered area
+			if (y < clipMinY || y >= clipMaxY) continue;
+
+			boolean second_half = i > t1y - t0y || t1y == t0y;
+
+			double segment_height = second_half ? t2y - t1y : t1y - t0y;
+
+			double alpha = i / (t2y - t0y);
+			double beta  = (i - (second_half ? t1y - t0y : 0)) / segment_height;
+
+			double aX = t0x + (t2x - t0x) * alpha;
+			double bX = second_half ? t1x + (t2x - t1x) * beta : t0x + (t1x - t0x) * beta;
+
+			if (aX > bX) { double temp = aX; aX = bX; bX = temp; }
 
-			int segment_height = (int) (second_half ? t2.y - t1.y : t1.y - t0.y);
+			int xStart = Math.max((int) ((aX > 0) ? aX : 0), clipMinX);
+			int xEnd   = Math.min((int) ((bX < screenWidth - 1) ? bX : screenWidth - 1), clipMaxX - 1);
 
-			double alpha = i / (double) total_height;
-			double beta  = (i - (second_half ? t1.y - t0.y : 0)) / segment_height;
+			double preCalc6 = (y - y2);
 
-			Vector A = Vector.add( t0, Vector.mul( Vector.sub(t2, t0) , alpha ) );
-			Vector B = second_half ? Vector.add( t1, Vector.mul( Vector.sub(t2, t1) , beta ) ) : Vector.add( t0, Vector.mul( Vector.sub(t1, t0), beta ));
+			if (mode != KernelMode.PER_PIXEL) {
+				if (xStart > xEnd) continue;
 
-			if (A.x > B.x) { Vector temp = A.copy(); A = B.copy(); B = temp.copy(); }
+				double preCalc5 = (xStart - x2);
 
-			int xStart = (int) ((A.x > 0) ? A.x : 0);
-			int xEnd   = (int) ((B.x < _screenWidth - 1) ? B.x : _screenWidth - 1);
-											
-			boolean doBreak = false;
+				double weight0 = (preCalc1 * preCalc5 + preCalc2 * preCalc6) / denominator;
+				double weight1 = (preCalc3 * preCalc5 + preCalc4 * preCalc6) / denominator;
+				double weight2 = 1 - weight0 - weight1;
+
+				numPixels += kernels.fillColoredSpan(colorBuffer, depthBuffer, y * screenWidth, xStart, xEnd,
+						w0 * weight0 + w1 * weight1 + w2 * weight2, wStepX,
+						r0 * weight0 + r1 * weight1 + r2 * weight2, rStepX,
+						g0 * weight0 + g1 * weight1 + g2 * weight2, gStepX,
+						b0 * weight0 + b1 * weight1 + b2 * weight2, bStepX);
+
+				continue;
+			}
 						
 			for (int x = xStart; x <= xEnd; x++) {
-				int y = (int) (t0.y + i);
+				// https://codeplea.com/triangular-interpolation
+							
+				double preCalc5 = (x - x2);
+					
+				double weight0 = (preCalc1 * preCalc5 + preCalc2 * preCalc6) / denominator;
+				double weight1 = (preCalc3 * preCalc5 + preCalc4 * preCalc6) / denominator;
+				double weight2 = 1 - weight0 - weight1;
+							
+				double weightSum = weight0 + weight1 + weight2;
+							
+				// Pixel Depth (w)
+				double w = (w0 * weight0 + w1 * weight1 + w2 * weight2) / weightSum;
+							
+				// If the pixel is in front
+				int pixelIndex = y * screenWidth + x;
 
-				if (y >= 0 && y < _screenHeight) {
-					// https://codeplea.com/triangular-interpolation
-								
-					double preCalc5 = (x - vertices[2].x);
-					double preCalc6 = (y - vertices[2].y);
-						
-					double[] VertexPositionWeights = new double[] {
-						(preCalc1 * preCalc5 + preCalc2 * preCalc6) / denominator, 
-						(preCalc3 * preCalc5 + preCalc4 * preCalc6) / denominator, 
-						0, 
-					};
-								
-					VertexPositionWeights[2] = 1 - VertexPositionWeights[0] - VertexPositionWeights[1];
-								
-					double VertexPositionWeightSum = VertexPositionWeights[0] + VertexPositionWeights[1] + VertexPositionWeights[2];
-								
-					// Pixel Depth (w)
-					double w = 0;
-								
-					// For every vertex
-					for (int c = 0; c < 3; c++) {
-						w += vertices[c].w * VertexPositionWeights[c];
-					}
-								
-					w /= VertexPositionWeightSum;
-								
-					// Pixel Color
-					Vector color = new Vector(0, 0, 0);
+				if ((float) w < depthBuffer[pixelIndex]) {
+					depthBuffer[pixelIndex] = (float) w;
 								
-					// If the pixel is in front
-					if (w < depthBuffer[x][y] || depthBuffer[x][y] == 0) {
-						depthBuffer[x][y] = w;
+					// Triangulate the pixel color (pun intended)
+					// Limit values between 0 and 255
+					int r = constrain((r0 * weight0 + r1 * weight1 + r2 * weight2) / weightSum);
+					int g = constrain((g0 * weight0 + g1 * weight1 + g2 * weight2) / weightSum);
+					int b = constrain((b0 * weight0 + b1 * weight1 + b2 * weight2) / weightSum);
 									
-						// Triangulate the pixel color (pun intended)
-						// For every vertex
-						for (int c = 0; c < 3; c++) {
-							color.add(Vector.mul(brightnedColors[c], VertexPositionWeights[c]));
-						}
-						
-						color.div(VertexPositionWeightSum);
-									
-						// Limit values between 0 and 255
-						color.constrain();
-										
-						// Set the pixel to the right color
-						pixelBuffer.setRGB(x, y, color.getColor().getRGB());
-					}
-				} else {
-					doBreak = true;
-					break;
+					// Set the pixel to the right color
+					colorBuffer[pixelIndex] = 0xFF000000 | (r << 16) | (g << 8) | b;
+
+					numPixels++;
 				}
 			}
-						
-			if (doBreak) break;
 		}
-	}	
+
+		return numPixels;
+	}
+
+	// Same as Kernels.fillColoredSpan() with a texture : the texel is modulated by the stepped (fixed point) brightness
+	private static int fillTexturedSpan(int[] _colorBuffer, float[] _depthBuffer, int _rowOffset, int _y, int _xStart, int _xEnd, double _w, double _wStep, double _brightness, double _brightnessStep, TextureMapping _mapping, Texture _texture) {
+		int brightness = (int) (_brightness * Kernels.FIXED_POINT_ONE), brightnessStep = (int) (_brightnessStep * Kernels.FIXED_POINT_ONE);
+
+		int numPixels = 0;
+
+		for (int x = _xStart; x <= _xEnd; x++) {
+			float w = (float) (_w + _wStep * (x - _xStart));
+
+			int pixelIndex = _rowOffset + x;
+
+			if (w < _depthBuffer[pixelIndex]) {
+				_depthBuffer[pixelIndex] = w;
+
+				int texel = _mapping.sample(_texture, x, _y);
+
+				// Pixels on the edges can extrapolate past 1 : like the per pixel loop, the channels are clamped to 255 rather
+				// than the brightness to 1 (the bound on the brightness only keeps channel * scale from overflowing)
+				int scale = (brightness < 0) ? 0 : Math.min(brightness, MAX_FIXED_BRIGHTNESS);
+
+				int r = Math.min((((texel >> 16) & 0xFF) * scale) >> Kernels.FIXED_POINT_SHIFT, 255);
+				int g = Math.min((((texel >>  8) & 0xFF) * scale) >> Kernels.FIXED_POINT_SHIFT, 255);
+				int b = Math.min((( texel        & 0xFF) * scale) >> Kernels.FIXED_POINT_SHIFT, 255);
+
+				_colorBuffer[pixelIndex] = 0xFF000000 | (r << 16) | (g << 8) | b;
+
+				numPixels++;
+			}
+
+			brightness += brightnessStep;
+		}
+
+		return numPixels;
+	}
+
+	// Color channel clamped to 0-255
+	static int constrain(double _value) {
+		return (int) ((_value < 0) ? 0 : ((_value > 255) ? 255 : _value));
+	}
 }
@@ -0,0 +1,46 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Three render targets shared by the render thread and the EDT : the render thread always owns one to draw into,
+// the EDT always owns one to show, and the third one holds the latest completed frame. Ownership changes with an
+// atomic swap of the middle index, so neither thread ever waits for the other.
+// https://remis-thoughts.blogspot.com/2012/01/triple-buffering-as-concurrency_30.html
+class TripleBuffer {
+	private static final int INDEX_MASK = 3;
+	private static final int NEW_FRAME  = 4; // Set while the middle target holds a frame the EDT hasn't taken yet
+
+	private final RenderTarget[] targets = new RenderTarget[3];
+
+	private final AtomicInteger middle = new AtomicInteger(1);
+
+	private int back  = 0; // Render thread only
+	private int front = 2; // EDT only
+
+	// Render thread : the target to draw the next frame into, (re)created when the screen size changes
+	RenderTarget getBackTarget(int _width, int _height) {
+		RenderTarget target = this.targets[this.back];
+
+		if (target == null || target.width != _width || target.height != _height) {
+			target = new RenderTarget(_width, _height);
+
+			this.targets[this.back] = target;
+		}
+
+		return target;
+	}
+
+	// Render thread : the back target holds a completed frame, it becomes the middle one
+	void publish() {
+		this.back = this.middle.getAndSet(this.back | NEW_FRAME) & INDEX_MASK;
+	}
+
+	// EDT : the latest completed frame (null until the first one is published)
+	RenderTarget acquireFrontTarget() {
+		if ((this.middle.get() & NEW_FRAME) != 0) {
+			this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+		}
+
+		return this.targets[this.front];
+	}
+}
@@ -0,0 +1,89 @@
+package engine;
+
+// Bilinear upscale of a frame rendered at a lower resolution into the presented target (dynamic resolution).
+// The source position and weight of every column and row are computed once per size, weights are 8 bit fixed point,
+// and the red and blue channels are blended together (packed 0x00RR00BB). Bands of rows are filled in parallel.
+// https://en.wikipedia.org/wiki/Bilinear_interpolation
+class Upscaler {
+	private static final int ROWS_PER_TASK = 32;
+
+	private int sourceWidth, sourceHeight, width, height;
+
+	// Left / top source pixel of every target column / row, and the weight (0-255) of the next one
+	private int[] columns = new int[0], columnWeights = new int[0];
+	private int[] rows    = new int[0], rowWeights    = new int[0];
+
+	private int[] sourceColors, targetColors;
+
+	void upscale(RenderTarget _source, RenderTarget _target) {
+		if (_source.width != this.sourceWidth || _source.height != this.sourceHeight || _target.width != this.width || _target.height != this.height) {
+			this.sourceWidth  = _source.width;
+			this.sourceHeight = _source.height;
+			this.width  = _target.width;
+			this.height = _target.height;
+
+			this.columns = new int[this.width];
+			this.columnWeights = new int[this.width];
+			this.rows = new int[this.height];
+			this.rowWeights = new int[this.height];
+
+			computeSamples(this.sourceWidth,  this.width,  this.columns, this.columnWeights);
+			computeSamples(this.sourceHeight, this.height, this.rows,    this.rowWeights);
+		}
+
+		this.sourceColors = _source.colorBuffer;
+		this.targetColors = _target.colorBuffer;
+
+		Parallel.forRange((this.height + ROWS_PER_TASK - 1) / ROWS_PER_TASK, this::upscaleRows);
+
+		this.sourceColors = null;
+		this.targetColors = null;
+	}
+
+	private void upscaleRows(int _band) {
+		int[] source = this.sourceColors, target = this.targetColors;
+
+		int sourceWidth = this.sourceWidth, width = this.width;
+
+		for (int y = _band * ROWS_PER_TASK; y < Math.min((_band + 1) * ROWS_PER_TASK, this.height); y++) {
+			int top = this.rows[y] * sourceWidth;
+			int bottom = (this.rows[y] + 1 < this.sourceHeight) ? top + sourceWidth : top;
+			int weightY = this.rowWeights[y];
+
+			int offset = y * width;
+
+			for (int x = 0; x < width; x++) {
+				int left = this.columns[x];
+				int right = (left + 1 < sourceWidth) ? left + 1 : left;
+				int weightX = this.columnWeights[x];
+
+				int upper = lerp(source[top + left],    source[top + right],    weightX);
+				int lower = lerp(source[bottom + left], source[bottom + right], weightX);
+
+				target[offset + x] = lerp(upper, lower, weightY);
+			}
+		}
+	}
+
+	// Pixel centers line up : target pixel x samples the source at (x + 0.5) * sourceSize / size - 0.5, clamped to the edges
+	private static void computeSamples(int _sourceSize, int _size, int[] _positions, int[] _weights) {
+		for (int i = 0; i < _size; i++) {
+			long position = ((2L * i + 1) * _sourceSize * 256) / (2L * _size) - 128; // 8 bit fixed point
+
+			position = Math.max(0, Math.min(position, (_sourceSize - 1) * 256L));
+
+			_positions[i] = (int) (position >> 8);
+			_weights[i]   = (int) (position & 0xFF);
+		}
+	}
+
+	// _a + (_b - _a) * _weight / 256 on every channel of packed 0xRRGGBB colors
+	private static int lerp(int _a, int _b, int _weight) {
+		int inverse = 256 - _weight;
+
+		int redBlue = (((_a & 0xFF00FF) * inverse + (_b & 0xFF00FF) * _weight) >>> 8) & 0xFF00FF;
+		int green   = (((_a & 0x00FF00) * inverse + (_b & 0x00FF00) * _weight) >>> 8) & 0x00FF00;
+
+		return redBlue | green;
+	}
+}
@@ -14,6 +14,9 @@ public class Vector {
 	
 	public Vector copy() { return new Vector(this.x, this.y, this.z); }
 
+	public void set(double _x, double _y, double _z, double _w) { this.x = _x; this.y = _y; this.z = _z; this.w = _w; }
+	public void set(Vector _v) { this.set(_v.x, _v.y, _v.z, _v.w); }
+
 	public void add(double _x, double _y, double _z) { this.x += _x; this.y += _y; this.z += _z; }
 	public void sub(double _x, double _y, double _z) { this.x -= _x; this.y -= _y; this.z -= _z; }
 	public void mul(double _x, double _y, double _z) { this.x *= _x; this.y *= _y; this.z *= _z; }
@@ -37,7 +40,7 @@ public class Vector {
 		z = (z < 0) ? 0 : ( (z > 255) ? 255 : z );
 	}
 	
-	public double getLength() { return (double) Math.sqrt( this.x * this.x + this.y * this.y + this.z * this.z ); }
+	public double getLength() { return Math.sqrt( this.x * this.x + this.y * this.y + this.z * this.z ); }
 	public void  normalize() { this.div(this.getLength()); }
 
 	public static Vector normalize(Vector _v) { Vector result = _v.copy(); result.normalize(); return result; }
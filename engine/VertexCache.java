@@ -0,0 +1,25 @@
+package engine;
+
+// Per-frame results of the vertex stage for a mesh, so that each vertex is
+// transformed, projected and lit once no matter how many triangles share it
+class VertexCache {
+	double[] world   = new double[0]; // World space position (x, y, z)
+	double[] normals = new double[0]; // World space normal (x, y, z)
+	double[] clip    = new double[0]; // Clip space position (x, y, z, w)
+	double[] screen  = new double[0]; // Screen position (x, y) and depth (w), only valid when w > 0
+	int[]    outcodes = new int[0];   // Clip planes the vertex is outside of (GeometryStage.OUTSIDE_*)
+	float[]  colors  = new float[0];  // Lit color (r, g, b)
+	int[]    frames  = new int[0];    // Last frame the vertex was used in, when only parts of the mesh are visible
+
+	void ensureCapacity(int _numVertices) {
+		if (this.world.length < 3 * _numVertices) {
+			this.world   = new double[3 * _numVertices];
+			this.normals = new double[3 * _numVertices];
+			this.clip    = new double[4 * _numVertices];
+			this.screen  = new double[3 * _numVertices];
+			this.outcodes = new int[_numVertices];
+			this.colors  = new float[3 * _numVertices];
+			this.frames  = new int[_numVertices];
+		}
+	}
+}
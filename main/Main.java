@@ -5,7 +5,6 @@ import java.awt.Color;
 import engine.Camera;
 import engine.Engine;
 import engine.Light;
-import engine.Texture;
 import engine.Triangle;
 import engine.Vector;
 
@@ -16,8 +15,8 @@ public class Main extends Engine {
 		
 		this.setBackgroundColor(Color.BLUE);
 		//this.loadModel("res/teapot.obj", true);
-		this.addTexture(new Texture("res/brick.png"));
-		this.addTexture(new Texture("res/grass.png"));
+		this.loadTexture("res/brick.png");
+		this.loadTexture("res/grass.png");
 		this.addTriangle(new Triangle(
 				new Vector[] {
 						new Vector(1,  1, 0),
@@ -29,8 +28,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 0, 0),
+						new Vector(1, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		this.addTriangle(new Triangle(
 				new Vector[] {
@@ -43,8 +46,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 1, 0),
+						new Vector(0, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		this.addTriangle(new Triangle(
 				new Vector[] {
@@ -57,8 +64,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 1, 0),
+						new Vector(0, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		this.addTriangle(new Triangle(
 				new Vector[] {
@@ -71,8 +82,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 0, 0),
+						new Vector(1, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		
 		
@@ -87,8 +102,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 1, 0),
+						new Vector(0, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		this.addTriangle(new Triangle(
 				new Vector[] {
@@ -101,8 +120,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 0, 0),
+						new Vector(1, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		
 		
@@ -117,8 +140,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				0,
-				true
+				new Vector[] {
+						new Vector(1, 1, 0),
+						new Vector(0, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				0
 		));
 		this.addTriangle(new Triangle(
 				new Vector[] {
@@ -131,8 +158,12 @@ public class Main extends Engine {
 						new Vector(255, 0, 0),
 						new Vector(255, 0, 0),
 				},
-				1,
-				true
+				new Vector[] {
+						new Vector(1, 0, 0),
+						new Vector(1, 1, 0),
+						new Vector(0, 0, 0),
+				},
+				1
 		));
 
 		this.addLight(new Light(Camera.position, 5f));
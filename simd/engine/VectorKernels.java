@@ -0,0 +1,116 @@
+package engine;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// ScalarKernels with the Vector API (https://openjdk.org/jeps/414), loaded by Kernels when the JVM runs with
+// --add-modules jdk.incubator.vector. Every lane does the same operations as the scalar loop, so both write the same values.
+// Species and shuffles are constants : C2 only turns them into SIMD instructions (without allocating) when they are.
+class VectorKernels extends ScalarKernels {
+	// Spans : 4 pixels at a time, depths computed in double like the scalar loop
+	private static final VectorSpecies<Double>  SPAN_DOUBLES = DoubleVector.SPECIES_256;
+	private static final VectorSpecies<Float>   SPAN_FLOATS  = FloatVector.SPECIES_128;
+	private static final VectorSpecies<Integer> SPAN_INTS    = IntVector.SPECIES_128;
+
+	private static final DoubleVector LANES_DOUBLE = DoubleVector.fromArray(SPAN_DOUBLES, new double[] { 0, 1, 2, 3 }, 0);
+	private static final IntVector    LANES_INT    = IntVector.fromArray(SPAN_INTS, new int[] { 0, 1, 2, 3 }, 0);
+
+	private static final int MIN_SPAN_LENGTH = 16;
+
+	// Vertices : (x, y, z, w) of VERTICES_PER_VECTOR vertices per vector, from the floats of as many (x, y, z)
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Float>  FLOATS  = VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+	private static final int VERTICES_PER_VECTOR = DOUBLES.length() / 4;
+
+	// Lane l takes the x (y, z) of vertex l / 4
+	private static final VectorShuffle<Double> X = VectorShuffle.fromOp(DOUBLES, l -> 3 * (l / 4));
+	private static final VectorShuffle<Double> Y = VectorShuffle.fromOp(DOUBLES, l -> 3 * (l / 4) + 1);
+	private static final VectorShuffle<Double> Z = VectorShuffle.fromOp(DOUBLES, l -> 3 * (l / 4) + 2);
+
+	// Row k of the matrix repeated for every vertex : loaded from getRowOffset(k) (so that the load stays inside the matrix)
+	private static final VectorShuffle<Double> ROW0 = getRowShuffle(0), ROW1 = getRowShuffle(1), ROW2 = getRowShuffle(2), ROW3 = getRowShuffle(3);
+
+	VectorKernels() {
+		// Narrower vectors would only transform a part of a vertex at a time
+		if (VERTICES_PER_VECTOR < 1) throw new UnsupportedOperationException(DOUBLES + " is too narrow");
+	}
+
+	int fillColoredSpan(int[] _colorBuffer, float[] _depthBuffer, int _rowOffset, int _xStart, int _xEnd, double _w, double _wStep, double _r, double _rStep, double _g, double _gStep, double _b, double _bStep) {
+		int r = (int) (_r * FIXED_POINT_ONE), rStep = (int) (_rStep * FIXED_POINT_ONE);
+		int g = (int) (_g * FIXED_POINT_ONE), gStep = (int) (_gStep * FIXED_POINT_ONE);
+		int b = (int) (_b * FIXED_POINT_ONE), bStep = (int) (_bStep * FIXED_POINT_ONE);
+
+		// Setting the vectors up costs more than it saves on short spans
+		if (_xEnd - _xStart < MIN_SPAN_LENGTH) return fillColoredSpanFixed(_colorBuffer, _depthBuffer, _rowOffset, _xStart, _xEnd, _w, _wStep, r, rStep, g, gStep, b, bStep);
+
+		return fillColoredSpanVector(_colorBuffer, _depthBuffer, _rowOffset, _xStart, _xEnd, _w, _wStep, r, rStep, g, gStep, b, bStep);
+	}
+
+	// 4 pixels per iteration, then the scalar loop for the last ones
+	private static int fillColoredSpanVector(int[] _colorBuffer, float[] _depthBuffer, int _rowOffset, int _xStart, int _xEnd, double _w, double _wStep, int _r, int _rStep, int _g, int _gStep, int _b, int _bStep) {
+		int numPixels = 0;
+		int x = _xStart;
+
+		for (; x + 3 <= _xEnd; x += 4) {
+			int i = x - _xStart;
+			int pixelIndex = _rowOffset + x;
+
+			FloatVector w = (FloatVector) LANES_DOUBLE.add(i).mul(_wStep).add(_w).convertShape(VectorOperators.D2F, SPAN_FLOATS, 0);
+			FloatVector depth = FloatVector.fromArray(SPAN_FLOATS, _depthBuffer, pixelIndex);
+
+			VectorMask<Float> isInFront = w.lt(depth);
+
+			if (!isInFront.anyTrue()) continue;
+
+			depth.blend(w, isInFront).intoArray(_depthBuffer, pixelIndex);
+
+			IntVector red   = LANES_INT.mul(_rStep).add(_r + i * _rStep).lanewise(VectorOperators.ASHR, FIXED_POINT_SHIFT).max(0).min(255);
+			IntVector green = LANES_INT.mul(_gStep).add(_g + i * _gStep).lanewise(VectorOperators.ASHR, FIXED_POINT_SHIFT).max(0).min(255);
+			IntVector blue  = LANES_INT.mul(_bStep).add(_b + i * _bStep).lanewise(VectorOperators.ASHR, FIXED_POINT_SHIFT).max(0).min(255);
+
+			IntVector color = red.lanewise(VectorOperators.LSHL, 16).or(green.lanewise(VectorOperators.LSHL, 8)).or(blue).or(0xFF000000);
+
+			// Blended rather than stored through the mask, which is much slower on JDK 17
+			IntVector.fromArray(SPAN_INTS, _colorBuffer, pixelIndex).blend(color, isInFront.cast(SPAN_INTS)).intoArray(_colorBuffer, pixelIndex);
+
+			numPixels += isInFront.trueCount();
+		}
+
+		int i = x - _xStart;
+
+		return numPixels + fillColoredSpanFixed(_colorBuffer, _depthBuffer, _rowOffset, x, _xEnd, _w + _wStep * i, _wStep, _r + i * _rStep, _rStep, _g + i * _gStep, _gStep, _b + i * _bStep, _bStep);
+	}
+
+	void transformPoints(double[] _matrix, float[] _positions, int _first, int _last, double[] _out) {
+		DoubleVector row0 = DoubleVector.fromArray(DOUBLES, _matrix, getRowOffset(0)).rearrange(ROW0);
+		DoubleVector row1 = DoubleVector.fromArray(DOUBLES, _matrix, getRowOffset(1)).rearrange(ROW1);
+		DoubleVector row2 = DoubleVector.fromArray(DOUBLES, _matrix, getRowOffset(2)).rearrange(ROW2);
+		DoubleVector row3 = DoubleVector.fromArray(DOUBLES, _matrix, getRowOffset(3)).rearrange(ROW3);
+
+		int i = _first;
+
+		// The float load reads a little past the last vertex of the group : stop before the end of the array
+		for (; i + VERTICES_PER_VECTOR <= _last && 3 * i + FLOATS.length() <= _positions.length; i += VERTICES_PER_VECTOR) {
+			DoubleVector positions = (DoubleVector) FloatVector.fromArray(FLOATS, _positions, 3 * i).convertShape(VectorOperators.F2D, DOUBLES, 0);
+
+			row0.mul(positions.rearrange(X)).add(row1.mul(positions.rearrange(Y))).add(row2.mul(positions.rearrange(Z))).add(row3).intoArray(_out, 4 * i);
+		}
+
+		super.transformPoints(_matrix, _positions, i, _last, _out);
+	}
+
+	private static int getRowOffset(int _row) {
+		return Math.min(4 * _row, 16 - DOUBLES.length());
+	}
+
+	private static VectorShuffle<Double> getRowShuffle(int _row) {
+		return VectorShuffle.fromOp(DOUBLES, l -> 4 * _row - getRowOffset(_row) + l % 4);
+	}
+}
@@ -0,0 +1,118 @@
+package test;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import engine.KernelMode;
+import engine.Matrix4;
+import engine.RenderTarget;
+import engine.Texture;
+import engine.TextureMapping;
+import engine.Triangle;
+import engine.Vector;
+
+// The scanline rasterizers and the vertex transforms must not allocate, per pixel or per triangle : counts the bytes
+// the thread allocates around a fixed number of calls (after more calls to let the JIT compile them), in every
+// KernelMode. Exits with status 1 on failure.
+// Usage : javac -d out engine/*.java test/*.java && java -cp out test.AllocationTest (see the README for the vector kernels)
+public class AllocationTest {
+	private static final int NUM_WARMUP_CALLS = 20000;
+	private static final int NUM_CALLS = 5000;
+
+	private static com.sun.management.ThreadMXBean threadBean;
+	private static int numFailures = 0;
+
+	public static void main(String[] args) {
+		threadBean = getThreadBean();
+
+		RenderTarget target = new RenderTarget(64, 64);
+
+		Vector[] vertices = new Vector[] { new Vector(3, 4, 0, 1), new Vector(60, 10, 0, 2), new Vector(15, 58, 0, 3) };
+		Vector[] colors   = new Vector[] { new Vector(255, 0, 0), new Vector(0, 255, 0), new Vector(0, 0, 255) };
+
+		float[] brightnesses = new float[] { 1f, 0.5f, 0.25f };
+
+		Texture texture = createTexture(64);
+
+		// Set up once, as the tile rasterizer does per triangle
+		TextureMapping mapping = new TextureMapping();
+		mapping.set(vertices, 0, 0, 1, 0, 0, 1);
+
+		Matrix4 matrix = Matrix4.perspective(256, 256, 90, 0.1, 100);
+
+		float[] positions = new float[3 * 1024];
+		double[] clip     = new double[4 * 1024];
+
+		for (KernelMode mode : KernelMode.values()) {
+			check("renderColoredTriangle " + mode, () -> {
+				target.clear(0);
+				Triangle.renderColoredTriangle(vertices, target, colors, 0, 0, target.width, target.height, mode);
+			});
+
+			check("renderColoredTriangle " + mode + " (clipped to a tile)", () -> {
+				target.clear(0);
+				Triangle.renderColoredTriangle(vertices, target, colors, 16, 16, 48, 48, mode);
+			});
+
+			check("renderTexturedTriangle " + mode, () -> {
+				target.clear(0);
+				Triangle.renderTexturedTriangle(vertices, mapping, texture, target, brightnesses, 0, 0, target.width, target.height, mode);
+			});
+
+			check("renderTexturedTriangle " + mode + " (clipped to a tile)", () -> {
+				target.clear(0);
+				Triangle.renderTexturedTriangle(vertices, mapping, texture, target, brightnesses, 16, 16, 48, 48, mode);
+			});
+
+			check("Matrix4.transformPoints " + mode, () -> {
+				matrix.transformPoints(positions, 1, positions.length / 3, clip, mode);
+			});
+		}
+
+		if (numFailures > 0) {
+			System.out.println(numFailures + " allocation checks failed");
+			System.exit(1);
+		}
+	}
+
+	private static void check(String _name, Runnable _call) {
+		for (int i = 0; i < NUM_WARMUP_CALLS; i++) _call.run();
+
+		long allocatedBefore = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+		for (int i = 0; i < NUM_CALLS; i++) _call.run();
+
+		long allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+		System.out.println(((allocated == 0) ? "ok   " : "FAIL ") + _name + " : " + allocated + " bytes over " + NUM_CALLS + " calls");
+
+		if (allocated != 0) numFailures++;
+	}
+
+	// Not being able to measure fails the test too
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+			if (bean.isThreadAllocatedMemorySupported()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+
+				return bean;
+			}
+		}
+
+		throw new IllegalStateException("This JVM doesn't count the bytes allocated by a thread");
+	}
+
+	private static Texture createTexture(int _size) {
+		BufferedImage image = new BufferedImage(_size, _size, BufferedImage.TYPE_INT_RGB);
+
+		for (int y = 0; y < _size; y++) {
+			for (int x = 0; x < _size; x++) {
+				image.setRGB(x, y, (x * 255 / _size) << 16 | (y * 255 / _size) << 8 | ((x ^ y) & 0xFF));
+			}
+		}
+
+		return new Texture(image);
+	}
+}
@@ -0,0 +1,157 @@
+package test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import engine.KernelMode;
+import engine.Matrix4;
+import engine.RenderTarget;
+import engine.Texture;
+import engine.TextureMapping;
+import engine.Triangle;
+import engine.Vector;
+
+// The kernel modes must agree : over random triangles drawn on top of each other, the span kernels (SCALAR) cover the
+// same pixels as the per pixel evaluation with at most 1 of difference per color channel (fixed point rounding),
+// and the Vector API kernels (VECTOR) write exactly what SCALAR writes, vertex transforms included.
+// Exits with status 1 on failure.
+// Usage : javac -d out engine/*.java test/*.java && java -cp out test.KernelTest (see the README for the vector kernels)
+public class KernelTest {
+	private static final int SIZE = 128;
+	private static final int NUM_TRIANGLES = 2000;
+
+	private static int numFailures = 0;
+
+	public static void main(String[] args) {
+		if (!KernelMode.VECTOR.isAvailable()) System.out.println("Vector kernels not available : VECTOR is checked against the scalar kernels it falls back to");
+
+		checkTriangles(false);
+		checkTriangles(true);
+		checkTransforms();
+
+		if (numFailures > 0) {
+			System.out.println(numFailures + " kernel checks failed");
+			System.exit(1);
+		}
+	}
+
+	private static void checkTriangles(boolean _isTextured) {
+		String name = _isTextured ? "renderTexturedTriangle" : "renderColoredTriangle";
+
+		RenderTarget perPixel = new RenderTarget(SIZE, SIZE);
+		RenderTarget scalar   = new RenderTarget(SIZE, SIZE);
+		RenderTarget vector   = new RenderTarget(SIZE, SIZE);
+
+		perPixel.clear(0);
+		scalar.clear(0);
+		vector.clear(0);
+
+		Texture texture = createTexture(64);
+		TextureMapping mapping = new TextureMapping();
+
+		Random random = new Random(1);
+
+		int numPerPixel = 0, numScalar = 0, numVector = 0;
+
+		for (int t = 0; t < NUM_TRIANGLES; t++) {
+			// Partly outside of the target too, and at depths that hide some of the earlier ones
+			Vector[] vertices = new Vector[3];
+			Vector[] colors   = new Vector[3];
+			float[] brightnesses = new float[3];
+
+			for (int i = 0; i < 3; i++) {
+				vertices[i] = new Vector(random.nextDouble() * 1.5 * SIZE - 0.25 * SIZE, random.nextDouble() * 1.5 * SIZE - 0.25 * SIZE, 0, 1 + random.nextDouble() * 10);
+				colors[i]   = new Vector(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+				brightnesses[i] = random.nextFloat();
+			}
+
+			if (_isTextured) {
+				mapping.set(vertices, 0, 0, 1, 0, 0, 1);
+
+				numPerPixel += Triangle.renderTexturedTriangle(vertices, mapping, texture, perPixel, brightnesses, 0, 0, SIZE, SIZE, KernelMode.PER_PIXEL);
+				numScalar   += Triangle.renderTexturedTriangle(vertices, mapping, texture, scalar,   brightnesses, 0, 0, SIZE, SIZE, KernelMode.SCALAR);
+				numVector   += Triangle.renderTexturedTriangle(vertices, mapping, texture, vector,   brightnesses, 0, 0, SIZE, SIZE, KernelMode.VECTOR);
+			} else {
+				numPerPixel += Triangle.renderColoredTriangle(vertices, perPixel, colors, 0, 0, SIZE, SIZE, KernelMode.PER_PIXEL);
+				numScalar   += Triangle.renderColoredTriangle(vertices, scalar,   colors, 0, 0, SIZE, SIZE, KernelMode.SCALAR);
+				numVector   += Triangle.renderColoredTriangle(vertices, vector,   colors, 0, 0, SIZE, SIZE, KernelMode.VECTOR);
+			}
+		}
+
+		int maxDifference = 0, numDifferentDepths = 0;
+
+		for (int i = 0; i < SIZE * SIZE; i++) {
+			for (int shift = 0; shift <= 16; shift += 8) {
+				maxDifference = Math.max(maxDifference, Math.abs(((perPixel.colorBuffer[i] >> shift) & 0xFF) - ((scalar.colorBuffer[i] >> shift) & 0xFF)));
+			}
+
+			if (perPixel.depthBuffer[i] != scalar.depthBuffer[i]) numDifferentDepths++;
+		}
+
+		check(name + " SCALAR against PER_PIXEL : " + numScalar + " and " + numPerPixel + " pixels written, " + numDifferentDepths + " depths and up to "
+				+ maxDifference + " per channel different", numScalar == numPerPixel && numDifferentDepths == 0 && maxDifference <= 1);
+
+		boolean isSame = numVector == numScalar;
+
+		for (int i = 0; i < SIZE * SIZE; i++) {
+			isSame &= vector.colorBuffer[i] == scalar.colorBuffer[i] && Float.compare(vector.depthBuffer[i], scalar.depthBuffer[i]) == 0;
+		}
+
+		check(name + " VECTOR against SCALAR : " + numVector + " and " + numScalar + " pixels written, " + (isSame ? "same" : "different") + " pixels", isSame);
+	}
+
+	private static void checkTransforms() {
+		Random random = new Random(2);
+
+		float[] positions = new float[3 * 1000];
+
+		for (int i = 0; i < positions.length; i++) positions[i] = random.nextFloat() * 20 - 10;
+
+		boolean isSame = true;
+
+		for (int t = 0; t < 100; t++) {
+			Matrix4 matrix = new Matrix4();
+
+			for (int i = 0; i < 16; i++) matrix.m[i] = random.nextDouble() * 2 - 1;
+
+			// Ranges that don't start or end on a whole vector, up to the end of the array
+			int first = random.nextInt(20), last = (t % 2 == 0) ? 1000 : first + random.nextInt(1000 - first);
+
+			double[] scalar = new double[4 * 1000], vector = new double[4 * 1000];
+
+			matrix.transformPoints(positions, first, last, scalar, KernelMode.SCALAR);
+			matrix.transformPoints(positions, first, last, vector, KernelMode.VECTOR);
+
+			for (int i = 0; i < scalar.length; i++) isSame &= Double.compare(scalar[i], vector[i]) == 0;
+
+			// And both the same as transforming one point at a time
+			double[] point = new double[4];
+
+			for (int i = first; i < last; i++) {
+				matrix.transform(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2], point, 0);
+
+				for (int c = 0; c < 4; c++) isSame &= Double.compare(point[c], scalar[4 * i + c]) == 0;
+			}
+		}
+
+		check("Matrix4.transformPoints VECTOR against SCALAR and Matrix4.transform : " + (isSame ? "same" : "different") + " results", isSame);
+	}
+
+	private static void check(String _description, boolean _isOk) {
+		System.out.println((_isOk ? "ok   " : "FAIL ") + _description);
+
+		if (!_isOk) numFailures++;
+	}
+
+	private static Texture createTexture(int _size) {
+		BufferedImage image = new BufferedImage(_size, _size, BufferedImage.TYPE_INT_RGB);
+
+		for (int y = 0; y < _size; y++) {
+			for (int x = 0; x < _size; x++) {
+				image.setRGB(x, y, (x * 255 / _size) << 16 | (y * 255 / _size) << 8 | ((x ^ y) & 0xFF));
+			}
+		}
+
+		return new Texture(image);
+	}
+}